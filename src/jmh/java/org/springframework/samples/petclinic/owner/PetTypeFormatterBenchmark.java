@@ -0,0 +1,97 @@
+package org.springframework.samples.petclinic.owner;
+
+import java.lang.reflect.Proxy;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link PetTypeFormatter#parse} with the previous implementation, which ran
+ * {@link OwnerRepository#findPetTypes()} and scanned the result on every call.
+ * <p>
+ * The repository is an in-memory stub that copies the type list the way a query
+ * materializes a new result. The numbers therefore leave out the database round trip
+ * the old implementation paid on top, and understate the difference seen in the
+ * application.
+ * <p>
+ * Run with {@code ./mvnw -Pbenchmarks test-compile exec:exec}; JMH options can be passed
+ * with {@code -Djmh.args="..."}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PetTypeFormatterBenchmark {
+
+	@Param({ "6", "50" })
+	private int types;
+
+	private OwnerRepository owners;
+
+	private PetTypeFormatter formatter;
+
+	private String lastName;
+
+	private String lastId;
+
+	@Setup
+	public void setup() throws ParseException {
+		List<PetType> petTypes = new ArrayList<>();
+		for (int i = 1; i <= this.types; i++) {
+			PetType type = new PetType();
+			type.setId(i);
+			type.setName("type-" + i);
+			petTypes.add(type);
+		}
+		this.owners = (OwnerRepository) Proxy.newProxyInstance(OwnerRepository.class.getClassLoader(),
+				new Class<?>[] { OwnerRepository.class }, (proxy, method, args) -> {
+					if (method.getName().equals("findPetTypes")) {
+						return new ArrayList<>(petTypes);
+					}
+					throw new UnsupportedOperationException(method.getName());
+				});
+		this.formatter = new PetTypeFormatter(this.owners);
+		this.lastName = "type-" + this.types;
+		this.lastId = String.valueOf(this.types);
+		this.formatter.parse(this.lastName, Locale.ENGLISH);
+	}
+
+	@Benchmark
+	public PetType scanQueryResult() throws ParseException {
+		Collection<PetType> findPetTypes = this.owners.findPetTypes();
+		for (PetType type : findPetTypes) {
+			if (type.getName().equals(this.lastName)) {
+				return type;
+			}
+		}
+		throw new ParseException("type not found: " + this.lastName, 0);
+	}
+
+	@Benchmark
+	public PetType lookupByName() throws ParseException {
+		return this.formatter.parse(this.lastName, Locale.ENGLISH);
+	}
+
+	@Benchmark
+	public PetType lookupById() throws ParseException {
+		return this.formatter.parse(this.lastId, Locale.ENGLISH);
+	}
+
+}
@@ -0,0 +1,69 @@
+package org.springframework.samples.petclinic.vet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.support.MutableSortDefinition;
+import org.springframework.beans.support.PropertyComparator;
+
+/**
+ * Compares {@link Vet#getSpecialties()} with the previous implementation, which copied
+ * the specialty set, sorted the copy with a reflective {@link PropertyComparator} and
+ * wrapped it on every call. A vet list page calls it several times per vet: the template
+ * twice and each serializer once.
+ * <p>
+ * Run with {@code ./mvnw -Pbenchmarks test-compile exec:exec
+ * -Djmh.args="VetSpecialtiesBenchmark -prof gc"}; {@code gc.alloc.rate.norm} shows the
+ * bytes allocated per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VetSpecialtiesBenchmark {
+
+	@Param({ "1", "3", "10" })
+	private int specialties;
+
+	private Vet vet;
+
+	@Setup
+	public void setup() {
+		this.vet = new Vet();
+		for (int i = this.specialties; i > 0; i--) {
+			Specialty specialty = new Specialty();
+			specialty.setId(i);
+			specialty.setName("specialty-" + i);
+			this.vet.addSpecialty(specialty);
+		}
+		this.vet.getSpecialties();
+	}
+
+	@Benchmark
+	public List<Specialty> copyAndSortByReflection() {
+		List<Specialty> sortedSpecs = new ArrayList<>(this.vet.getSpecialtiesInternal());
+		PropertyComparator.sort(sortedSpecs, new MutableSortDefinition("name", true, true));
+		return Collections.unmodifiableList(sortedSpecs);
+	}
+
+	@Benchmark
+	public List<Specialty> cachedSortedView() {
+		return this.vet.getSpecialties();
+	}
+
+}
@@ -25,8 +25,8 @@ import org.springframework.samples.petclinic.vet.Vet;
 public class PetClinicRuntimeHints implements RuntimeHintsRegistrar {
 
 	/**
-	 * Runtimehints allows the application to use easier ways to configurate certain things in the application.
-	 * Such as DB, work with files etc.
+	 * Runtimehints allows the application to use easier ways to configurate certain
+	 * things in the application. Such as DB, work with files etc.
 	 */
 	@Override
 	public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
@@ -3,9 +3,12 @@ package org.springframework.samples.petclinic.donates;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import org.springframework.samples.petclinic.model.BaseEntity;
+import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
@@ -20,9 +23,14 @@ public class Donate extends BaseEntity {
 	@NotNull
 	private LocalDate date;
 
-	@Column(name = "amount")
-	@NotBlank
-	private String amount;
+	/*
+	 * castka v EUR s presnosti na centy, odpovida sloupci DECIMAL(12,2)
+	 */
+	@Column(name = "amount", precision = 12, scale = 2)
+	@NotNull
+	@Positive
+	@Digits(integer = 10, fraction = 2)
+	private BigDecimal amount;
 
 	@Column(name = "message")
 	@NotBlank
@@ -44,11 +52,11 @@ public class Donate extends BaseEntity {
 		this.date = date;
 	}
 
-	public String getAmount() {
+	public BigDecimal getAmount() {
 		return amount;
 	}
 
-	public void setAmount(String amount) {
+	public void setAmount(BigDecimal amount) {
 		this.amount = amount;
 	}
 
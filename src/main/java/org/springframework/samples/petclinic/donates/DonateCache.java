@@ -0,0 +1,182 @@
+package org.springframework.samples.petclinic.donates;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Caches the donate lists in the {@code donates} cache and evicts only what a write
+ * actually changes, instead of clearing the whole cache.
+ * <p>
+ * Keyset pages ({@link DonateRepository#findOlderThan} and
+ * {@link DonateRepository#findNewerThan}) are cached together with the range of
+ * {@code (date, id)} positions they cover. A new or deleted donate changes only the page
+ * whose range contains it; the pages around it are defined by their own cursors and stay
+ * valid. The ranges are also indexed in a Caffeine cache with the same size and ttl as
+ * {@code donates}, so a write can find the affected pages; a page whose range has left
+ * the index is treated as a miss. A page loaded while a write was being evicted is not
+ * kept, since it may have been read before the write. Offset pages carry the total count,
+ * so any write makes all of them stale; their keys include a generation that is bumped on
+ * write, which drops them without a scan.
+ */
+@Component
+class DonateCache {
+
+	static final String CACHE_NAME = "donates";
+
+	private final DonateRepository donates;
+
+	private final Cache cache;
+
+	private final AtomicLong offsetGeneration = new AtomicLong();
+
+	private final AtomicLong writes = new AtomicLong();
+
+	private final com.github.benmanes.caffeine.cache.Cache<KeysetKey, Range> keysetRanges;
+
+	DonateCache(DonateRepository donates, CacheManager cacheManager,
+			@Value("${petclinic.cache.donates.max-size:500}") long maxSize,
+			@Value("${petclinic.cache.donates.ttl:10m}") Duration ttl) {
+		this.donates = donates;
+		this.cache = cacheManager.getCache(CACHE_NAME);
+		this.keysetRanges = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).build();
+	}
+
+	Page<Donate> findAll(Pageable pageable) {
+		OffsetKey key = new OffsetKey(this.offsetGeneration.get(), pageable.getPageNumber(), pageable.getPageSize());
+		return this.cache.get(key, () -> this.donates.findAll(pageable));
+	}
+
+	/**
+	 * Cached {@link DonateRepository#findOlderThan}.
+	 */
+	Slice<Donate> findOlderThan(LocalDate beforeDate, int beforeId, Pageable pageable) {
+		return findKeyset(new KeysetKey(true, beforeDate, beforeId, pageable.getPageSize()), () -> {
+			Slice<Donate> slice = this.donates.findOlderThan(beforeDate, beforeId, pageable);
+			// stranka pokryva vse mezi kurzorem a svym poslednim radkem, posledni stranka
+			// az na konec
+			Position last = slice.hasNext() ? Position.of(slice.getContent().get(slice.getNumberOfElements() - 1))
+					: Position.FIRST;
+			return new KeysetSlice(slice, new Range(last, true, new Position(beforeDate, beforeId), false));
+		});
+	}
+
+	/**
+	 * Cached {@link DonateRepository#findNewerThan}.
+	 */
+	Slice<Donate> findNewerThan(LocalDate afterDate, int afterId, Pageable pageable) {
+		return findKeyset(new KeysetKey(false, afterDate, afterId, pageable.getPageSize()), () -> {
+			Slice<Donate> slice = this.donates.findNewerThan(afterDate, afterId, pageable);
+			Position last = slice.hasNext() ? Position.of(slice.getContent().get(slice.getNumberOfElements() - 1))
+					: Position.LAST;
+			return new KeysetSlice(slice, new Range(new Position(afterDate, afterId), false, last, true));
+		});
+	}
+
+	private Slice<Donate> findKeyset(KeysetKey key, Supplier<KeysetSlice> loader) {
+		KeysetSlice cached = this.cache.get(key, KeysetSlice.class);
+		if (cached != null && this.keysetRanges.getIfPresent(key) != null) {
+			return cached.slice();
+		}
+		long writesBefore = this.writes.get();
+		KeysetSlice loaded = loader.get();
+		this.cache.put(key, loaded);
+		this.keysetRanges.put(key, loaded.range());
+		if (this.writes.get() != writesBefore) {
+			// behem nacitani probehl zapis, stranka muze byt stara; zapis, ktery prijde
+			// az ted, uz rozsah v indexu najde
+			this.keysetRanges.invalidate(key);
+			this.cache.evict(key);
+		}
+		return loaded.slice();
+	}
+
+	/**
+	 * Evicts everything a new or deleted donate makes stale: the full list, all offset
+	 * pages and the keyset pages covering the donate. Inside a transaction this happens
+	 * after commit, so a concurrent reader cannot cache the old rows again.
+	 */
+	void donateChanged(Donate donate) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					evict(donate);
+				}
+			});
+		}
+		else {
+			evict(donate);
+		}
+	}
+
+	private void evict(Donate donate) {
+		this.writes.incrementAndGet();
+		this.offsetGeneration.incrementAndGet();
+		Position changed = Position.of(donate);
+		Map<KeysetKey, Range> ranges = this.keysetRanges.asMap();
+		for (Iterator<Map.Entry<KeysetKey, Range>> it = ranges.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<KeysetKey, Range> entry = it.next();
+			if (entry.getValue().contains(changed)) {
+				it.remove();
+				this.cache.evict(entry.getKey());
+			}
+		}
+	}
+
+	private record OffsetKey(long generation, int page, int size) {
+	}
+
+	private record KeysetKey(boolean older, LocalDate date, int id, int size) {
+	}
+
+	private record KeysetSlice(Slice<Donate> slice, Range range) implements Serializable {
+	}
+
+	private record Position(LocalDate date, int id) implements Comparable<Position>, Serializable {
+
+		static final Position FIRST = new Position(LocalDate.MIN, Integer.MIN_VALUE);
+
+		static final Position LAST = new Position(LocalDate.MAX, Integer.MAX_VALUE);
+
+		static Position of(Donate donate) {
+			// donat vlozeny davkou nezna sve id; je ale vetsi nez vsechna existujici
+			return new Position(donate.getDate(), donate.getId() != null ? donate.getId() : Integer.MAX_VALUE);
+		}
+
+		@Override
+		public int compareTo(Position other) {
+			int byDate = this.date.compareTo(other.date);
+			return byDate != 0 ? byDate : Integer.compare(this.id, other.id);
+		}
+
+	}
+
+	private record Range(Position from, boolean fromInclusive, Position to,
+			boolean toInclusive) implements Serializable {
+
+		boolean contains(Position position) {
+			int lower = position.compareTo(this.from);
+			int upper = position.compareTo(this.to);
+			return (lower > 0 || (lower == 0 && this.fromInclusive)) && (upper < 0 || (upper == 0 && this.toInclusive));
+		}
+
+	}
+
+}
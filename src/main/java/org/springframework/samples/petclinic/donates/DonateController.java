@@ -4,28 +4,78 @@ import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.model.Cursor;
+import org.springframework.samples.petclinic.model.KeysetPage;
+import org.springframework.samples.petclinic.report.DonationRollupService;
+import org.springframework.samples.petclinic.report.ReportAggregateService;
+import org.springframework.samples.petclinic.system.ResourceStreamWriter;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.cache.Cache;
-import org.springframework.cache.CacheManager;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Controller
 public class DonateController {
 
 	private final DonateRepository donateRepository;
-	private final CacheManager cacheManager;
+
+	private final DonateCache donateCache;
+
+	private final ReportAggregateService reportAggregates;
+
+	private final DonationRollupService donationRollups;
+
+	private final DonateWriter donateWriter;
+
+	private final ResourceStreamWriter resourceStreamWriter;
+
 	private static final Logger logger = LoggerFactory.getLogger(DonateController.class);
 
-	public DonateController(DonateRepository clinicService, CacheManager cacheManager) {
+	/*
+	 * krajni hodnoty pro hledani podle rozsahu (DECIMAL(12,2), typ DATE v MySQL)
+	 */
+	private static final BigDecimal MAX_AMOUNT = new BigDecimal("9999999999.99");
+
+	private static final LocalDate EARLIEST_DATE = LocalDate.of(1000, 1, 1);
+
+	private static final LocalDate LATEST_DATE = LocalDate.of(9999, 12, 31);
+
+	private static final int MAX_RANGE_PAGE_SIZE = 100;
+
+	/*
+	 * pocet donatu na jedne strance seznamu
+	 */
+	private static final int PAGE_SIZE = 5;
+
+	public DonateController(DonateRepository clinicService, DonateCache donateCache,
+			ReportAggregateService reportAggregates, DonationRollupService donationRollups, DonateWriter donateWriter,
+			ResourceStreamWriter resourceStreamWriter) {
 		this.donateRepository = clinicService;
-		this.cacheManager = cacheManager;
+		this.donateCache = donateCache;
+		this.reportAggregates = reportAggregates;
+		this.donationRollups = donationRollups;
+		this.donateWriter = donateWriter;
+		this.resourceStreamWriter = resourceStreamWriter;
 	}
 
+	/*
+	 * ulozeni donatu obstara DonateWriter, bud hned v jedne transakci s agregacemi a
+	 * dennimi buckety, nebo pres frontu write-behind; pri plne fronte vratime 503
+	 */
 	@PostMapping("/donates.html")
 	public String processCreationForm(@Valid Donate donate, BindingResult result) {
 		if (result.hasErrors()) {
@@ -33,41 +83,57 @@ public class DonateController {
 			logger.error("Error with processing the form.");
 			return "error.html";
 		}
-		this.donateRepository.save(donate);
-		logger.info("New donate added: donator={}, date={}, amount={}, message={}", donate.getDonatorName(), donate.getDate(), donate.getAmount(), donate.getMessage());
-
-		// vycisteni cache po ulozeni novych dat do db, aby byly znovu nacteny do cache
-		Cache cache = cacheManager.getCache("donates");
-		if (cache != null) {
-			cache.clear();
-			logger.info("Cleaning cache - donates.");
+		if (!this.donateWriter.write(donate)) {
+			logger.warn("Donate queue is full, rejecting donate from {}.", donate.getDonatorName());
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many donates, try again later");
 		}
+		logger.info("New donate added: donator={}, date={}, amount={}, message={}", donate.getDonatorName(),
+				donate.getDate(), donate.getAmount(), donate.getMessage());
 
 		return "redirect:/donates.html";
 	}
 
 	/*
-	get mapping pro donates.html
-	výchozí hodnota page = 1
-	Model použijeme pro přidání parametrů do html šablony
-	vyvtori se instance tridy Donates Donates
-	zavola se metoda donates.getDonateList, tedy arraylist, do ktereho se prida
+	 * get mapping pro donates.html s parametrem page se strankuje pres offset, jinak pres
+	 * kurzory after/before (keyset) bez count dotazu Model použijeme pro přidání
+	 * parametrů do html šablony vyvtori se instance tridy Donates Donates zavola se
+	 * metoda donates.getDonateList, tedy arraylist, do ktereho se prida
 	 */
 	@GetMapping("/donates.html")
-	public String showDonateList(@RequestParam(defaultValue = "1") int page, Model model) {
-		// Here we are returning an object of type 'Donates' rather than a collection of Donate
+	public String showDonateList(@RequestParam(required = false) Integer page,
+			@RequestParam(required = false) String after, @RequestParam(required = false) String before,
+			@RequestParam(defaultValue = "false") boolean count, Model model) {
+		if (page == null) {
+			KeysetPage<Donate> slice = findSlice(dateCursor(after), dateCursor(before));
+			model.addAttribute("donate", new Donate());
+			model.addAttribute("previousCursor", slice.previousCursor());
+			model.addAttribute("nextCursor", slice.nextCursor());
+			if (count) {
+				model.addAttribute("totalItems", donateRepository.findNumberOfDonates());
+			}
+			model.addAttribute("listDonates", slice.content());
+			return "donates/donateList";
+		}
+		// Here we are returning an object of type 'Donates' rather than a collection of
+		// Donate
 		// objects so it is simpler for Object-Xml mapping
 
 		Donates donates = new Donates();
-		Page<Donate> paginated = findPaginated(page); // vrati vysledek na jedne strance z db donates
-		donates.getDonateList().addAll(paginated.toList()); // vytvori arraylist, do ktereho se prida predchozi vysledek
-		return addPaginationModel(page, paginated, model); // zavola se metoda viz nize, ktera prida data do modelu
+		Page<Donate> paginated = findPaginated(page); // vrati vysledek na jedne strance z
+														// db donates
+		donates.getDonateList().addAll(paginated.toList()); // vytvori arraylist, do
+															// ktereho se prida predchozi
+															// vysledek
+		return addPaginationModel(page, paginated, model); // zavola se metoda viz nize,
+															// ktera prida data do modelu
 	}
 
 	private String addPaginationModel(int page, Page<Donate> paginated, Model model) {
-		List<Donate> listDonates = paginated.getContent(); // vytvori seznam donatu na aktualni strance z objektu paginated
+		List<Donate> listDonates = paginated.getContent(); // vytvori seznam donatu na
+															// aktualni strance z objektu
+															// paginated
 		/*
-		ulozeni promennych do promennych pro html sablonu
+		 * ulozeni promennych do promennych pro html sablonu
 		 */
 		model.addAttribute("donate", new Donate());
 		model.addAttribute("currentPage", page);
@@ -80,43 +146,119 @@ public class DonateController {
 	}
 
 	/*
-	vraci stranku donates na zaklade aktualni stranky
+	 * vraci stranku donates na zaklade aktualni stranky
 	 */
 	private Page<Donate> findPaginated(int page) {
-		int pageSize = 5;
-		Pageable pageable = PageRequest.of(page - 1, pageSize);
+		Pageable pageable = PageRequest.of(page - 1, PAGE_SIZE);
 		logger.info("Finding donates in database.");
-		return donateRepository.findAll(pageable);
+		return donateCache.findAll(pageable);
 	}
 
 	/*
-	Mazani donatu z DB
+	 * vraci stranku donatu od nejnovejsiho, starsich nez kurzor after, novejsich nez
+	 * kurzor before, nebo prvni stranku
 	 */
-	@PostMapping("/delete/{donateId}")
-	public String deleteDonate(@PathVariable Integer donateId) {
-		donateRepository.deleteById(donateId);
-		logger.info("Deleting donate with id {} from database.",donateId);
+	private KeysetPage<Donate> findSlice(Cursor after, Cursor before) {
+		Pageable pageable = PageRequest.of(0, PAGE_SIZE);
+		if (before != null) {
+			KeysetPage<Donate> previous = KeysetPage.backward(
+					donateCache.findNewerThan(LocalDate.parse(before.key()), before.id(), pageable),
+					DonateController::cursorOf);
+			if (!previous.isEmpty()) {
+				return previous;
+			}
+		}
+		else if (after != null) {
+			return KeysetPage.forward(donateCache.findOlderThan(LocalDate.parse(after.key()), after.id(), pageable),
+					true, DonateController::cursorOf);
+		}
+		return KeysetPage.forward(donateCache.findOlderThan(LATEST_DATE, Integer.MAX_VALUE, pageable), false,
+				DonateController::cursorOf);
+	}
 
-		Cache cache = cacheManager.getCache("donates");
-		if (cache != null) {
-			cache.clear();
-			logger.info("Cleaning cache - donates.");
+	private static Cursor cursorOf(Donate donate) {
+		return new Cursor(donate.getDate().toString(), donate.getId());
+	}
+
+	/*
+	 * kurzor, jehoz klic neni datum, je stejne poskozeny jako nedekodovatelny; vede na
+	 * prvni stranku
+	 */
+	private static Cursor dateCursor(String token) {
+		Cursor cursor = Cursor.decode(token);
+		if (cursor == null) {
+			return null;
+		}
+		try {
+			LocalDate.parse(cursor.key());
+			return cursor;
+		}
+		catch (DateTimeParseException ex) {
+			return null;
 		}
+	}
+
+	/*
+	 * Mazani donatu z DB
+	 */
+	@PostMapping("/delete/{donateId}")
+	@Transactional
+	public String deleteDonate(@PathVariable Integer donateId) {
+		donateRepository.findById(donateId).ifPresent(donate -> {
+			donateRepository.delete(donate);
+			reportAggregates.donateRemoved(donate);
+			donationRollups.donateRemoved(donate);
+			donateCache.donateChanged(donate);
+		});
+		logger.info("Deleting donate with id {} from database.", donateId);
 
 		return "redirect:/donates.html";
 	}
 
 	/*
-	nevraci html stranku, nybrz data ve formatu json
+	 * donaty v rozsahu castky a data jako json, bez nacteni cele tabulky do pameti
+	 * chybejici hranice se nahradi nejmensi/nejvetsi moznou hodnotou, aby dotaz mohl
+	 * pouzit index
+	 */
+	@GetMapping("/donates/range")
+	public @ResponseBody List<DonateRow> findDonatesInRange(@RequestParam(required = false) BigDecimal minAmount,
+			@RequestParam(required = false) BigDecimal maxAmount,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			@RequestParam(defaultValue = "1") int page, @RequestParam(defaultValue = "20") int size) {
+		Pageable pageable = PageRequest.of(Math.max(page, 1) - 1, Math.max(1, Math.min(size, MAX_RANGE_PAGE_SIZE)));
+		return donateRepository
+			.findByAmountAndDate(minAmount != null ? minAmount : BigDecimal.ZERO,
+					maxAmount != null ? maxAmount : MAX_AMOUNT, from != null ? from : EARLIEST_DATE,
+					to != null ? to : LATEST_DATE, pageable)
+			.getContent();
+	}
+
+	/*
+	 * nevraci html stranku, nybrz data ve formatu json donaty se zapisuji do odpovedi
+	 * postupne z db kurzoru, bez nacteni cele tabulky do pameti after je id posledniho
+	 * prijateho donatu, limit omezuje pocet donatu v odpovedi
 	 */
 	@GetMapping({ "/donates" })
-	public @ResponseBody
-	Donates showResourcesDonateList() {
-		// Here we are returning an object of type 'Donates' rather than a collection of Donate
-		// objects so it is simpler for JSon/Object mapping
-		Donates donates = new Donates();
-		donates.getDonateList().addAll(this.donateRepository.findAll());
-		return donates;
+	@Transactional(readOnly = true)
+	public void showResourcesDonateList(@RequestParam(defaultValue = "0") int after,
+			@RequestParam(required = false) Integer limit, HttpServletResponse response) throws IOException {
+		// dokument vypada stejne jako serializovany objekt Donates
+		try (Stream<Donate> donates = this.donateRepository.streamAfter(after, ResourceStreamWriter.limitOf(limit))) {
+			this.resourceStreamWriter.writeJson(response, "donateList", donates);
+		}
+	}
+
+	/*
+	 * totez ve formatu xml (JAXB, korenovy element Donates)
+	 */
+	@GetMapping(value = "/donates", produces = MediaType.APPLICATION_XML_VALUE)
+	@Transactional(readOnly = true)
+	public void showResourcesDonateListAsXml(@RequestParam(defaultValue = "0") int after,
+			@RequestParam(required = false) Integer limit, HttpServletResponse response) throws IOException {
+		try (Stream<Donate> donates = this.donateRepository.streamAfter(after, ResourceStreamWriter.limitOf(limit))) {
+			this.resourceStreamWriter.writeXml(response, Donates.class, "donateList", Donate.class, donates);
+		}
 	}
 
 }
@@ -0,0 +1,184 @@
+package org.springframework.samples.petclinic.donates;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Local append-only journal of the donates accepted by the write-behind queue, so that a
+ * crash does not lose donates that were acknowledged but not yet inserted.
+ * <p>
+ * Every accepted donate is appended as one JSON line with a sequence number before it is
+ * acknowledged. After a batch is committed to the database a commit line with the highest
+ * inserted sequence number is appended; batches are inserted in sequence order, so
+ * everything up to that number is in the database. Once all appended donates are
+ * committed the file is truncated. On startup the donates after the last commit line are
+ * returned for replay. A crash between the database commit and the commit line replays
+ * that batch again, so delivery is at least once.
+ * <p>
+ * Donates the database keeps refusing are moved to a dead-letter file next to the
+ * journal, {@code <journal>.failed}, in the same format, and then count as committed.
+ */
+class DonateJournal implements Closeable {
+
+	private final Path path;
+
+	private final ObjectMapper objectMapper;
+
+	private final boolean fsync;
+
+	private FileChannel channel;
+
+	private long lastSequence;
+
+	private long committedSequence;
+
+	DonateJournal(Path path, ObjectMapper objectMapper, boolean fsync) {
+		this.path = path;
+		this.objectMapper = objectMapper;
+		this.fsync = fsync;
+	}
+
+	/**
+	 * Opens the journal for appending.
+	 * @return the donates appended but not committed before the last shutdown, in order
+	 */
+	synchronized List<Entry> open() throws IOException {
+		List<Entry> entries = new ArrayList<>();
+		long complete = 0;
+		if (Files.exists(this.path)) {
+			byte[] content = Files.readAllBytes(this.path);
+			// neuplny posledni radek po padu uprostred zapisu se zahodi, jinak by se k
+			// nemu prilepil dalsi zapis
+			complete = content.length;
+			while (complete > 0 && content[(int) complete - 1] != '\n') {
+				complete--;
+			}
+			for (String line : new String(content, 0, (int) complete, StandardCharsets.UTF_8).split("\n")) {
+				readLine(line, entries);
+			}
+		}
+		else if (this.path.getParent() != null) {
+			Files.createDirectories(this.path.getParent());
+		}
+		entries.removeIf(entry -> entry.sequence() <= this.committedSequence);
+		this.channel = FileChannel.open(this.path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND);
+		this.channel.truncate(complete);
+		return entries;
+	}
+
+	/**
+	 * Appends a donate, on disk when this method returns if fsync is enabled.
+	 * @return the sequence number of the donate
+	 */
+	synchronized long append(Donate donate) throws IOException {
+		long sequence = this.lastSequence + 1;
+		write(this.objectMapper.writeValueAsString(Entry.of(sequence, donate)));
+		this.lastSequence = sequence;
+		return sequence;
+	}
+
+	/**
+	 * Records that all donates up to {@code sequence} are in the database.
+	 */
+	synchronized void commit(long sequence) throws IOException {
+		this.committedSequence = Math.max(this.committedSequence, sequence);
+		if (this.committedSequence >= this.lastSequence) {
+			// vse je v databazi, zurnal muze zacit znovu od prazdneho souboru
+			this.channel.truncate(0);
+			if (this.fsync) {
+				this.channel.force(true);
+			}
+		}
+		else {
+			write("{\"committed\":" + this.committedSequence + "}");
+		}
+	}
+
+	/**
+	 * Appends a donate that could not be inserted to the dead-letter file.
+	 */
+	synchronized void reject(long sequence, Donate donate) throws IOException {
+		String line = this.objectMapper.writeValueAsString(Entry.of(sequence, donate)) + "\n";
+		try (FileChannel failed = FileChannel.open(deadLetterPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+			while (buffer.hasRemaining()) {
+				failed.write(buffer);
+			}
+			failed.force(false);
+		}
+	}
+
+	Path deadLetterPath() {
+		return this.path.resolveSibling(this.path.getFileName() + ".failed");
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (this.channel != null) {
+			this.channel.close();
+		}
+	}
+
+	private void write(String line) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+		while (buffer.hasRemaining()) {
+			this.channel.write(buffer);
+		}
+		if (this.fsync) {
+			this.channel.force(false);
+		}
+	}
+
+	private void readLine(String line, List<Entry> entries) throws JsonProcessingException {
+		if (line.isBlank()) {
+			return;
+		}
+		JsonNode node = this.objectMapper.readTree(line);
+		if (node.has("committed")) {
+			this.committedSequence = Math.max(this.committedSequence, node.get("committed").asLong());
+		}
+		else {
+			Entry entry = this.objectMapper.treeToValue(node, Entry.class);
+			this.lastSequence = Math.max(this.lastSequence, entry.sequence());
+			entries.add(entry);
+		}
+	}
+
+	/**
+	 * One journaled donate.
+	 */
+	record Entry(long sequence, String donatorName, LocalDate date, BigDecimal amount, String message) {
+
+		static Entry of(long sequence, Donate donate) {
+			return new Entry(sequence, donate.getDonatorName(), donate.getDate(), donate.getAmount(),
+					donate.getMessage());
+		}
+
+		Donate toDonate() {
+			Donate donate = new Donate();
+			donate.setDonatorName(this.donatorName);
+			donate.setDate(this.date);
+			donate.setAmount(this.amount);
+			donate.setMessage(this.message);
+			return donate;
+		}
+
+	}
+
+}
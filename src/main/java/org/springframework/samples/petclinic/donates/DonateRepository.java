@@ -1,40 +1,110 @@
 package org.springframework.samples.petclinic.donates;
 
-import org.springframework.cache.annotation.Cacheable;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.Collection;
+import java.util.stream.Stream;
 
-public interface DonateRepository extends CrudRepository<Donate, Integer>{
+public interface DonateRepository extends CrudRepository<Donate, Integer> {
 
 	/*
-	pouzivane metody save a deleteById jsou vestavene metody CrudRepository a neni treba je tu definovat
+	 * pouzivane metody save a deleteById jsou vestavene metody CrudRepository a neni
+	 * treba je tu definovat
 	 */
 
+	/*
+	 * vysledky se cachuji v DonateCache, ktera pri zapisu vyradi jen zasazene stranky
+	 */
 	@Transactional(readOnly = true)
-	@Cacheable("donates")
 	Collection<Donate> findAll() throws DataAccessException;
 
 	@Transactional(readOnly = true)
-	@Cacheable("donates")
 	Page<Donate> findAll(Pageable pageable) throws DataAccessException;
 
+	/**
+	 * Retrieve one page of donates, newest first, strictly older than the donate given by
+	 * {@code (beforeDate, beforeId)}. No count query is run. For the first page pass a
+	 * date after all donates and {@link Integer#MAX_VALUE}.
+	 */
+	@Query("SELECT d FROM Donate d WHERE d.date < :beforeDate OR (d.date = :beforeDate AND d.id < :beforeId) "
+			+ "ORDER BY d.date DESC, d.id DESC")
+	@Transactional(readOnly = true)
+	Slice<Donate> findOlderThan(@Param("beforeDate") LocalDate beforeDate, @Param("beforeId") int beforeId,
+			Pageable pageable);
+
+	/**
+	 * Retrieve the donates strictly newer than the given one, oldest first, for the
+	 * "previous" link of {@link #findOlderThan}.
+	 */
+	@Query("SELECT d FROM Donate d WHERE d.date > :afterDate OR (d.date = :afterDate AND d.id > :afterId) "
+			+ "ORDER BY d.date, d.id")
+	@Transactional(readOnly = true)
+	Slice<Donate> findNewerThan(@Param("afterDate") LocalDate afterDate, @Param("afterId") int afterId,
+			Pageable pageable);
+
 	@Query("SELECT COUNT(*) FROM Donate")
 	@Transactional(readOnly = true)
 	int findNumberOfDonates();
 
+	/*
+	 * pri prazdne tabulce vraci null
+	 */
 	@Query("SELECT MAX(d.amount) FROM Donate d")
 	@Transactional(readOnly = true)
-	int findMaxAmount();
+	BigDecimal findMaxAmount();
 
 	@Query("SELECT SUM(d.amount) FROM Donate d")
 	@Transactional(readOnly = true)
-	int calculateTotalAmount();
+	BigDecimal calculateTotalAmount();
 
+	/**
+	 * Retrieve the donates with an amount between {@code minAmount} and {@code maxAmount}
+	 * made between {@code from} and {@code to}, all bounds inclusive. The query is
+	 * answered from the {@code (amount, donate_date)} index and returned in index order,
+	 * smallest amount first.
+	 */
+	@Query("SELECT new org.springframework.samples.petclinic.donates.DonateRow(d.id, d.donatorName, d.date, d.amount, d.message) "
+			+ "FROM Donate d WHERE d.amount BETWEEN :minAmount AND :maxAmount AND d.date BETWEEN :from AND :to "
+			+ "ORDER BY d.amount, d.date, d.id")
+	@Transactional(readOnly = true)
+	Slice<DonateRow> findByAmountAndDate(@Param("minAmount") BigDecimal minAmount,
+			@Param("maxAmount") BigDecimal maxAmount, @Param("from") LocalDate from, @Param("to") LocalDate to,
+			Pageable pageable);
+
+	/**
+	 * Stream the donates made between {@code from} and {@code to}, oldest first. Rows are
+	 * fetched from a cursor in small batches and are not attached to the persistence
+	 * context, so memory use does not grow with the number of rows. To resume an
+	 * interrupted stream, pass the date and id of the last row received as {@code from}
+	 * and {@code afterId}. The stream must be consumed and closed inside a transaction.
+	 */
+	@Query("SELECT new org.springframework.samples.petclinic.donates.DonateRow(d.id, d.donatorName, d.date, d.amount, d.message) "
+			+ "FROM Donate d WHERE d.date <= :to AND (d.date > :from OR (d.date = :from AND d.id > :afterId)) "
+			+ "ORDER BY d.date, d.id")
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+	@Transactional(readOnly = true)
+	Stream<DonateRow> streamDonates(@Param("from") LocalDate from, @Param("to") LocalDate to,
+			@Param("afterId") int afterId);
+
+	/*
+	 * donaty serazene podle id za zadanym id, pro streamovany vypis /donates; pageable
+	 * jen omezuje pocet radku stream je nutne precist a zavrit uvnitr transakce
+	 */
+	@Query("SELECT d FROM Donate d WHERE d.id > :afterId ORDER BY d.id")
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+	@Transactional(readOnly = true)
+	Stream<Donate> streamAfter(@Param("afterId") int afterId, Pageable pageable);
 
 }
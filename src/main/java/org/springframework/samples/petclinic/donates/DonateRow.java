@@ -0,0 +1,12 @@
+package org.springframework.samples.petclinic.donates;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Read-only projection of a {@link Donate}, used where donates are streamed rather than
+ * loaded as managed entities.
+ */
+public record DonateRow(Integer id, String donatorName, LocalDate date, BigDecimal amount, String message) {
+
+}
@@ -0,0 +1,339 @@
+package org.springframework.samples.petclinic.donates;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.report.DonationRollupService;
+import org.springframework.samples.petclinic.report.ReportAggregateService;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Stores new donates together with the report aggregates, donation buckets and cache
+ * evictions that go with them.
+ * <p>
+ * By default every donate is saved in its own transaction before the request returns.
+ * With {@code petclinic.donates.write-behind.enabled} donates are instead appended to a
+ * local {@link DonateJournal}, put on a bounded in-memory queue and acknowledged; a
+ * single worker inserts them in JDBC batches of up to {@code flush-size} rows, at least
+ * every {@code flush-interval}, with one transaction per batch. The aggregates and
+ * buckets are updated once per batch rather than once per donate.
+ * <p>
+ * A batch the database refuses is retried up to {@code max-attempts} times, waiting twice
+ * as long after every failure. Then its donates are inserted one by one, and those that
+ * still fail go to the dead-letter file of the journal, so that one bad row neither
+ * blocks the queue nor is lost.
+ * <p>
+ * When the queue is full a donate waits up to {@code offer-timeout} for room and is then
+ * rejected, so a slow database pushes back on the clients instead of growing the heap. On
+ * shutdown the queue stops after the web server, and the worker drains what is left for
+ * up to {@code drain-timeout}; anything still pending stays in the journal and is
+ * inserted on the next start.
+ */
+@Component
+public class DonateWriter implements SmartLifecycle {
+
+	private static final String INSERT = "INSERT INTO donates (donator_name, donate_date, amount, message) "
+			+ "VALUES (?, ?, ?, ?)";
+
+	private static final Logger logger = LoggerFactory.getLogger(DonateWriter.class);
+
+	private final DonateRepository donates;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final ReportAggregateService reportAggregates;
+
+	private final DonationRollupService donationRollups;
+
+	private final DonateCache donateCache;
+
+	private final boolean writeBehind;
+
+	private final int flushSize;
+
+	private final Duration flushInterval;
+
+	private final Duration offerTimeout;
+
+	private final Duration drainTimeout;
+
+	private final int maxAttempts;
+
+	private final DonateJournal journal;
+
+	private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+
+	/*
+	 * zapis do zurnalu a zarazeni do fronty probehnou naraz, takze fronta je serazena
+	 * podle cisel v zurnalu; jinak by davka s vyssim cislem mohla potvrdit v zurnalu i
+	 * donat, ktery jeste ceka
+	 */
+	private final Object appendLock = new Object();
+
+	/*
+	 * volna mista ve fronte; misto se zabira pred zapisem do zurnalu, aby odmitnuty donat
+	 * nebyl v zurnalu
+	 */
+	private final Semaphore capacity;
+
+	private volatile boolean running;
+
+	private Thread worker;
+
+	public DonateWriter(DonateRepository donates, JdbcTemplate jdbcTemplate,
+			PlatformTransactionManager transactionManager, ReportAggregateService reportAggregates,
+			DonationRollupService donationRollups, DonateCache donateCache, ObjectMapper objectMapper,
+			@Value("${petclinic.donates.write-behind.enabled:false}") boolean writeBehind,
+			@Value("${petclinic.donates.write-behind.queue-capacity:10000}") int queueCapacity,
+			@Value("${petclinic.donates.write-behind.flush-size:200}") int flushSize,
+			@Value("${petclinic.donates.write-behind.flush-interval:500ms}") Duration flushInterval,
+			@Value("${petclinic.donates.write-behind.offer-timeout:100ms}") Duration offerTimeout,
+			@Value("${petclinic.donates.write-behind.drain-timeout:30s}") Duration drainTimeout,
+			@Value("${petclinic.donates.write-behind.max-attempts:5}") int maxAttempts,
+			@Value("${petclinic.donates.write-behind.journal:${java.io.tmpdir}/petclinic/donates.journal}") Path journal,
+			@Value("${petclinic.donates.write-behind.fsync:true}") boolean fsync) {
+		this.donates = donates;
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.reportAggregates = reportAggregates;
+		this.donationRollups = donationRollups;
+		this.donateCache = donateCache;
+		this.writeBehind = writeBehind;
+		this.flushSize = flushSize;
+		this.flushInterval = flushInterval;
+		this.offerTimeout = offerTimeout;
+		this.drainTimeout = drainTimeout;
+		this.maxAttempts = Math.max(1, maxAttempts);
+		this.capacity = new Semaphore(queueCapacity);
+		this.journal = new DonateJournal(journal, objectMapper, fsync);
+	}
+
+	/**
+	 * Stores a validated donate, right away or through the write-behind queue.
+	 * @return {@code false} if the queue stayed full for the whole offer timeout and the
+	 * donate was not accepted
+	 */
+	public boolean write(Donate donate) {
+		if (!this.running) {
+			saveNow(donate);
+			return true;
+		}
+		try {
+			if (!this.capacity.tryAcquire(this.offerTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+				return false;
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		try {
+			synchronized (this.appendLock) {
+				this.queue.add(new Pending(this.journal.append(donate), donate));
+			}
+			return true;
+		}
+		catch (IOException ex) {
+			this.capacity.release();
+			throw new UncheckedIOException("Could not journal donate", ex);
+		}
+	}
+
+	/**
+	 * Number of donates accepted but not yet inserted.
+	 */
+	public int pending() {
+		return this.queue.size();
+	}
+
+	private void saveNow(Donate donate) {
+		this.transactionTemplate.executeWithoutResult(status -> {
+			this.donates.save(donate);
+			this.reportAggregates.donateAdded(donate);
+			this.donationRollups.donateAdded(donate);
+			this.donateCache.donateChanged(donate);
+		});
+	}
+
+	@Override
+	public void start() {
+		if (!this.writeBehind) {
+			return;
+		}
+		try {
+			List<DonateJournal.Entry> replay = this.journal.open();
+			if (!replay.isEmpty()) {
+				logger.info("Inserting {} journaled donates left over from the last run.", replay.size());
+				for (int from = 0; from < replay.size(); from += this.flushSize) {
+					List<Pending> batch = new ArrayList<>();
+					replay.subList(from, Math.min(replay.size(), from + this.flushSize))
+						.forEach(entry -> batch.add(new Pending(entry.sequence(), entry.toDonate())));
+					flush(batch);
+				}
+			}
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException("Could not open donate journal", ex);
+		}
+		this.running = true;
+		this.worker = new Thread(this::work, "donate-write-behind");
+		this.worker.start();
+	}
+
+	@Override
+	public void stop() {
+		if (this.worker == null) {
+			return;
+		}
+		// nove donaty uz jdou rovnou do db, worker dopise frontu
+		this.running = false;
+		try {
+			this.worker.join(this.drainTimeout.toMillis());
+			if (this.worker.isAlive()) {
+				logger.warn("{} donates not inserted before shutdown, they stay in the journal.", pending());
+				this.worker.interrupt();
+			}
+			this.journal.close();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		catch (IOException ex) {
+			logger.error("Could not close donate journal.", ex);
+		}
+		this.worker = null;
+	}
+
+	@Override
+	public boolean isRunning() {
+		return this.worker != null;
+	}
+
+	/*
+	 * zastavuje se az po webovem serveru, aby pozadavky dobihajici pri vypinani jeste
+	 * mohly zapisovat
+	 */
+	@Override
+	public int getPhase() {
+		return SmartLifecycle.DEFAULT_PHASE - 4096;
+	}
+
+	private void work() {
+		List<Pending> batch = new ArrayList<>(this.flushSize);
+		while (this.running || !this.queue.isEmpty()) {
+			try {
+				Pending first = this.queue.poll(this.flushInterval.toNanos(), TimeUnit.NANOSECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				long deadline = System.nanoTime() + this.flushInterval.toNanos();
+				while (batch.size() < this.flushSize) {
+					Pending next = this.queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+				flushWithRetry(batch);
+				this.capacity.release(batch.size());
+				batch.clear();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/*
+	 * davka se opakuje s rostouci pauzou; kdyz ani posledni pokus neprojde, vlozi se
+	 * donaty po jednom a ty, ktere db stale odmita, se presunou do souboru odmitnutych
+	 * donatu
+	 */
+	private void flushWithRetry(List<Pending> batch) throws InterruptedException {
+		long pause = Math.max(1, this.flushInterval.toMillis());
+		for (int attempt = 1;; attempt++) {
+			try {
+				flush(batch);
+				return;
+			}
+			catch (RuntimeException ex) {
+				if (attempt >= this.maxAttempts) {
+					logger.error("Could not insert {} donates after {} attempts, inserting them one by one.",
+							batch.size(), attempt, ex);
+					break;
+				}
+				logger.error("Could not insert {} donates, retrying.", batch.size(), ex);
+				Thread.sleep(pause);
+				pause *= 2;
+			}
+		}
+		for (Pending pending : batch) {
+			try {
+				flush(List.of(pending));
+			}
+			catch (RuntimeException ex) {
+				reject(pending, ex);
+			}
+		}
+	}
+
+	private void reject(Pending pending, RuntimeException cause) {
+		try {
+			this.journal.reject(pending.sequence(), pending.donate());
+			this.journal.commit(pending.sequence());
+			logger.error("Donate {} moved to {}.", pending.sequence(), this.journal.deadLetterPath(), cause);
+		}
+		catch (IOException ex) {
+			// dalsi davky ho v zurnalu prekryji, zustane tedy aspon v logu
+			logger.error("Could not move donate {} to the dead-letter file: {}", pending.sequence(),
+					DonateJournal.Entry.of(pending.sequence(), pending.donate()), ex);
+		}
+	}
+
+	void flush(List<Pending> batch) {
+		List<Donate> donates = batch.stream().map(Pending::donate).toList();
+		this.transactionTemplate.executeWithoutResult(status -> {
+			this.jdbcTemplate.batchUpdate(INSERT, donates, donates.size(), (statement, donate) -> {
+				statement.setString(1, donate.getDonatorName());
+				statement.setDate(2, Date.valueOf(donate.getDate()));
+				statement.setBigDecimal(3, donate.getAmount());
+				statement.setString(4, donate.getMessage());
+			});
+			this.reportAggregates.donatesAdded(donates);
+			this.donationRollups.donatesAdded(donates);
+		});
+		donates.forEach(this.donateCache::donateChanged);
+		try {
+			this.journal.commit(batch.get(batch.size() - 1).sequence());
+		}
+		catch (IOException ex) {
+			// donaty uz jsou v db, pri dalsim startu by se vlozily znovu
+			logger.error("Could not record committed donates in the journal.", ex);
+		}
+	}
+
+	record Pending(long sequence, Donate donate) {
+	}
+
+}
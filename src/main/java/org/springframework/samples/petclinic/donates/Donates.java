@@ -12,7 +12,7 @@ public class Donates {
 	private List<Donate> donates;
 
 	/*
-	Tato anotace rika, ze ma dany vystup zaradit do XML
+	 * Tato anotace rika, ze ma dany vystup zaradit do XML
 	 */
 	@XmlElement
 	public List<Donate> getDonateList() {
@@ -0,0 +1,41 @@
+package org.springframework.samples.petclinic.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a list paged by keyset: the sort key and id of a row. Encoded as an opaque,
+ * URL safe token for the "previous"/"next" links, so clients cannot depend on its
+ * contents.
+ */
+public record Cursor(String key, int id) {
+
+	/**
+	 * Encodes the cursor as a token for a link.
+	 */
+	public String encode() {
+		return Base64.getUrlEncoder()
+			.withoutPadding()
+			.encodeToString((this.id + ":" + this.key).getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Decodes a token created by {@link #encode()}.
+	 * @return the cursor, or {@code null} when the token is missing or malformed, which
+	 * callers treat as the first page
+	 */
+	public static Cursor decode(String token) {
+		if (token == null || token.isBlank()) {
+			return null;
+		}
+		try {
+			String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			int separator = value.indexOf(':');
+			return new Cursor(value.substring(separator + 1), Integer.parseInt(value.substring(0, separator)));
+		}
+		catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+			return null;
+		}
+	}
+
+}
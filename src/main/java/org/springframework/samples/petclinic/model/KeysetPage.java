@@ -0,0 +1,55 @@
+package org.springframework.samples.petclinic.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.data.domain.Slice;
+
+/**
+ * One page of a list paged by keyset, with the cursors of the neighbouring pages. Unlike
+ * offset pagination, fetching a page never skips over the rows before it and needs no
+ * count query, so deep pages are as cheap as the first one.
+ * <p>
+ * A page is fetched either forward (rows after a cursor, in display order) or backward
+ * (rows before a cursor, queried in reverse order and flipped here).
+ *
+ * @param content rows of the page in display order
+ * @param previousCursor token for the page before, {@code null} on the first page
+ * @param nextCursor token for the page after, {@code null} on the last page
+ */
+public record KeysetPage<T>(List<T> content, String previousCursor, String nextCursor) {
+
+	/**
+	 * Creates a page from rows queried after a cursor in display order.
+	 * @param afterCursor whether the rows were queried after a cursor, i.e. whether there
+	 * is a page before this one
+	 */
+	public static <T> KeysetPage<T> forward(Slice<T> slice, boolean afterCursor, Function<T, Cursor> cursorOf) {
+		List<T> content = slice.getContent();
+		if (content.isEmpty()) {
+			return new KeysetPage<>(content, null, null);
+		}
+		return new KeysetPage<>(content, afterCursor ? cursorOf.apply(content.get(0)).encode() : null,
+				slice.hasNext() ? cursorOf.apply(content.get(content.size() - 1)).encode() : null);
+	}
+
+	/**
+	 * Creates a page from rows queried before a cursor in reverse display order.
+	 */
+	public static <T> KeysetPage<T> backward(Slice<T> slice, Function<T, Cursor> cursorOf) {
+		List<T> content = new ArrayList<>(slice.getContent());
+		Collections.reverse(content);
+		if (content.isEmpty()) {
+			return new KeysetPage<>(content, null, null);
+		}
+		return new KeysetPage<>(content, slice.hasNext() ? cursorOf.apply(content.get(0)).encode() : null,
+				cursorOf.apply(content.get(content.size() - 1)).encode());
+	}
+
+	public boolean isEmpty() {
+		return this.content.isEmpty();
+	}
+
+}
@@ -26,12 +26,15 @@ import jakarta.validation.constraints.NotBlank;
  */
 @MappedSuperclass
 public class Person extends BaseEntity {
+
 	/*
-	anotace Column oznacuje, ze String firstName se bude mapovat do DB na sloupec first_name
-	jinymi slovy hodnoty promenne se budou ukladat do tohoto sloupce v databazi
+	 * anotace Column oznacuje, ze String firstName se bude mapovat do DB na sloupec
+	 * first_name jinymi slovy hodnoty promenne se budou ukladat do tohoto sloupce v
+	 * databazi
 	 */
 	@Column(name = "first_name") //
-	@NotBlank // anotace NotBlank slouzi k tomu, ze pole nesmi byt prazdne - aplikace by prazdny vstup nepovolila
+	@NotBlank // anotace NotBlank slouzi k tomu, ze pole nesmi byt prazdne - aplikace by
+				// prazdny vstup nepovolila
 	private String firstName;
 
 	@Column(name = "last_name")
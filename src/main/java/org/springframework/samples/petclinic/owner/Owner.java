@@ -18,15 +18,21 @@ package org.springframework.samples.petclinic.owner;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.core.style.ToStringCreator;
 import org.springframework.samples.petclinic.model.Person;
 import org.springframework.util.Assert;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
@@ -44,6 +50,15 @@ import jakarta.validation.constraints.NotBlank;
  */
 @Entity
 @Table(name = "owners")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "owners")
+/*
+ * plan nacitani pro detail ownera a formulare zvirat a navstev: zvirata a jejich typy
+ * vychozi je lazy, takze formular ownera nenacita zvirata ani navstevy; navstevy se ctou
+ * po strankach pres VisitRepository
+ */
+@NamedEntityGraph(name = "Owner.pets", attributeNodes = @NamedAttributeNode(value = "pets", subgraph = "pet"),
+		subgraphs = @NamedSubgraph(name = "pet", attributeNodes = @NamedAttributeNode("type")))
 public class Owner extends Person {
 
 	@Column(name = "address")
@@ -56,13 +71,17 @@ public class Owner extends Person {
 
 	@Column(name = "telephone")
 	@NotBlank
-	@Digits(fraction = 0, integer = 10) // zajistuje, ze telephone musi byt celociselne a max 10 cislic
+	@Digits(fraction = 0, integer = 10) // zajistuje, ze telephone musi byt celociselne a
+										// max 10 cislic
 	private String telephone;
 
 	/*
-	seznam List zvirat, ktere ma owner
+	 * seznam List zvirat, ktere ma owner
 	 */
-	@OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER) // owner muze mit vice zvirat a ty jsou ulozena v db
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "owner-pets")
+	@OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY) // owner muze mit vice
+																	// zvirat a ty jsou
+																	// ulozena v db
 	@JoinColumn(name = "owner_id") // urcuje sloupec v db, ktery spojuje zvirata s ownerem
 	@OrderBy("name") // zvirata jsou serazena podle jmena pri nacitani z db
 	private List<Pet> pets = new ArrayList<>();
@@ -96,8 +115,8 @@ public class Owner extends Person {
 	}
 
 	/*
-	prida zvire do seznamu zvirat vlastnene ownerem
-	pokud isNew vrati true (= zvire je nove a nema zatim id), bude pridano do seznamu
+	 * prida zvire do seznamu zvirat vlastnene ownerem pokud isNew vrati true (= zvire je
+	 * nove a nema zatim id), bude pridano do seznamu
 	 */
 	public void addPet(Pet pet) {
 		if (pet.isNew()) {
@@ -111,7 +130,7 @@ public class Owner extends Person {
 	 * @return a pet if pet name is already in use
 	 */
 	/*
-	vrati zvire na zaklade jmena
+	 * vrati zvire na zaklade jmena
 	 */
 	public Pet getPet(String name) {
 		return getPet(name, false);
@@ -123,7 +142,7 @@ public class Owner extends Person {
 	 * @return a pet if pet id is already in use
 	 */
 	/*
-	vrati zvire na zaklade id, nebo null, pokud zvire pod timto id nenajde
+	 * vrati zvire na zaklade id, nebo null, pokud zvire pod timto id nenajde
 	 */
 	public Pet getPet(Integer id) {
 		for (Pet pet : getPets()) {
@@ -143,7 +162,8 @@ public class Owner extends Person {
 	 * @return a pet if pet name is already in use
 	 */
 	/*
-	vrati zvire na zaklade jmena, nebo null, pokud vlastnik zadne zvire s timto jmenem nema
+	 * vrati zvire na zaklade jmena, nebo null, pokud vlastnik zadne zvire s timto jmenem
+	 * nema
 	 */
 	public Pet getPet(String name, boolean ignoreNew) {
 		name = name.toLowerCase();
@@ -159,8 +179,8 @@ public class Owner extends Person {
 	}
 
 	/*
-	Textova reprezentace bude vypadat nejak takto:
-	Owner[id=1, new=false, lastName=Doe, firstName=John, address=123 Main Street, city=Springfield, telephone=555-1234]
+	 * Textova reprezentace bude vypadat nejak takto: Owner[id=1, new=false, lastName=Doe,
+	 * firstName=John, address=123 Main Street, city=Springfield, telephone=555-1234]
 	 */
 	@Override
 	public String toString() {
@@ -180,7 +200,8 @@ public class Owner extends Person {
 	 * @param visit the visit to add, must not be {@literal null}.
 	 */
 	/*
-	prida navstevu (Visit) k urcitemu zvireti; nejprve ziska id zvirete a prida k nemu onu navstevu
+	 * prida navstevu (Visit) k urcitemu zvireti; nejprve ziska id zvirete a prida k nemu
+	 * onu navstevu
 	 */
 	public void addVisit(Integer petId, Visit visit) {
 
@@ -196,5 +217,4 @@ public class Owner extends Person {
 		pet.addVisit(visit);
 	}
 
-
 }
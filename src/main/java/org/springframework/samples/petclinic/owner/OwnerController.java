@@ -15,13 +15,23 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.samples.petclinic.model.Cursor;
+import org.springframework.samples.petclinic.model.KeysetPage;
+import org.springframework.samples.petclinic.report.ReportAggregateService;
 import org.springframework.stereotype.Controller;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.WebDataBinder;
@@ -45,26 +55,50 @@ import jakarta.validation.Valid;
 class OwnerController {
 
 	/*
-	html sablona ulozena do Stringu
+	 * html sablona ulozena do Stringu
 	 */
 	private static final String VIEWS_OWNER_CREATE_OR_UPDATE_FORM = "owners/createOrUpdateOwnerForm";
 
 	/*
-	vytvoření instance třídy OwnerRepository
+	 * pocet owneru na jedne strance seznamu
+	 */
+	private static final int PAGE_SIZE = 5;
+
+	/*
+	 * vytvoření instance třídy OwnerRepository
 	 */
 	private final OwnerRepository owners;
 
+	private final ReportAggregateService reportAggregates;
+
 	/*
+	 * index prijmeni v pameti; dokud neni nacteny, hleda se dotazy LIKE v db
+	 */
+	private final OwnerNameIndex ownerNameIndex;
+
+	private final VisitRepository visits;
 
+	/*
+	 * kolik poslednich navstev kazdeho zvirete ukazuje detail ownera, starsi se dotahuji
+	 * po strankach
 	 */
-	public OwnerController(OwnerRepository clinicService) {
+	private final int latestVisits;
+
+	public OwnerController(OwnerRepository clinicService, ReportAggregateService reportAggregates,
+			OwnerNameIndex ownerNameIndex, VisitRepository visits,
+			@Value("${petclinic.owners.latest-visits:5}") int latestVisits) {
 		this.owners = clinicService;
+		this.reportAggregates = reportAggregates;
+		this.ownerNameIndex = ownerNameIndex;
+		this.visits = visits;
+		this.latestVisits = latestVisits;
 	}
 
 	/*
-	zakazuje data binderu zpracovavat pole s nazvem id = neprejeme si moznost upravovat id ownera
-	dataBinder je soucasti Springu - umoznuje vazat data mezi HTTP pozadavkem a objekty javy
-	tady konkretne se nastavuje, ze pole id nema byt povoleno pro dataBinding, tedy ze data pro toto pole nebudou zpracovana
+	 * zakazuje data binderu zpracovavat pole s nazvem id = neprejeme si moznost upravovat
+	 * id ownera dataBinder je soucasti Springu - umoznuje vazat data mezi HTTP pozadavkem
+	 * a objekty javy tady konkretne se nastavuje, ze pole id nema byt povoleno pro
+	 * dataBinding, tedy ze data pro toto pole nebudou zpracovana
 	 */
 	@InitBinder
 	public void setAllowedFields(WebDataBinder dataBinder) {
@@ -72,9 +106,9 @@ class OwnerController {
 	}
 
 	/*
-	metoda poskytuje modelovy atribut s nazvem owner - ten bude dostupny v html sablone
-	metoda findOwner vraci instanci tridy Owner na zaklade ownerID, ktere je ziskano z URL
-	pokud id neexistuje, vytvori se nova instance Ownera
+	 * metoda poskytuje modelovy atribut s nazvem owner - ten bude dostupny v html sablone
+	 * metoda findOwner vraci instanci tridy Owner na zaklade ownerID, ktere je ziskano z
+	 * URL pokud id neexistuje, vytvori se nova instance Ownera
 	 */
 	@ModelAttribute("owner")
 	public Owner findOwner(@PathVariable(name = "ownerId", required = false) Integer ownerId) {
@@ -82,9 +116,9 @@ class OwnerController {
 	}
 
 	/*
-	zpracovava get pozadavek na /owners/new
-	vytvari novou instanci Ownera a prida ji do modelu, aby byla k dispozici v html sablone
-	vraci sablonu pro vytvareni ci upravu ownera
+	 * zpracovava get pozadavek na /owners/new vytvari novou instanci Ownera a prida ji do
+	 * modelu, aby byla k dispozici v html sablone vraci sablonu pro vytvareni ci upravu
+	 * ownera
 	 */
 	@GetMapping("/owners/new")
 	public String initCreationForm(Map<String, Object> model) {
@@ -94,24 +128,27 @@ class OwnerController {
 	}
 
 	/*
-	zpracovava post pozadavek na url /owners/new
-	metoda bere objekt Owner a zpracovava ho
-	pokud jsou v objektu chyby, validace selze a vrati se zpet stranka pro vytvoreni ci upravu s chybovymi zpravami
-	pokud validace probehne v poradku, owner je ulozen do db a uzivatel je presmerovan na detail noveho ownera
+	 * zpracovava post pozadavek na url /owners/new metoda bere objekt Owner a zpracovava
+	 * ho pokud jsou v objektu chyby, validace selze a vrati se zpet stranka pro vytvoreni
+	 * ci upravu s chybovymi zpravami pokud validace probehne v poradku, owner je ulozen
+	 * do db a uzivatel je presmerovan na detail noveho ownera
 	 */
 	@PostMapping("/owners/new")
+	@Transactional
 	public String processCreationForm(@Valid Owner owner, BindingResult result) {
 		if (result.hasErrors()) {
 			return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
 		}
 
 		this.owners.save(owner);
+		this.reportAggregates.ownerAdded();
+		this.ownerNameIndex.ownerSaved(owner);
 		return "redirect:/owners/" + owner.getId();
 	}
 
 	/*
-	zpracovava get pozadavek na url /owners/find
-	zobrazi stranku s formularem pro vyhledani owneru
+	 * zpracovava get pozadavek na url /owners/find zobrazi stranku s formularem pro
+	 * vyhledani owneru
 	 */
 	@GetMapping("/owners/find")
 	public String initFindForm() {
@@ -119,26 +156,34 @@ class OwnerController {
 	}
 
 	/*
-	zpracovava get pozadavek na url /owners
-	slouzi k vyhledani owneru na zaklade jmena a strankovani vysledku
-	vysledky jsou predany modelu k zobrazeni
+	 * zpracovava get pozadavek na url /owners slouzi k vyhledani owneru na zaklade jmena
+	 * a strankovani vysledku vysledky jsou predany modelu k zobrazeni s parametrem page
+	 * se strankuje postaru pres offset, jinak pres kurzory after/before (keyset)
 	 */
 	@GetMapping("/owners")
 	/*
-	int page - aktualni stranka
-	Owner owner - objekt tridy owner, ktery obsahuje kriteria pro vyhledavani, zde je to lastName
-	BindingResult result - slouzi k zachyceni chyb pri validaci vstupnich dat
-	Model model - prostredek ke komunikaci s FE
+	 * Integer page - aktualni stranka pri strankovani pres offset String after, before -
+	 * kurzor posledniho/prvniho ownera predchozi stranky pri strankovani pres keyset
+	 * boolean count - zda spocitat celkovy pocet nalezenych owneru (dotaz navic) Owner
+	 * owner - objekt tridy owner, ktery obsahuje kriteria pro vyhledavani, zde je to
+	 * lastName BindingResult result - slouzi k zachyceni chyb pri validaci vstupnich dat
+	 * Model model - prostredek ke komunikaci s FE
 	 */
-	public String processFindForm(@RequestParam(defaultValue = "1") int page, Owner owner, BindingResult result,
-			Model model) {
+	public String processFindForm(@RequestParam(required = false) Integer page,
+			@RequestParam(required = false) String after, @RequestParam(required = false) String before,
+			@RequestParam(defaultValue = "false") boolean count, Owner owner, BindingResult result, Model model) {
 		// allow parameterless GET request for /owners to return all records
 		if (owner.getLastName() == null) {
-			owner.setLastName(""); // pokud je lastName null, nastavi se prazdny String, tedy rozsiri se vyhledavani
+			owner.setLastName(""); // pokud je lastName null, nastavi se prazdny String,
+									// tedy rozsiri se vyhledavani
+		}
+
+		if (page == null) {
+			return processKeysetFindForm(after, before, count, owner, result, model);
 		}
 
 		// hleda ownery podle lastName
-		Page<Owner> ownersResults = findPaginatedForOwnersLastName(page, owner.getLastName());
+		Page<OwnerSummary> ownersResults = findPaginatedForOwnersLastName(page, owner.getLastName());
 		if (ownersResults.isEmpty()) {
 			// pokud nebyly vyhledany zadne vysledky
 			result.rejectValue("lastName", "notFound", "not found");
@@ -147,8 +192,7 @@ class OwnerController {
 
 		if (ownersResults.getTotalElements() == 1) {
 			// pokud byl nalezen 1 owner
-			owner = ownersResults.iterator().next();
-			return "redirect:/owners/" + owner.getId();
+			return "redirect:/owners/" + ownersResults.iterator().next().getId();
 		}
 
 		// pokud bylo nalezeno vice owneru
@@ -156,10 +200,91 @@ class OwnerController {
 	}
 
 	/*
-	predava do modelu informace o strankovani, jako je aktualni stranka, pocet stranek, pocet polozek a seznam owneru
+	 * stejne jako processFindForm, ale bez offsetu a bez count dotazu (pokud neni
+	 * vyzadan)
+	 */
+	private String processKeysetFindForm(String after, String before, boolean count, Owner owner, BindingResult result,
+			Model model) {
+		String lastName = owner.getLastName();
+		KeysetPage<OwnerSummary> ownersResults = findSliceForOwnersLastName(lastName, Cursor.decode(after),
+				Cursor.decode(before));
+		if (ownersResults.isEmpty()) {
+			result.rejectValue("lastName", "notFound", "not found");
+			return "owners/findOwners";
+		}
+
+		if (ownersResults.content().size() == 1 && ownersResults.previousCursor() == null
+				&& ownersResults.nextCursor() == null) {
+			// jediny nalezeny owner
+			return "redirect:/owners/" + ownersResults.content().get(0).getId();
+		}
+
+		model.addAttribute("lastName", lastName);
+		model.addAttribute("previousCursor", ownersResults.previousCursor());
+		model.addAttribute("nextCursor", ownersResults.nextCursor());
+		if (count) {
+			model.addAttribute("totalItems", this.ownerNameIndex.isLoaded() ? this.ownerNameIndex.count(lastName)
+					: this.owners.countByLastName(lastName));
+		}
+		model.addAttribute("listOwners", ownersResults.content());
+		return "owners/ownersList";
+	}
+
+	/*
+	 * nacte stranku owneru za kurzorem after, pred kurzorem before, nebo prvni stranku
+	 * pokud pred kurzorem before uz nic neni (napr. owneri byli smazani), vrati prvni
+	 * stranku
+	 */
+	private KeysetPage<OwnerSummary> findSliceForOwnersLastName(String lastName, Cursor after, Cursor before) {
+		if (before != null) {
+			KeysetPage<OwnerSummary> previous = KeysetPage.backward(findOwnersBefore(lastName, before),
+					OwnerController::cursorOf);
+			if (!previous.isEmpty()) {
+				return previous;
+			}
+		}
+		else if (after != null) {
+			return KeysetPage.forward(findOwnersAfter(lastName, after), true, OwnerController::cursorOf);
+		}
+		return KeysetPage.forward(findOwnersAfter(lastName, new Cursor("", 0)), false, OwnerController::cursorOf);
+	}
+
+	private Slice<OwnerSummary> findOwnersAfter(String lastName, Cursor after) {
+		Slice<Integer> ids = this.ownerNameIndex.isLoaded()
+				? this.ownerNameIndex.findAfter(lastName, after.key(), after.id(), PAGE_SIZE)
+				: owners.findIdsByLastNameAfter(lastName, after.key(), after.id(), PageRequest.of(0, PAGE_SIZE));
+		return new SliceImpl<>(summariesOf(ids.getContent()), ids.getPageable(), ids.hasNext());
+	}
+
+	private Slice<OwnerSummary> findOwnersBefore(String lastName, Cursor before) {
+		Slice<Integer> ids = this.ownerNameIndex.isLoaded()
+				? this.ownerNameIndex.findBefore(lastName, before.key(), before.id(), PAGE_SIZE)
+				: owners.findIdsByLastNameBefore(lastName, before.key(), before.id(), PageRequest.of(0, PAGE_SIZE));
+		return new SliceImpl<>(summariesOf(ids.getContent()), ids.getPageable(), ids.hasNext());
+	}
+
+	/*
+	 * seznam se nacita ve dvou krocich: nejdriv id owneru na strance (z indexu nebo z
+	 * db), pak jednim dotazem jejich udaje a jmena zvirat, bez nacitani entit Owner, Pet
+	 * a Visit
+	 */
+	private List<OwnerSummary> summariesOf(List<Integer> ids) {
+		if (ids.isEmpty()) {
+			return List.of();
+		}
+		return OwnerSummary.of(this.owners.findListRows(ids), ids);
+	}
+
+	private static Cursor cursorOf(OwnerSummary owner) {
+		return new Cursor(owner.getLastName(), owner.getId());
+	}
+
+	/*
+	 * predava do modelu informace o strankovani, jako je aktualni stranka, pocet stranek,
+	 * pocet polozek a seznam owneru
 	 */
-	private String addPaginationModel(int page, Model model, Page<Owner> paginated) {
-		List<Owner> listOwners = paginated.getContent();
+	private String addPaginationModel(int page, Model model, Page<OwnerSummary> paginated) {
+		List<OwnerSummary> listOwners = paginated.getContent();
 		model.addAttribute("currentPage", page);
 		model.addAttribute("totalPages", paginated.getTotalPages());
 		model.addAttribute("totalItems", paginated.getTotalElements());
@@ -168,34 +293,35 @@ class OwnerController {
 	}
 
 	/*
-	provadi strankovani vlastniku na zaklade prijmeni
-	vraci stranku vysledku, kazda stranka obsahuje az 5 zaznamu
-	Pageable - rozhrani Spring data, ktere umoznuje konfigurovat parametry pro strankovani
-	PageRequest.of - vytvari objekt typu Pageable s informacemi o strankovani, kde page je cislo aktualni stranky (index od 0) a pageSize urcuje pocet polozek na strance
-    owners.findByLastName - lastname je kriterium tedy prijmeni, pageable jsou parametry strankovani; vysledkem je objekt Page<Owner> tedy seznam owneru na aktualni strance
+	 * provadi strankovani vlastniku na zaklade prijmeni vraci stranku vysledku, kazda
+	 * stranka obsahuje az 5 zaznamu Pageable - rozhrani Spring data, ktere umoznuje
+	 * konfigurovat parametry pro strankovani PageRequest.of - vytvari objekt typu
+	 * Pageable s informacemi o strankovani, kde page je cislo aktualni stranky (index od
+	 * 0) a pageSize urcuje pocet polozek na strance owners.findIdsByLastName - lastname
+	 * je kriterium tedy prijmeni, pageable jsou parametry strankovani; vysledkem jsou id
+	 * owneru na aktualni strance index v pameti da pocet i id bez dotazu, db se pak pta
+	 * jen na ownery dane stranky
 	 */
-	private Page<Owner> findPaginatedForOwnersLastName(int page, String lastname) {
-		int pageSize = 5;
-		Pageable pageable = PageRequest.of(page - 1, pageSize);
-		return owners.findByLastName(lastname, pageable);
+	private Page<OwnerSummary> findPaginatedForOwnersLastName(int page, String lastname) {
+		Pageable pageable = PageRequest.of(page - 1, PAGE_SIZE);
+		Page<Integer> ids = this.ownerNameIndex.isLoaded() ? this.ownerNameIndex.findPage(lastname, pageable)
+				: owners.findIdsByLastName(lastname, pageable);
+		return new PageImpl<>(summariesOf(ids.getContent()), pageable, ids.getTotalElements());
 	}
 
 	/*
-	zpracuje get metodu pro url /owners/{ownerId}/edit
-	nacte ownera na zaklade id a prida ho do modelu pro upravu
-	vrati stranku pro upravu ownera
+	 * zpracuje get metodu pro url /owners/{ownerId}/edit ownera uz do modelu pridala
+	 * metoda findOwner (bez zvirat, formular je nepotrebuje) vrati stranku pro upravu
+	 * ownera
 	 */
 	@GetMapping("/owners/{ownerId}/edit")
-	public String initUpdateOwnerForm(@PathVariable("ownerId") int ownerId, Model model) {
-		Owner owner = this.owners.findById(ownerId);
-		model.addAttribute(owner);
+	public String initUpdateOwnerForm(@PathVariable("ownerId") int ownerId) {
 		return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
 	}
 
 	/*
-	zpracovava post metodu
-	validuje vlastnika a pokud v objeku nejsou chyby, ulozi zmeny do databaze
-	nasledne presmeruje na detail ownera
+	 * zpracovava post metodu validuje vlastnika a pokud v objeku nejsou chyby, ulozi
+	 * zmeny do databaze nasledne presmeruje na detail ownera
 	 */
 	@PostMapping("/owners/{ownerId}/edit")
 	public String processUpdateOwnerForm(@Valid Owner owner, BindingResult result,
@@ -206,6 +332,7 @@ class OwnerController {
 
 		owner.setId(ownerId);
 		this.owners.save(owner);
+		this.ownerNameIndex.ownerSaved(owner);
 		return "redirect:/owners/{ownerId}";
 	}
 
@@ -215,16 +342,40 @@ class OwnerController {
 	 * @return a ModelMap with the model attributes for the view
 	 */
 	/*
-	zpracovava get pozadavek
-	vytvori model a zobrazi detail ownera na strance
+	 * zpracovava get pozadavek vytvori model a zobrazi detail ownera na strance
 	 */
 	@GetMapping("/owners/{ownerId}")
 	public ModelAndView showOwner(@PathVariable("ownerId") int ownerId) {
-		ModelAndView mav = new ModelAndView("owners/ownerDetails"); // urceni html stranky k zobrazeni
-		Owner owner = this.owners.findById(ownerId); // ziska vlastnika na zaklade id
-		mav.addObject(owner); // prida vlastnika do modelu, takze objekt bude dostupny v html strance k zobrazeni detailu
-		return mav; // vrati instanci ModelAndView, takze bude zobrazena stranka s detaily vlastnika
+		ModelAndView mav = new ModelAndView("owners/ownerDetails"); // urceni html stranky
+																	// k zobrazeni
+		Owner owner = this.owners.findWithPetsById(ownerId); // ziska vlastnika i se
+																// zviraty
+		mav.addObject(owner); // prida vlastnika do modelu, takze objekt bude dostupny v
+								// html strance k zobrazeni detailu
+		mav.addObject("visits", latestVisitsOf(owner)); // posledni navstevy vsech zvirat
+														// jednim dotazem
+		return mav; // vrati instanci ModelAndView, takze bude zobrazena stranka s detaily
+					// vlastnika
 	}
 
+	/*
+	 * posledni navstevy kazdeho zvirete podle id zvirete; dotazuje se o jednu navic, aby
+	 * bylo poznat, jestli jsou starsi
+	 */
+	private Map<Integer, VisitHistoryPage> latestVisitsOf(Owner owner) {
+		List<Integer> petIds = owner.getPets().stream().map(Pet::getId).toList();
+		if (petIds.isEmpty()) {
+			return Map.of();
+		}
+		Map<Integer, List<PetVisit>> newest = new HashMap<>();
+		for (PetVisit visit : this.visits.findLatest(petIds, this.latestVisits + 1)) {
+			newest.computeIfAbsent(visit.petId(), id -> new ArrayList<>()).add(visit);
+		}
+		Map<Integer, VisitHistoryPage> pages = new HashMap<>();
+		for (Integer petId : petIds) {
+			pages.put(petId, VisitHistoryPage.first(newest.getOrDefault(petId, List.of()), this.latestVisits));
+		}
+		return pages;
+	}
 
 }
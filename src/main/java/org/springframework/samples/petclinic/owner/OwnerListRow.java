@@ -0,0 +1,11 @@
+package org.springframework.samples.petclinic.owner;
+
+/**
+ * One row of the owner list query: an owner with one of its pets, or with a {@code null}
+ * pet name if it has none. {@link OwnerSummary#of} folds the rows of one page into
+ * summaries.
+ */
+public record OwnerListRow(Integer id, String firstName, String lastName, String address, String city, String telephone,
+		String petName) {
+
+}
@@ -0,0 +1,43 @@
+package org.springframework.samples.petclinic.owner;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+/**
+ * Loads the {@link Owner} with its pets at most once per web request.
+ * <p>
+ * The pet and visit forms need the owner in several {@code @ModelAttribute} methods and
+ * in the handler itself. Each of those used to run its own query for the same owner; they
+ * now share the instance this loader resolved first, so a request runs a single owner
+ * query however many methods ask for it.
+ */
+@Component
+@RequestScope
+class OwnerLoader {
+
+	private final OwnerRepository owners;
+
+	private final Map<Integer, Owner> loaded = new HashMap<>();
+
+	OwnerLoader(OwnerRepository owners) {
+		this.owners = owners;
+	}
+
+	/**
+	 * Returns the owner with its pets and their types.
+	 * @throws IllegalArgumentException if there is no owner with that id
+	 */
+	Owner load(int ownerId) {
+		return this.loaded.computeIfAbsent(ownerId, id -> {
+			Owner owner = this.owners.findWithPetsById(id);
+			if (owner == null) {
+				throw new IllegalArgumentException("Owner ID not found: " + id);
+			}
+			return owner;
+		});
+	}
+
+}
@@ -0,0 +1,8 @@
+package org.springframework.samples.petclinic.owner;
+
+/**
+ * Id and last name of an owner, the only columns the {@link OwnerNameIndex} keeps.
+ */
+public record OwnerName(Integer id, String lastName) {
+
+}
@@ -0,0 +1,300 @@
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory index of owner last names for the owner search, so that prefix lookups and
+ * counts do not run {@code LIKE} queries and the database is only asked for the owners on
+ * the requested page.
+ * <p>
+ * The index is a sorted array of {@code (key, id)} pairs, where the key is the last name
+ * folded to lower case: all owners whose last name starts with a prefix form one
+ * contiguous run, found with two binary searches, so a count or a page costs
+ * {@code O(log n)} however many owners match. Readers use an immutable snapshot without
+ * locking; a write copies the arrays once, inserting the owner at its binary search
+ * position, which is cheap for the few owner edits there are compared to searches.
+ * <p>
+ * The index is loaded once the application is ready and kept current by the owner form
+ * handlers through {@link #ownerSaved(Owner)}. Until it is loaded {@link #isLoaded()}
+ * returns {@code false} and callers fall back to the repository queries. Matching is
+ * case-insensitive, like {@code LIKE} on the case-insensitive {@code last_name} column of
+ * MySQL, H2 and HSQLDB; the queries compare the column as it is, so they can use its
+ * index.
+ */
+@Component
+public class OwnerNameIndex {
+
+	private static final Logger logger = LoggerFactory.getLogger(OwnerNameIndex.class);
+
+	private final OwnerRepository owners;
+
+	private final boolean enabled;
+
+	private volatile Snapshot snapshot;
+
+	/*
+	 * zapisy, ktere prisly behem nacitani indexu; po nacteni se prehraji
+	 */
+	private final List<OwnerName> pending = new ArrayList<>();
+
+	public OwnerNameIndex(OwnerRepository owners,
+			@Value("${petclinic.owners.name-index.enabled:true}") boolean enabled) {
+		this.owners = owners;
+		this.enabled = enabled;
+	}
+
+	public boolean isLoaded() {
+		return this.snapshot != null;
+	}
+
+	/**
+	 * Loads all owner names from the database, replacing the current index.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		if (!this.enabled) {
+			return;
+		}
+		List<OwnerName> names = this.owners.findOwnerNames();
+		synchronized (this) {
+			Snapshot loaded = Snapshot.of(names);
+			for (OwnerName name : this.pending) {
+				loaded = loaded.with(name);
+			}
+			this.pending.clear();
+			this.snapshot = loaded;
+		}
+		logger.info("Owner name index loaded with {} owners.", names.size());
+	}
+
+	/**
+	 * Number of owners whose last name starts with {@code prefix}.
+	 */
+	public int count(String prefix) {
+		Snapshot current = loaded();
+		String key = fold(prefix);
+		return current.end(key) - current.start(key);
+	}
+
+	/**
+	 * Ids of one offset page of the owners whose last name starts with {@code prefix},
+	 * ordered by {@code (lastName, id)}, with the total number of matches.
+	 */
+	public Page<Integer> findPage(String prefix, Pageable pageable) {
+		Snapshot current = loaded();
+		String key = fold(prefix);
+		int start = current.start(key);
+		int end = current.end(key);
+		int from = (int) Math.min(end, start + pageable.getOffset());
+		int to = Math.min(end, from + pageable.getPageSize());
+		return new PageImpl<>(current.ids(from, to), pageable, end - start);
+	}
+
+	/**
+	 * Ids of the matching owners strictly after {@code (afterName, afterId)}, in order.
+	 */
+	public Slice<Integer> findAfter(String prefix, String afterName, int afterId, int size) {
+		Snapshot current = loaded();
+		String key = fold(prefix);
+		int from = Math.max(current.start(key), current.indexAfter(fold(afterName), afterId));
+		int end = current.end(key);
+		int to = Math.min(end, from + size);
+		return new SliceImpl<>(current.ids(from, to), PageRequest.of(0, size), to < end);
+	}
+
+	/**
+	 * Ids of the matching owners strictly before {@code (beforeName, beforeId)}, nearest
+	 * first, like {@link OwnerRepository#findIdsByLastNameBefore}.
+	 */
+	public Slice<Integer> findBefore(String prefix, String beforeName, int beforeId, int size) {
+		Snapshot current = loaded();
+		String key = fold(prefix);
+		int start = current.start(key);
+		int to = Math.min(current.end(key), current.indexBefore(fold(beforeName), beforeId));
+		int from = Math.max(start, to - size);
+		List<Integer> ids = new ArrayList<>(current.ids(from, Math.max(from, to)));
+		Collections.reverse(ids);
+		return new SliceImpl<>(ids, PageRequest.of(0, size), from > start);
+	}
+
+	/**
+	 * Records a new or renamed owner, after the surrounding transaction commits if there
+	 * is one, so a rolled back save never shows up in search results.
+	 */
+	public void ownerSaved(Owner owner) {
+		OwnerName name = new OwnerName(owner.getId(), owner.getLastName());
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					apply(name);
+				}
+			});
+		}
+		else {
+			apply(name);
+		}
+	}
+
+	private synchronized void apply(OwnerName name) {
+		if (this.snapshot == null) {
+			if (this.enabled) {
+				this.pending.add(name);
+			}
+			return;
+		}
+		this.snapshot = this.snapshot.with(name);
+	}
+
+	/*
+	 * klic indexu: prijmeni malymi pismeny, nezavisle na locale serveru
+	 */
+	static String fold(String lastName) {
+		return lastName.toLowerCase(Locale.ROOT);
+	}
+
+	private Snapshot loaded() {
+		Snapshot current = this.snapshot;
+		if (current == null) {
+			throw new IllegalStateException("Owner name index is not loaded yet");
+		}
+		return current;
+	}
+
+	/**
+	 * Immutable sorted index: {@code keys[i]} is the folded last name of owner
+	 * {@code ids[i]}.
+	 */
+	private record Snapshot(String[] keys, int[] ids) {
+
+		private static final Comparator<OwnerName> ORDER = Comparator.comparing(OwnerName::lastName)
+			.thenComparing(OwnerName::id);
+
+		static Snapshot of(List<OwnerName> owners) {
+			List<OwnerName> sorted = owners.stream()
+				.filter(owner -> owner.lastName() != null)
+				.map(owner -> new OwnerName(owner.id(), fold(owner.lastName())))
+				.sorted(ORDER)
+				.toList();
+			String[] keys = new String[sorted.size()];
+			int[] ids = new int[sorted.size()];
+			for (int i = 0; i < keys.length; i++) {
+				keys[i] = sorted.get(i).lastName();
+				ids[i] = sorted.get(i).id();
+			}
+			return new Snapshot(keys, ids);
+		}
+
+		/*
+		 * novy snapshot bez stare polozky ownera a s novou polozkou na miste nalezenem
+		 * binarnim vyhledavanim
+		 */
+		Snapshot with(OwnerName owner) {
+			int old = -1;
+			for (int i = 0; i < this.ids.length && old < 0; i++) {
+				if (this.ids[i] == owner.id()) {
+					old = i;
+				}
+			}
+			String key = (owner.lastName() != null) ? fold(owner.lastName()) : null;
+			int length = this.ids.length - (old >= 0 ? 1 : 0) + (key != null ? 1 : 0);
+			// pozice v puvodnich polich, stara polozka ownera se pri kopirovani vynecha;
+			// -1 = nevkladat
+			int at = (key != null) ? search(key, owner.id(), true) : -1;
+			String[] keys = new String[length];
+			int[] ids = new int[length];
+			int target = 0;
+			for (int i = 0; i <= this.ids.length; i++) {
+				if (i == at) {
+					keys[target] = key;
+					ids[target++] = owner.id();
+				}
+				if (i < this.ids.length && i != old) {
+					keys[target] = this.keys[i];
+					ids[target++] = this.ids[i];
+				}
+			}
+			return new Snapshot(keys, ids);
+		}
+
+		/*
+		 * prvni index s (key, id) >= (key, id), pri inclusive == false prvni s (key, id)
+		 * > (key, id)
+		 */
+		int search(String key, int id, boolean inclusive) {
+			int low = 0;
+			int high = this.keys.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				int cmp = this.keys[mid].compareTo(key);
+				if (cmp == 0) {
+					cmp = Integer.compare(this.ids[mid], id);
+				}
+				if (cmp < 0 || (cmp == 0 && !inclusive)) {
+					low = mid + 1;
+				}
+				else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		int start(String prefix) {
+			return search(prefix, Integer.MIN_VALUE, true);
+		}
+
+		/*
+		 * za start jsou vsechny klice >= prefix, ty s prefixem tvori souvisly usek na
+		 * jeho zacatku
+		 */
+		int end(String prefix) {
+			int low = start(prefix);
+			int high = this.keys.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (this.keys[mid].startsWith(prefix)) {
+					low = mid + 1;
+				}
+				else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		int indexAfter(String key, int id) {
+			return search(key, id, false);
+		}
+
+		int indexBefore(String key, int id) {
+			return search(key, id, true);
+		}
+
+		List<Integer> ids(int from, int to) {
+			return Arrays.stream(this.ids, from, to).boxed().toList();
+		}
+
+	}
+
+}
@@ -15,16 +15,24 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.query.Param;
-import org.springframework.samples.petclinic.report.Report;
 import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.QueryHint;
+
 /**
  * Repository class for <code>Owner</code> domain objects All method names are compliant
  * with Spring Data naming conventions so this interface can easily be extended for Spring
@@ -46,25 +54,73 @@ public interface OwnerRepository extends Repository<Owner, Integer> {
 	 * @return a Collection of {@link PetType}s.
 	 */
 	/*
-	Vrati vsechny tpy zvirat jako seznam
+	 * Vrati vsechny tpy zvirat jako seznam
 	 */
 	@Query("SELECT ptype FROM PetType ptype ORDER BY ptype.name")
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
 	@Transactional(readOnly = true)
 	List<PetType> findPetTypes();
 
 	/**
-	 * Retrieve {@link Owner}s from the data store by last name, returning all owners
-	 * whose last name <i>starts</i> with the given name.
-	 * @param lastName Value to search for
-	 * @return a Collection of matching {@link Owner}s (or an empty Collection if none
-	 * found)
+	 * Retrieve the ids of one page of {@link Owner}s whose last name starts with
+	 * {@code lastName}, ordered by {@code (lastName, id)}. This is the first phase of the
+	 * owners list; {@link #findListRows} then loads what the page shows.
+	 */
+	@Query(value = "SELECT owner.id FROM Owner owner WHERE owner.lastName LIKE :lastName% "
+			+ "ORDER BY owner.lastName, owner.id",
+			countQuery = "SELECT COUNT(owner) FROM Owner owner WHERE owner.lastName LIKE :lastName%")
+	@Transactional(readOnly = true)
+	Page<Integer> findIdsByLastName(@Param("lastName") String lastName, Pageable pageable);
+
+	/**
+	 * Retrieve the ids of one page of {@link Owner}s whose last name starts with
+	 * {@code lastName}, ordered by {@code (lastName, id)} and positioned strictly after
+	 * the given keyset. No count query is run. Pass an empty name and id 0 for the first
+	 * page.
+	 */
+	@Query("SELECT owner.id FROM Owner owner WHERE owner.lastName LIKE :lastName% "
+			+ "AND (owner.lastName > :afterName OR (owner.lastName = :afterName AND owner.id > :afterId)) "
+			+ "ORDER BY owner.lastName, owner.id")
+	@Transactional(readOnly = true)
+	Slice<Integer> findIdsByLastNameAfter(@Param("lastName") String lastName, @Param("afterName") String afterName,
+			@Param("afterId") int afterId, Pageable pageable);
+
+	/**
+	 * Like {@link #findIdsByLastNameAfter}, but returns the ids strictly before the given
+	 * keyset, in reverse order, for the "previous" link.
+	 */
+	@Query("SELECT owner.id FROM Owner owner WHERE owner.lastName LIKE :lastName% "
+			+ "AND (owner.lastName < :beforeName OR (owner.lastName = :beforeName AND owner.id < :beforeId)) "
+			+ "ORDER BY owner.lastName DESC, owner.id DESC")
+	@Transactional(readOnly = true)
+	Slice<Integer> findIdsByLastNameBefore(@Param("lastName") String lastName, @Param("beforeName") String beforeName,
+			@Param("beforeId") int beforeId, Pageable pageable);
+
+	/**
+	 * Second phase of the owners list: the owners with the given ids and the names of
+	 * their pets, one row per pet, in a single query. Only columns are selected, so no
+	 * owner, pet or visit entity is loaded.
+	 */
+	@Query("SELECT new org.springframework.samples.petclinic.owner.OwnerListRow(owner.id, owner.firstName, "
+			+ "owner.lastName, owner.address, owner.city, owner.telephone, pet.name) "
+			+ "FROM Owner owner LEFT JOIN owner.pets pet WHERE owner.id IN :ids ORDER BY pet.name")
+	@Transactional(readOnly = true)
+	List<OwnerListRow> findListRows(@Param("ids") Collection<Integer> ids);
+
+	/**
+	 * Retrieve the id and last name of every {@link Owner}, to load the
+	 * {@link OwnerNameIndex}.
 	 */
+	@Query("SELECT new org.springframework.samples.petclinic.owner.OwnerName(owner.id, owner.lastName) FROM Owner owner")
+	@Transactional(readOnly = true)
+	List<OwnerName> findOwnerNames();
+
 	/*
-	Vrati vyhledane owner dle prijmeni
+	 * vrati pocet owneru dle prijmeni, jen pokud si ho uzivatel vyzada
 	 */
-	@Query("SELECT DISTINCT owner FROM Owner owner left join  owner.pets WHERE owner.lastName LIKE :lastName% ")
+	@Query("SELECT COUNT(owner) FROM Owner owner WHERE owner.lastName LIKE :lastName%")
 	@Transactional(readOnly = true)
-	Page<Owner> findByLastName(@Param("lastName") String lastName, Pageable pageable);
+	long countByLastName(@Param("lastName") String lastName);
 
 	/**
 	 * Retrieve an {@link Owner} from the data store by id.
@@ -72,19 +128,32 @@ public interface OwnerRepository extends Repository<Owner, Integer> {
 	 * @return the {@link Owner} if found
 	 */
 	/*
-	Vyhledava ownery dle jejich ID
+	 * Vyhledava ownery dle jejich ID, bez zvirat (formular ownera)
 	 */
-	@Query("SELECT owner FROM Owner owner left join fetch owner.pets WHERE owner.id =:id")
+	@Query("SELECT owner FROM Owner owner WHERE owner.id =:id")
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
 	@Transactional(readOnly = true)
 	Owner findById(@Param("id") Integer id);
 
+	/**
+	 * Retrieve an {@link Owner} with its pets and their types, as the owner page and the
+	 * pet and visit forms need them. Visits are read separately, a page at a time.
+	 * @param id the id to search for
+	 * @return the {@link Owner} if found
+	 */
+	@Query("SELECT owner FROM Owner owner WHERE owner.id =:id")
+	@EntityGraph("Owner.pets")
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+	@Transactional(readOnly = true)
+	Owner findWithPetsById(@Param("id") Integer id);
+
 	/**
 	 * Save an {@link Owner} to the data store, either inserting or updating it.
 	 * @param owner the {@link Owner} to save
 	 */
 	/*
-	uklada ownera do db
-	funguje to diky tomu, ze trida Owner je jako entita a ma definovano, co se ma ukladat kam
+	 * uklada ownera do db funguje to diky tomu, ze trida Owner je jako entita a ma
+	 * definovano, co se ma ukladat kam
 	 */
 	void save(Owner owner);
 
@@ -92,33 +161,61 @@ public interface OwnerRepository extends Repository<Owner, Integer> {
 	 * Returns all the owners from data store
 	 **/
 	/*
-	vrati vsechny ownery v DB
+	 * vrati vsechny ownery v DB
 	 */
 	@Query("SELECT owner FROM Owner owner")
 	@Transactional(readOnly = true)
 	Page<Owner> findAll(Pageable pageable);
 
 	/*
-	vrati pocet Owneru
-	*/
+	 * vrati pocet Owneru
+	 */
 	@Query("SELECT COUNT(*) FROM Owner")
 	@Transactional(readOnly = true)
 	int findNumberOfOwners();
 
 	/*
-	vrati pocet Pets
-	*/
+	 * vrati pocet Pets
+	 */
 	@Query("SELECT COUNT(*) FROM Pet")
 	@Transactional(readOnly = true)
 	int findNumberOfPets();
 
+	/**
+	 * Retrieve one slice of {@link PetVisitSummary visit summaries} inside the given date
+	 * window, newest first. Pagination is keyset based: only visits ordered strictly
+	 * after {@code (beforeDate, beforeId)} are returned, so deep pages cost the same as
+	 * the first one. Pets without visits are left out by the inner join.
+	 * @param from first visit date of the window (inclusive)
+	 * @param to last visit date of the window (inclusive)
+	 * @param beforeDate visit date of the last row of the previous slice
+	 * @param beforeId visit id of the last row of the previous slice
+	 * @param pageable only the page size is used, the offset must be zero
+	 * @return a slice of summaries, with {@link Slice#hasNext()} telling whether there
+	 * are more
+	 */
+	@Query("SELECT new org.springframework.samples.petclinic.owner.PetVisitSummary(p.name, t.name, v.date, v.id) "
+			+ "FROM Pet p JOIN p.visits v LEFT JOIN p.type t " + "WHERE v.date BETWEEN :from AND :to "
+			+ "AND (v.date < :beforeDate OR (v.date = :beforeDate AND v.id < :beforeId)) "
+			+ "ORDER BY v.date DESC, v.id DESC")
+	@Transactional(readOnly = true)
+	Slice<PetVisitSummary> findPetVisitSummaries(@Param("from") LocalDate from, @Param("to") LocalDate to,
+			@Param("beforeDate") LocalDate beforeDate, @Param("beforeId") int beforeId, Pageable pageable);
 
-	@Query(value = "SELECT p.name AS petName, t.name AS petTypeName, v.visit_date AS visitDate " +
-		"FROM pets p " +
-		"LEFT JOIN visits v ON p.id = v.pet_id " +
-		"LEFT JOIN types t ON p.type_id = t.id " +
-		"ORDER BY v.visit_date DESC",
-		nativeQuery = true)
-	List<Object[]> findPetSummaries();
+	/**
+	 * Stream the {@link PetVisitSummary visit summaries} between {@code from} and
+	 * {@code to}, oldest first, for exports. Rows are fetched from a cursor in small
+	 * batches. To resume an interrupted stream, pass the date and id of the last visit
+	 * received as {@code from} and {@code afterId}. The stream must be consumed and
+	 * closed inside a transaction.
+	 */
+	@Query("SELECT new org.springframework.samples.petclinic.owner.PetVisitSummary(p.name, t.name, v.date, v.id) "
+			+ "FROM Pet p JOIN p.visits v LEFT JOIN p.type t "
+			+ "WHERE v.date <= :to AND (v.date > :from OR (v.date = :from AND v.id > :afterId)) "
+			+ "ORDER BY v.date, v.id")
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+	@Transactional(readOnly = true)
+	Stream<PetVisitSummary> streamPetVisitSummaries(@Param("from") LocalDate from, @Param("to") LocalDate to,
+			@Param("afterId") int afterId);
 
 }
@@ -0,0 +1,85 @@
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Read-only view of an owner as shown in the owners list: the contact details and the
+ * names of the pets, without the pet and visit entities behind them.
+ */
+public class OwnerSummary {
+
+	private final Integer id;
+
+	private final String firstName;
+
+	private final String lastName;
+
+	private final String address;
+
+	private final String city;
+
+	private final String telephone;
+
+	private final List<String> pets = new ArrayList<>();
+
+	OwnerSummary(OwnerListRow row) {
+		this.id = row.id();
+		this.firstName = row.firstName();
+		this.lastName = row.lastName();
+		this.address = row.address();
+		this.city = row.city();
+		this.telephone = row.telephone();
+	}
+
+	/**
+	 * Folds the rows of one page into summaries, in the order of {@code ids}. Ids without
+	 * rows, e.g. owners deleted in the meantime, are left out.
+	 */
+	static List<OwnerSummary> of(List<OwnerListRow> rows, List<Integer> ids) {
+		Map<Integer, OwnerSummary> byId = new LinkedHashMap<>();
+		for (OwnerListRow row : rows) {
+			OwnerSummary summary = byId.computeIfAbsent(row.id(), id -> new OwnerSummary(row));
+			if (row.petName() != null) {
+				summary.pets.add(row.petName());
+			}
+		}
+		return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+	}
+
+	public Integer getId() {
+		return this.id;
+	}
+
+	public String getFirstName() {
+		return this.firstName;
+	}
+
+	public String getLastName() {
+		return this.lastName;
+	}
+
+	public String getAddress() {
+		return this.address;
+	}
+
+	public String getCity() {
+		return this.city;
+	}
+
+	public String getTelephone() {
+		return this.telephone;
+	}
+
+	/**
+	 * Pet names, sorted like {@link Owner#getPets()}.
+	 */
+	public List<String> getPets() {
+		return Collections.unmodifiableList(this.pets);
+	}
+
+}
@@ -20,9 +20,12 @@ import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.samples.petclinic.model.NamedEntity;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -40,24 +43,33 @@ import jakarta.persistence.Table;
  * @author Juergen Hoeller
  * @author Sam Brannen
  */
-@Entity // oznacuje tridu jako entitu, coz znamena, ze trida bude mapovana na databazovou tabulku
-@Table(name = "pets") // urcuje jmeno tabulky, do ktere budou instance teto entity ukladany
+@Entity // oznacuje tridu jako entitu, coz znamena, ze trida bude mapovana na databazovou
+		// tabulku
+@Table(name = "pets") // urcuje jmeno tabulky, do ktere budou instance teto entity
+						// ukladany
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "pets")
 public class Pet extends NamedEntity {
 
 	@Column(name = "birth_date")
 	@DateTimeFormat(pattern = "yyyy-MM-dd") // definuje format pro birthDate
 	private LocalDate birthDate;
 
-	@ManyToOne // oznacuje type jako relaci k jine entite, v tomto pripade entite PetType; rika, ze v db bude sloupec type_id, ktery odkazuje na id v PetType
+	@ManyToOne // oznacuje type jako relaci k jine entite, v tomto pripade entite PetType;
+				// rika, ze v db bude sloupec type_id, ktery odkazuje na id v PetType
 	@JoinColumn(name = "type_id")
 	private PetType type;
 
-	@OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER) // zvire muze mit vice navstev
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "pet-visits")
+	@OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY) // zvire muze mit vice
+																	// navstev, nacitaji
+																	// se jen kdyz je
+																	// pohled potrebuje
 	@JoinColumn(name = "pet_id")
 	@OrderBy("visit_date ASC")
 	/*
-	set je rozhrani, ktere reprezentuje kolekci unikatnich hodnot, v tomto pripade navstev
-	linkedhashset umoznuje zachovani poradi
+	 * set je rozhrani, ktere reprezentuje kolekci unikatnich hodnot, v tomto pripade
+	 * navstev linkedhashset umoznuje zachovani poradi
 	 */
 	private Set<Visit> visits = new LinkedHashSet<>();
 
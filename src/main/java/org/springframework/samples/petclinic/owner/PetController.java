@@ -18,7 +18,9 @@ package org.springframework.samples.petclinic.owner;
 import java.time.LocalDate;
 import java.util.Collection;
 
+import org.springframework.samples.petclinic.report.ReportAggregateService;
 import org.springframework.stereotype.Controller;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ui.ModelMap;
 import org.springframework.util.StringUtils;
 import org.springframework.validation.BindingResult;
@@ -45,8 +47,14 @@ class PetController {
 
 	private final OwnerRepository owners;
 
-	public PetController(OwnerRepository owners) {
+	private final OwnerLoader ownerLoader;
+
+	private final ReportAggregateService reportAggregates;
+
+	public PetController(OwnerRepository owners, OwnerLoader ownerLoader, ReportAggregateService reportAggregates) {
 		this.owners = owners;
+		this.ownerLoader = ownerLoader;
+		this.reportAggregates = reportAggregates;
 	}
 
 	@ModelAttribute("types")
@@ -56,23 +64,15 @@ class PetController {
 
 	@ModelAttribute("owner")
 	public Owner findOwner(@PathVariable("ownerId") int ownerId) {
-
-		Owner owner = this.owners.findById(ownerId);
-		if (owner == null) {
-			throw new IllegalArgumentException("Owner ID not found: " + ownerId);
-		}
-		return owner;
+		return this.ownerLoader.load(ownerId);
 	}
 
 	@ModelAttribute("pet")
 	public Pet findPet(@PathVariable("ownerId") int ownerId,
 			@PathVariable(name = "petId", required = false) Integer petId) {
 
-		Owner owner = this.owners.findById(ownerId);
-		if (owner == null) {
-			throw new IllegalArgumentException("Owner ID not found: " + ownerId);
-		}
-		return petId == null ? new Pet() : owner.getPet(petId);
+		// stejny owner jako v findOwner, nacteny jen jednou za request
+		return petId == null ? new Pet() : this.ownerLoader.load(ownerId).getPet(petId);
 	}
 
 	@InitBinder("owner")
@@ -94,6 +94,7 @@ class PetController {
 	}
 
 	@PostMapping("/pets/new")
+	@Transactional
 	public String processCreationForm(Owner owner, @Valid Pet pet, BindingResult result, ModelMap model) {
 		if (StringUtils.hasText(pet.getName()) && pet.isNew() && owner.getPet(pet.getName(), true) != null) {
 			result.rejectValue("name", "duplicate", "already exists");
@@ -111,6 +112,7 @@ class PetController {
 		}
 
 		this.owners.save(owner);
+		this.reportAggregates.petAdded();
 		return "redirect:/owners/{ownerId}";
 	}
 
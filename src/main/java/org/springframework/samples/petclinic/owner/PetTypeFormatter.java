@@ -21,13 +21,21 @@ import org.springframework.stereotype.Component;
 
 import java.text.ParseException;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * Instructs Spring MVC on how to parse and print elements of type 'PetType'. Starting
  * from Spring 3.0, Formatters have come as an improvement in comparison to legacy
  * PropertyEditors. See the following links for more details: - The Spring ref doc:
  * https://docs.spring.io/spring-framework/docs/current/spring-framework-reference/core.html#format
+ * <p>
+ * Parsing looks the type up in an immutable map built from the first query, by name or,
+ * for numeric text, by id. It does not query the database for every form submission or
+ * every option of the type select. An unknown name or id reloads the map once, so a type
+ * added to the database becomes visible without a restart; {@link #refresh()} reloads it
+ * explicitly.
  *
  * @author Mark Fisher
  * @author Juergen Hoeller
@@ -38,6 +46,8 @@ public class PetTypeFormatter implements Formatter<PetType> {
 
 	private final OwnerRepository owners;
 
+	private volatile PetTypes types;
+
 	@Autowired
 	public PetTypeFormatter(OwnerRepository owners) {
 		this.owners = owners;
@@ -50,13 +60,69 @@ public class PetTypeFormatter implements Formatter<PetType> {
 
 	@Override
 	public PetType parse(String text, Locale locale) throws ParseException {
-		Collection<PetType> findPetTypes = this.owners.findPetTypes();
-		for (PetType type : findPetTypes) {
-			if (type.getName().equals(text)) {
-				return type;
+		PetTypes current = this.types;
+		PetType type = current == null ? null : current.find(text);
+		if (type == null) {
+			type = reload().find(text);
+		}
+		if (type == null) {
+			throw new ParseException("type not found: " + text, 0);
+		}
+		return type;
+	}
+
+	/**
+	 * Reloads the pet types from the database.
+	 */
+	public void refresh() {
+		reload();
+	}
+
+	private PetTypes reload() {
+		PetTypes loaded = PetTypes.of(this.owners.findPetTypes());
+		this.types = loaded;
+		return loaded;
+	}
+
+	/**
+	 * Immutable lookup of the pet types by name and by id.
+	 */
+	record PetTypes(Map<String, PetType> byName, Map<Integer, PetType> byId) {
+
+		static PetTypes of(Collection<PetType> types) {
+			Map<String, PetType> byName = new HashMap<>();
+			Map<Integer, PetType> byId = new HashMap<>();
+			for (PetType type : types) {
+				if (type.getName() != null) {
+					byName.putIfAbsent(type.getName(), type);
+				}
+				if (type.getId() != null) {
+					byId.put(type.getId(), type);
+				}
 			}
+			return new PetTypes(Map.copyOf(byName), Map.copyOf(byId));
 		}
-		throw new ParseException("type not found: " + text, 0);
+
+		PetType find(String text) {
+			PetType type = this.byName.get(text);
+			if (type == null && isId(text)) {
+				type = this.byId.get(Integer.valueOf(text));
+			}
+			return type;
+		}
+
+		private static boolean isId(String text) {
+			if (text.isEmpty() || text.length() > 9) {
+				return false;
+			}
+			for (int i = 0; i < text.length(); i++) {
+				if (!Character.isDigit(text.charAt(i))) {
+					return false;
+				}
+			}
+			return true;
+		}
+
 	}
 
 }
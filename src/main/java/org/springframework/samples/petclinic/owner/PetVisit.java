@@ -0,0 +1,11 @@
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+
+/**
+ * One visit of a pet as shown in its visit history, without loading the pet or the visit
+ * entity.
+ */
+public record PetVisit(Integer petId, Integer id, LocalDate date, String description) {
+
+}
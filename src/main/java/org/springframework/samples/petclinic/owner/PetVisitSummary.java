@@ -0,0 +1,12 @@
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only projection of a single visit together with its pet, as listed on the reports
+ * page. The visit id breaks ties between visits on the same date, so
+ * {@code (visitDate, visitId)} is a stable keyset for pagination.
+ */
+public record PetVisitSummary(String petName, String petTypeName, LocalDate visitDate, Integer visitId) {
+
+}
@@ -16,12 +16,20 @@
 package org.springframework.samples.petclinic.owner;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.samples.petclinic.model.BaseEntity;
+import org.springframework.samples.petclinic.vet.Vet;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 
@@ -33,6 +41,8 @@ import jakarta.validation.constraints.NotBlank;
  */
 @Entity // trida bude mapovana na db tabulku
 @Table(name = "visits") // tabulka se bude jmenovat vistits
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "visits")
 public class Visit extends BaseEntity {
 
 	@Column(name = "visit_date")
@@ -42,6 +52,19 @@ public class Visit extends BaseEntity {
 	@NotBlank
 	private String description;
 
+	/*
+	 * veterinar a cas, pokud byla navsteva objednana na termin (VetScheduler); jinak null
+	 */
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "vet_id")
+	private Vet vet;
+
+	@Column(name = "start_time")
+	private LocalTime startTime;
+
+	@Column(name = "end_time")
+	private LocalTime endTime;
+
 	/**
 	 * Creates a new instance of Visit for the current date
 	 */
@@ -65,4 +88,28 @@ public class Visit extends BaseEntity {
 		this.description = description;
 	}
 
+	public Vet getVet() {
+		return this.vet;
+	}
+
+	public void setVet(Vet vet) {
+		this.vet = vet;
+	}
+
+	public LocalTime getStartTime() {
+		return this.startTime;
+	}
+
+	public void setStartTime(LocalTime startTime) {
+		this.startTime = startTime;
+	}
+
+	public LocalTime getEndTime() {
+		return this.endTime;
+	}
+
+	public void setEndTime(LocalTime endTime) {
+		this.endTime = endTime;
+	}
+
 }
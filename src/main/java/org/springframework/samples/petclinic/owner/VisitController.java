@@ -15,9 +15,17 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.samples.petclinic.vet.Slot;
+import org.springframework.samples.petclinic.vet.VetScheduler;
 import org.springframework.stereotype.Controller;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -25,6 +33,9 @@ import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
 
 import jakarta.validation.Valid;
 
@@ -38,10 +49,25 @@ import jakarta.validation.Valid;
 @Controller
 class VisitController {
 
-	private final OwnerRepository owners;
+	static final int HISTORY_PAGE_SIZE = 20;
 
-	public VisitController(OwnerRepository owners) {
-		this.owners = owners;
+	static final int MAX_HISTORY_PAGE_SIZE = 100;
+
+	/*
+	 * kurzor prvni stranky historie (nejvetsi datum typu DATE v MySQL)
+	 */
+	private static final LocalDate LATEST_DATE = LocalDate.of(9999, 12, 31);
+
+	private final VisitRepository visits;
+
+	private final OwnerLoader ownerLoader;
+
+	private final VetScheduler scheduler;
+
+	public VisitController(VisitRepository visits, OwnerLoader ownerLoader, VetScheduler scheduler) {
+		this.visits = visits;
+		this.ownerLoader = ownerLoader;
+		this.scheduler = scheduler;
 	}
 
 	@InitBinder
@@ -50,45 +76,97 @@ class VisitController {
 	}
 
 	/**
-	 * Called before each and every @RequestMapping annotated method. 2 goals: - Make sure
-	 * we always have fresh data - Since we do not use the session scope, make sure that
-	 * Pet object always has an id (Even though id is not part of the form fields)
-	 * @param petId
-	 * @return Pet
+	 * Called before each and every @RequestMapping annotated method. Creates the visit
+	 * the form binds to; the pet and the owner are only loaded when a page shows them.
+	 * @return Visit
 	 */
 	@ModelAttribute("visit")
-	public Visit loadPetWithVisit(@PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId,
-			Map<String, Object> model) {
-		Owner owner = this.owners.findById(ownerId);
-
-		Pet pet = owner.getPet(petId);
-		model.put("pet", pet);
-		model.put("owner", owner);
-
-		Visit visit = new Visit();
-		pet.addVisit(visit);
-		return visit;
+	public Visit newVisit() {
+		return new Visit();
 	}
 
-	// Spring MVC calls method loadPetWithVisit(...) before initNewVisitForm is
-	// called
+	/*
+	 * formular nabizi volne terminy veterinaru ke dni navstevy; ?date=yyyy-MM-dd se
+	 * navaze do navstevy a prepne den
+	 */
 	@GetMapping("/owners/{ownerId}/pets/{petId}/visits/new")
-	public String initNewVisitForm() {
+	public String initNewVisitForm(@PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId, Visit visit,
+			Map<String, Object> model) {
+		addFormModel(ownerId, petId, visit, model);
 		return "pets/createOrUpdateVisitForm";
 	}
 
-	// Spring MVC calls method loadPetWithVisit(...) before processNewVisitForm is
-	// called
+	/*
+	 * navsteva se vlozi jako jeden radek; owner se zvirety a navstevami se nenacita ani
+	 * neuklada, vlastnictvi zvirete se overi dotazem podle klicu se zvolenym terminem
+	 * (slot) se termin nejdriv zarezervuje v kalendari veterinare a navsteva dostane jeho
+	 * den a cas; kdyz termin mezitim nekdo obsadil (i v jine instanci), formular se vrati
+	 * s chybou metoda neni transakcni: vlozeni navstevy musi byt potvrzene nebo odvolane
+	 * driv, nez se rozhodne o terminu, a formular s chybou se pak nacita mimo odvolanou
+	 * transakci
+	 */
 	@PostMapping("/owners/{ownerId}/pets/{petId}/visits/new")
-	public String processNewVisitForm(@ModelAttribute Owner owner, @PathVariable int petId, @Valid Visit visit,
-			BindingResult result) {
+	public String processNewVisitForm(@PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId,
+			@Valid Visit visit, BindingResult result, @RequestParam(required = false) String slot,
+			Map<String, Object> model) {
+		Slot booked = StringUtils.hasText(slot) ? this.scheduler.findSlot(slot) : null;
+		if (StringUtils.hasText(slot) && booked == null) {
+			result.rejectValue("date", "slotUnavailable", "the chosen time is not available");
+		}
 		if (result.hasErrors()) {
+			addFormModel(ownerId, petId, visit, model);
 			return "pets/createOrUpdateVisitForm";
 		}
 
-		owner.addVisit(petId, visit);
-		this.owners.save(owner);
+		if (this.visits.countPetsOfOwner(ownerId, petId) == 0) {
+			throw new IllegalArgumentException("Pet " + petId + " of owner " + ownerId + " not found");
+		}
+		if (booked == null) {
+			this.visits.insert(petId, visit.getDate(), visit.getDescription());
+			return "redirect:/owners/{ownerId}";
+		}
+		visit.setDate(booked.start().toLocalDate());
+		if (!this.scheduler.book(booked, () -> this.visits.insertBooked(petId, visit.getDate(), visit.getDescription(),
+				booked.vetId(), booked.start().toLocalTime(), booked.end().toLocalTime()))) {
+			result.rejectValue("date", "slotTaken", "the chosen time has just been booked");
+			addFormModel(ownerId, petId, visit, model);
+			return "pets/createOrUpdateVisitForm";
+		}
 		return "redirect:/owners/{ownerId}";
 	}
 
+	/**
+	 * Returns one page of the visit history of a pet as JSON, newest first. The cursor of
+	 * the returned page is passed back as {@code beforeDate}/{@code beforeId} to
+	 * continue.
+	 */
+	@GetMapping("/owners/{ownerId}/pets/{petId}/visits")
+	public @ResponseBody VisitHistoryPage showVisitHistory(@PathVariable("ownerId") int ownerId,
+			@PathVariable("petId") int petId,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate beforeDate,
+			@RequestParam(required = false) Integer beforeId,
+			@RequestParam(defaultValue = "" + HISTORY_PAGE_SIZE) int size) {
+		if (this.visits.countPetsOfOwner(ownerId, petId) == 0) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+		}
+		return history(petId, beforeDate, beforeId, size);
+	}
+
+	private VisitHistoryPage history(int petId, LocalDate beforeDate, Integer beforeId, int size) {
+		// bez kurzoru zaciname za nejnovejsi moznou navstevou
+		boolean first = beforeDate == null || beforeId == null;
+		PageRequest pageable = PageRequest.of(0, Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE)));
+		return VisitHistoryPage.of(this.visits.findHistory(petId, first ? LATEST_DATE : beforeDate,
+				first ? Integer.MAX_VALUE : beforeId, pageable));
+	}
+
+	private void addFormModel(int ownerId, int petId, Visit visit, Map<String, Object> model) {
+		Owner owner = this.ownerLoader.load(ownerId);
+		model.put("pet", owner.getPet(petId));
+		model.put("owner", owner);
+		// jen prvni stranka historie, starsi navstevy se dotahuji jako na detailu ownera
+		model.put("visits", history(petId, null, null, HISTORY_PAGE_SIZE));
+		model.put("slots", visit.getDate() == null ? List.of() : this.scheduler.freeSlots(visit.getDate()));
+	}
+
 }
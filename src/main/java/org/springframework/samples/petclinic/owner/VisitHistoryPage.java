@@ -0,0 +1,40 @@
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.domain.Slice;
+
+/**
+ * One page of the visit history of a pet, newest first. The
+ * {@code nextBeforeDate}/{@code nextBeforeId} cursor is {@code null} on the last page,
+ * otherwise it is passed back to {@code /owners/{ownerId}/pets/{petId}/visits} to fetch
+ * the following one.
+ */
+public record VisitHistoryPage(List<PetVisit> visits, LocalDate nextBeforeDate, Integer nextBeforeId) {
+
+	static VisitHistoryPage of(Slice<PetVisit> slice) {
+		return of(slice.getContent(), slice.hasNext());
+	}
+
+	/**
+	 * Creates the first page from up to {@code size + 1} newest visits; the extra visit
+	 * only tells whether there are older ones.
+	 */
+	static VisitHistoryPage first(List<PetVisit> newest, int size) {
+		return newest.size() > size ? of(newest.subList(0, size), true) : of(newest, false);
+	}
+
+	private static VisitHistoryPage of(List<PetVisit> visits, boolean hasNext) {
+		if (!hasNext || visits.isEmpty()) {
+			return new VisitHistoryPage(visits, null, null);
+		}
+		PetVisit last = visits.get(visits.size() - 1);
+		return new VisitHistoryPage(visits, last.date(), last.id());
+	}
+
+	public boolean hasNext() {
+		return this.nextBeforeId != null;
+	}
+
+}
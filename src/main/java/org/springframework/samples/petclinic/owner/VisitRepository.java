@@ -0,0 +1,86 @@
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.QueryHint;
+
+/**
+ * Repository class for {@link Visit} domain objects that works on single pets instead of
+ * the owner aggregate, so adding a visit or reading a page of the history costs the same
+ * however many pets and visits the owner already has.
+ */
+public interface VisitRepository extends Repository<Visit, Integer> {
+
+	/**
+	 * Number of pets with the given id that belong to the owner, 0 or 1. Both are keys,
+	 * so this is an index lookup.
+	 */
+	@Query("SELECT COUNT(pet) FROM Owner owner JOIN owner.pets pet WHERE owner.id = :ownerId AND pet.id = :petId")
+	@Transactional(readOnly = true)
+	long countPetsOfOwner(@Param("ownerId") int ownerId, @Param("petId") int petId);
+
+	/**
+	 * One page of the visits of a pet strictly before the {@code (beforeDate, beforeId)}
+	 * cursor, newest first. Served by the {@code (pet_id, visit_date, id)} index.
+	 */
+	@Query("SELECT new org.springframework.samples.petclinic.owner.PetVisit(pet.id, visit.id, visit.date, visit.description) "
+			+ "FROM Pet pet JOIN pet.visits visit WHERE pet.id = :petId "
+			+ "AND (visit.date < :beforeDate OR (visit.date = :beforeDate AND visit.id < :beforeId)) "
+			+ "ORDER BY visit.date DESC, visit.id DESC")
+	@Transactional(readOnly = true)
+	Slice<PetVisit> findHistory(@Param("petId") int petId, @Param("beforeDate") LocalDate beforeDate,
+			@Param("beforeId") int beforeId, Pageable pageable);
+
+	/**
+	 * The {@code latest} newest visits of each of the given pets in one query, ordered by
+	 * pet and then newest first.
+	 */
+	@Query("SELECT new org.springframework.samples.petclinic.owner.PetVisit(v.petId, v.id, v.date, v.description) "
+			+ "FROM (SELECT pet.id AS petId, visit.id AS id, visit.date AS date, visit.description AS description, "
+			+ "row_number() OVER (PARTITION BY pet.id ORDER BY visit.date DESC, visit.id DESC) AS position "
+			+ "FROM Pet pet JOIN pet.visits visit WHERE pet.id IN :petIds) v "
+			+ "WHERE v.position <= :latest ORDER BY v.petId, v.date DESC, v.id DESC")
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+	@Transactional(readOnly = true)
+	List<PetVisit> findLatest(@Param("petIds") Collection<Integer> petIds, @Param("latest") int latest);
+
+	/**
+	 * Inserts one row into {@code visits}. The native spaces hint makes Hibernate evict
+	 * only the cached visits and pet visits, not the whole second-level cache.
+	 * @return the number of inserted rows
+	 */
+	@Modifying
+	@Query(value = "INSERT INTO visits (pet_id, visit_date, description) VALUES (:petId, :date, :description)",
+			nativeQuery = true)
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "visits"))
+	@Transactional
+	int insert(@Param("petId") int petId, @Param("date") LocalDate date, @Param("description") String description);
+
+	/**
+	 * Inserts one row into {@code visits} booked with a vet from {@code startTime} to
+	 * {@code endTime}. Fails on the unique {@code (vet_id, visit_date, start_time)}
+	 * constraint if the slot is already taken.
+	 * @return the number of inserted rows
+	 */
+	@Modifying
+	@Query(value = "INSERT INTO visits (pet_id, visit_date, description, vet_id, start_time, end_time) "
+			+ "VALUES (:petId, :date, :description, :vetId, :startTime, :endTime)", nativeQuery = true)
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "visits"))
+	@Transactional
+	int insertBooked(@Param("petId") int petId, @Param("date") LocalDate date, @Param("description") String description,
+			@Param("vetId") int vetId, @Param("startTime") LocalTime startTime, @Param("endTime") LocalTime endTime);
+
+}
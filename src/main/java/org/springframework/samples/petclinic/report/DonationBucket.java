@@ -0,0 +1,67 @@
+package org.springframework.samples.petclinic.report;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Precomputed figures of all donates made on one day. Buckets are maintained
+ * incrementally by {@link DonationRollupService}; monthly and yearly figures are derived
+ * from them, so trend charts never scan the donates table.
+ */
+@Entity
+@Table(name = "donation_buckets")
+public class DonationBucket {
+
+	@Id
+	@Column(name = "bucket_date")
+	private LocalDate date;
+
+	@Column(name = "donation_count")
+	private long count;
+
+	@Column(name = "amount_sum", precision = 14, scale = 2)
+	private BigDecimal sum;
+
+	@Column(name = "amount_max", precision = 12, scale = 2)
+	private BigDecimal max;
+
+	@Column(name = "amount_min", precision = 12, scale = 2)
+	private BigDecimal min;
+
+	protected DonationBucket() {
+	}
+
+	public DonationBucket(LocalDate date, long count, BigDecimal sum, BigDecimal max, BigDecimal min) {
+		this.date = date;
+		this.count = count;
+		this.sum = sum;
+		this.max = max;
+		this.min = min;
+	}
+
+	public LocalDate getDate() {
+		return this.date;
+	}
+
+	public long getCount() {
+		return this.count;
+	}
+
+	public BigDecimal getSum() {
+		return this.sum;
+	}
+
+	public BigDecimal getMax() {
+		return this.max;
+	}
+
+	public BigDecimal getMin() {
+		return this.min;
+	}
+
+}
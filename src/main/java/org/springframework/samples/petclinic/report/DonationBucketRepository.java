@@ -0,0 +1,67 @@
+package org.springframework.samples.petclinic.report;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository class for the daily {@link DonationBucket} rows. Like
+ * {@link ReportAggregateRepository}, every change is a single statement, so concurrent
+ * writers to the same day never lose an update. Adding to a day is a dialect specific
+ * upsert and lives in {@link DonationRollupService}.
+ */
+public interface DonationBucketRepository extends Repository<DonationBucket, LocalDate> {
+
+	/**
+	 * Retrieve the buckets between {@code from} and {@code to} inclusive, oldest first,
+	 * as detached rollups.
+	 */
+	@Query("SELECT new org.springframework.samples.petclinic.report.DonationRollup(b.date, b.count, b.sum, b.max, b.min) "
+			+ "FROM DonationBucket b WHERE b.date BETWEEN :from AND :to ORDER BY b.date")
+	@Transactional(readOnly = true)
+	List<DonationRollup> findBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+	/**
+	 * Compute daily rollups straight from the donates table. Only used to rebuild the
+	 * buckets or to repair the extremes of a single day.
+	 */
+	@Query("SELECT new org.springframework.samples.petclinic.report.DonationRollup(d.date, COUNT(d), "
+			+ "SUM(d.amount), MAX(d.amount), MIN(d.amount)) "
+			+ "FROM Donate d WHERE d.date BETWEEN :from AND :to GROUP BY d.date ORDER BY d.date")
+	@Transactional(readOnly = true)
+	List<DonationRollup> summarizeDonates(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+	void save(DonationBucket bucket);
+
+	/**
+	 * Take one donate out of the bucket of its day. The extremes cannot be decremented
+	 * and are repaired separately with {@link #updateExtremes}.
+	 */
+	@Modifying
+	@Query("UPDATE DonationBucket b SET b.count = b.count - 1, b.sum = b.sum - :amount WHERE b.date = :date")
+	@Transactional
+	int subtract(@Param("date") LocalDate date, @Param("amount") BigDecimal amount);
+
+	@Modifying
+	@Query("UPDATE DonationBucket b SET b.max = :max, b.min = :min WHERE b.date = :date")
+	@Transactional
+	int updateExtremes(@Param("date") LocalDate date, @Param("max") BigDecimal max, @Param("min") BigDecimal min);
+
+	@Modifying
+	@Query("DELETE FROM DonationBucket b WHERE b.date = :date AND b.count <= 0")
+	@Transactional
+	int deleteIfEmpty(@Param("date") LocalDate date);
+
+	@Modifying
+	@Query("DELETE FROM DonationBucket b")
+	@Transactional
+	int deleteAll();
+
+}
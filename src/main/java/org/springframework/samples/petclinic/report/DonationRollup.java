@@ -0,0 +1,33 @@
+package org.springframework.samples.petclinic.report;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Donation figures of one period (a day, month or year), identified by the first day of
+ * the period. An empty period has a zero count and zero extremes.
+ */
+public record DonationRollup(LocalDate period, long count, BigDecimal sum, BigDecimal max, BigDecimal min) {
+
+	private static final BigDecimal ZERO = BigDecimal.ZERO.setScale(2);
+
+	public static DonationRollup empty(LocalDate period) {
+		return new DonationRollup(period, 0, ZERO, ZERO, ZERO);
+	}
+
+	/**
+	 * Combines this rollup with the figures of another period into one for
+	 * {@code period}.
+	 */
+	public DonationRollup merge(LocalDate period, DonationRollup other) {
+		if (this.count == 0) {
+			return new DonationRollup(period, other.count, other.sum, other.max, other.min);
+		}
+		if (other.count == 0) {
+			return new DonationRollup(period, this.count, this.sum, this.max, this.min);
+		}
+		return new DonationRollup(period, this.count + other.count, this.sum.add(other.sum), this.max.max(other.max),
+				this.min.min(other.min));
+	}
+
+}
@@ -0,0 +1,221 @@
+package org.springframework.samples.petclinic.report;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.donates.Donate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Keeps per-day donation buckets (count, sum, biggest and smallest donate) in the
+ * {@code donation_buckets} table and derives monthly and yearly rollups from them.
+ * <p>
+ * As with {@link ReportAggregateService}, the donate write paths call
+ * {@link #donateAdded} and {@link #donateRemoved} inside their own transaction. Reading a
+ * year of trends touches at most 366 bucket rows, however many donates there are.
+ * <p>
+ * A donate is added to its day with a single upsert in the dialect of the
+ * {@code database} property, so the first two donates of a day cannot both insert the
+ * bucket. H2 and HSQLDB do not lock the missing row during {@code MERGE}; the loser of
+ * that race gets a duplicate key and runs the upsert again, which then updates the row.
+ */
+@Service
+public class DonationRollupService {
+
+	static final int TREND_MONTHS = 12;
+
+	static final int TREND_YEARS = 5;
+
+	private static final Logger logger = LoggerFactory.getLogger(DonationRollupService.class);
+
+	private final DonationBucketRepository buckets;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final String upsertSql;
+
+	private final boolean rebuildOnStartup;
+
+	public DonationRollupService(DonationBucketRepository buckets, JdbcTemplate jdbcTemplate,
+			@Value("${database:h2}") String database,
+			@Value("${petclinic.reports.rollups.rebuild-on-startup:true}") boolean rebuildOnStartup) {
+		this.buckets = buckets;
+		this.jdbcTemplate = jdbcTemplate;
+		this.upsertSql = upsertSql(database);
+		this.rebuildOnStartup = rebuildOnStartup;
+	}
+
+	@Transactional
+	public void donateAdded(Donate donate) {
+		BigDecimal amount = donate.getAmount();
+		add(new DonationRollup(donate.getDate(), 1, amount, amount, amount));
+	}
+
+	/**
+	 * Adds a batch of donates with one bucket update per day instead of one per donate.
+	 */
+	@Transactional
+	public void donatesAdded(Collection<Donate> donates) {
+		Map<LocalDate, DonationRollup> days = new LinkedHashMap<>();
+		for (Donate donate : donates) {
+			BigDecimal amount = donate.getAmount();
+			days.merge(donate.getDate(), new DonationRollup(donate.getDate(), 1, amount, amount, amount),
+					(total, added) -> total.merge(total.period(), added));
+		}
+		days.values().forEach(this::add);
+	}
+
+	/**
+	 * Must be called after the donate has been deleted in the current transaction. When
+	 * the donate was the biggest or smallest of its day, the extremes are recomputed from
+	 * the donates of that single day.
+	 */
+	@Transactional
+	public void donateRemoved(Donate donate) {
+		LocalDate date = donate.getDate();
+		BigDecimal amount = donate.getAmount();
+		this.buckets.subtract(date, amount);
+		if (this.buckets.deleteIfEmpty(date) > 0) {
+			return;
+		}
+		for (DonationRollup day : this.buckets.findBetween(date, date)) {
+			if (amount.compareTo(day.max()) >= 0 || amount.compareTo(day.min()) <= 0) {
+				this.buckets.summarizeDonates(date, date)
+					.forEach(actual -> this.buckets.updateExtremes(date, actual.max(), actual.min()));
+			}
+		}
+	}
+
+	/**
+	 * Daily rollups between {@code from} and {@code to}; days without donates are left
+	 * out.
+	 */
+	@Transactional(readOnly = true)
+	public List<DonationRollup> daily(LocalDate from, LocalDate to) {
+		return this.buckets.findBetween(from, to);
+	}
+
+	/**
+	 * One rollup per month overlapping {@code from}..{@code to}, including empty months.
+	 */
+	@Transactional(readOnly = true)
+	public List<DonationRollup> monthly(LocalDate from, LocalDate to) {
+		return rollUp(from.withDayOfMonth(1), to, day -> day.withDayOfMonth(1), month -> month.plusMonths(1));
+	}
+
+	/**
+	 * One rollup per year overlapping {@code from}..{@code to}, including empty years.
+	 */
+	@Transactional(readOnly = true)
+	public List<DonationRollup> yearly(LocalDate from, LocalDate to) {
+		return rollUp(from.withDayOfYear(1), to, day -> day.withDayOfYear(1), year -> year.plusYears(1));
+	}
+
+	/**
+	 * The trends shown on the reports page: the last {@value #TREND_MONTHS} months and
+	 * the last {@value #TREND_YEARS} years up to {@code today}.
+	 */
+	@Transactional(readOnly = true)
+	public DonationTrends trends(LocalDate today) {
+		return new DonationTrends(monthly(today.minusMonths(TREND_MONTHS - 1), today),
+				yearly(today.minusYears(TREND_YEARS - 1), today));
+	}
+
+	/**
+	 * Replaces all buckets with values computed from the donates table.
+	 * @return the number of daily buckets
+	 */
+	@Transactional
+	public int rebuild() {
+		this.buckets.deleteAll();
+		List<DonationRollup> days = this.buckets.summarizeDonates(ReportAssembler.EARLIEST_DATE,
+				ReportAssembler.LATEST_DATE);
+		days.forEach(day -> this.buckets
+			.save(new DonationBucket(day.period(), day.count(), day.sum(), day.max(), day.min())));
+		logger.info("Donation buckets rebuilt: {} days", days.size());
+		return days.size();
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuildOnStartup() {
+		// the seed scripts insert rows behind the application's back
+		if (this.rebuildOnStartup) {
+			rebuild();
+		}
+	}
+
+	private void add(DonationRollup day) {
+		try {
+			upsert(day);
+		}
+		catch (DuplicateKeyException ex) {
+			// soubezny MERGE den prave zalozil, druhy pokus uz radek najde
+			upsert(day);
+		}
+	}
+
+	private void upsert(DonationRollup day) {
+		this.jdbcTemplate.update(this.upsertSql, day.period(), day.count(), day.sum(), day.max(), day.min());
+	}
+
+	/*
+	 * pricte den do bucketu jednim prikazem; parametry v poradi datum, pocet, suma, max,
+	 * min
+	 */
+	static String upsertSql(String database) {
+		return switch (database) {
+			case "mysql" -> "INSERT INTO donation_buckets "
+					+ "(bucket_date, donation_count, amount_sum, amount_max, amount_min) VALUES (?, ?, ?, ?, ?) "
+					+ "ON DUPLICATE KEY UPDATE donation_count = donation_count + VALUES(donation_count), "
+					+ "amount_sum = amount_sum + VALUES(amount_sum), "
+					+ "amount_max = GREATEST(amount_max, VALUES(amount_max)), "
+					+ "amount_min = LEAST(amount_min, VALUES(amount_min))";
+			case "postgres" -> "INSERT INTO donation_buckets "
+					+ "(bucket_date, donation_count, amount_sum, amount_max, amount_min) VALUES (?, ?, ?, ?, ?) "
+					+ "ON CONFLICT (bucket_date) DO UPDATE SET "
+					+ "donation_count = donation_buckets.donation_count + EXCLUDED.donation_count, "
+					+ "amount_sum = donation_buckets.amount_sum + EXCLUDED.amount_sum, "
+					+ "amount_max = GREATEST(donation_buckets.amount_max, EXCLUDED.amount_max), "
+					+ "amount_min = LEAST(donation_buckets.amount_min, EXCLUDED.amount_min)";
+			default -> "MERGE INTO donation_buckets b USING (VALUES (CAST(? AS DATE), CAST(? AS BIGINT), "
+					+ "CAST(? AS DECIMAL(14,2)), CAST(? AS DECIMAL(12,2)), CAST(? AS DECIMAL(12,2)))) "
+					+ "AS d (bucket_date, donation_count, amount_sum, amount_max, amount_min) "
+					+ "ON b.bucket_date = d.bucket_date WHEN MATCHED THEN UPDATE SET "
+					+ "donation_count = b.donation_count + d.donation_count, amount_sum = b.amount_sum + d.amount_sum, "
+					+ "amount_max = GREATEST(b.amount_max, d.amount_max), amount_min = LEAST(b.amount_min, d.amount_min) "
+					+ "WHEN NOT MATCHED THEN INSERT (bucket_date, donation_count, amount_sum, amount_max, amount_min) "
+					+ "VALUES (d.bucket_date, d.donation_count, d.amount_sum, d.amount_max, d.amount_min)";
+		};
+	}
+
+	/*
+	 * slouci denni bucket do period (mesic, rok), prazdne periody doplni nulami
+	 */
+	private List<DonationRollup> rollUp(LocalDate first, LocalDate to, UnaryOperator<LocalDate> periodOf,
+			UnaryOperator<LocalDate> next) {
+		Map<LocalDate, DonationRollup> periods = new LinkedHashMap<>();
+		for (LocalDate period = first; !period.isAfter(to); period = next.apply(period)) {
+			periods.put(period, DonationRollup.empty(period));
+		}
+		for (DonationRollup day : this.buckets.findBetween(first, to)) {
+			LocalDate period = periodOf.apply(day.period());
+			periods.merge(period, day, (total, added) -> total.merge(period, added));
+		}
+		return new ArrayList<>(periods.values());
+	}
+
+}
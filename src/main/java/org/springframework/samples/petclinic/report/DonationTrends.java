@@ -0,0 +1,26 @@
+package org.springframework.samples.petclinic.report;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * Monthly and yearly donation rollups for the trend charts of the reports page, oldest
+ * first and without gaps.
+ */
+public record DonationTrends(List<DonationRollup> monthly, List<DonationRollup> yearly) {
+
+	private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+	/**
+	 * Height of the bar of {@code rollup} in percent of the biggest month.
+	 */
+	public long percentOfPeak(DonationRollup rollup) {
+		BigDecimal peak = this.monthly.stream().map(DonationRollup::sum).reduce(BigDecimal.ZERO, BigDecimal::max);
+		if (peak.signum() <= 0) {
+			return 0;
+		}
+		return Math.max(0, rollup.sum().multiply(HUNDRED).divide(peak, 0, RoundingMode.DOWN).longValue());
+	}
+
+}
@@ -0,0 +1,29 @@
+package org.springframework.samples.petclinic.report;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.domain.Slice;
+import org.springframework.samples.petclinic.owner.PetVisitSummary;
+
+/**
+ * One slice of the pet visit summaries. The {@code nextBeforeDate}/{@code nextBeforeId}
+ * cursor is {@code null} on the last slice, otherwise it is passed back to
+ * {@code /reports/pet-summaries} to fetch the following one.
+ */
+public record PetSummaryPage(List<PetVisitSummary> summaries, LocalDate nextBeforeDate, Integer nextBeforeId) {
+
+	static PetSummaryPage of(Slice<PetVisitSummary> slice) {
+		List<PetVisitSummary> summaries = slice.getContent();
+		if (!slice.hasNext() || summaries.isEmpty()) {
+			return new PetSummaryPage(summaries, null, null);
+		}
+		PetVisitSummary last = summaries.get(summaries.size() - 1);
+		return new PetSummaryPage(summaries, last.visitDate(), last.visitId());
+	}
+
+	public boolean hasNext() {
+		return this.nextBeforeId != null;
+	}
+
+}
@@ -1,15 +1,29 @@
 package org.springframework.samples.petclinic.report;
 
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 
 public class Report {
 
 	private String numberOfDonates;
+
 	private String sumOfDonates;
+
 	private String biggestDonate;
+
 	private String numberOfOwners;
+
 	private String numberOfPets;
-	private List<Object[]> petSummaries;
+
+	private PetSummaryPage petSummaries;
+
+	private DonationTrends donationTrends;
+
+	private final Map<String, Long> queryTimes = new LinkedHashMap<>();
+
+	private final Set<String> unavailableParts = new LinkedHashSet<>();
 
 	public String getNumberOfDonates() {
 		return numberOfDonates;
@@ -51,12 +65,34 @@ public class Report {
 		this.numberOfPets = numberOfPets;
 	}
 
-	public List<Object[]> getPetSummaries() {
+	public PetSummaryPage getPetSummaries() {
 		return petSummaries;
 	}
 
-	public void setPetSummaries(List<Object[]> petSummaries) {
+	public void setPetSummaries(PetSummaryPage petSummaries) {
 		this.petSummaries = petSummaries;
 	}
 
+	public DonationTrends getDonationTrends() {
+		return donationTrends;
+	}
+
+	public void setDonationTrends(DonationTrends donationTrends) {
+		this.donationTrends = donationTrends;
+	}
+
+	/*
+	 * doba behu jednotlivych dotazu v milisekundach, podle casti reportu
+	 */
+	public Map<String, Long> getQueryTimes() {
+		return queryTimes;
+	}
+
+	/*
+	 * casti reportu, ktere selhaly nebo nestihly timeout
+	 */
+	public Set<String> getUnavailableParts() {
+		return unavailableParts;
+	}
+
 }
@@ -0,0 +1,40 @@
+package org.springframework.samples.petclinic.report;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * A single named figure shown on the reports page (number of donates, biggest donate,
+ * ...). The value is maintained incrementally by {@link ReportAggregateService} so the
+ * page does not have to scan the underlying tables.
+ */
+@Entity
+@Table(name = "report_aggregates")
+public class ReportAggregate {
+
+	@Id
+	@Column(name = "aggregate_name")
+	private String name;
+
+	@Column(name = "aggregate_value")
+	private long value;
+
+	protected ReportAggregate() {
+	}
+
+	public ReportAggregate(String name, long value) {
+		this.name = name;
+		this.value = value;
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	public long getValue() {
+		return this.value;
+	}
+
+}
@@ -0,0 +1,47 @@
+package org.springframework.samples.petclinic.report;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository class for {@link ReportAggregate} rows. The update methods are single
+ * statements, so concurrent writers never lose an increment.
+ */
+public interface ReportAggregateRepository extends Repository<ReportAggregate, String> {
+
+	/**
+	 * Retrieve all aggregates. The constructor expression returns detached copies, so the
+	 * values are read from the database even after a bulk update in the same transaction.
+	 */
+	@Query("SELECT new org.springframework.samples.petclinic.report.ReportAggregate(a.name, a.value) "
+			+ "FROM ReportAggregate a")
+	@Transactional(readOnly = true)
+	List<ReportAggregate> findAll();
+
+	void save(ReportAggregate aggregate);
+
+	@Modifying
+	@Query("UPDATE ReportAggregate a SET a.value = a.value + :delta WHERE a.name = :name")
+	@Transactional
+	int increment(@Param("name") String name, @Param("delta") long delta);
+
+	/**
+	 * Raise the aggregate to the given value unless it is already bigger. Used to keep a
+	 * running maximum.
+	 */
+	@Modifying
+	@Query("UPDATE ReportAggregate a SET a.value = :value WHERE a.name = :name AND a.value < :value")
+	@Transactional
+	int raiseTo(@Param("name") String name, @Param("value") long value);
+
+	@Modifying
+	@Query("UPDATE ReportAggregate a SET a.value = :value WHERE a.name = :name")
+	@Transactional
+	int update(@Param("name") String name, @Param("value") long value);
+
+}
@@ -0,0 +1,193 @@
+package org.springframework.samples.petclinic.report;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.samples.petclinic.donates.Donate;
+import org.springframework.samples.petclinic.donates.DonateRepository;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Keeps the figures of the reports page in the {@code report_aggregates} table, so
+ * rendering the page reads a handful of rows instead of scanning the donates, owners and
+ * pets tables.
+ * <p>
+ * The write paths call the {@code ...Added}/{@code ...Removed} methods from inside their
+ * own transaction, so an aggregate is only changed together with the row it counts.
+ * {@link #rebuild()} recomputes everything from the source tables and is used at startup
+ * and by the {@code reportaggregates} actuator endpoint to repair drift.
+ */
+@Service
+public class ReportAggregateService {
+
+	public static final String NUMBER_OF_DONATES = "donates.count";
+
+	/*
+	 * castky jsou ulozene v centech, tabulka agregaci drzi jen cela cisla
+	 */
+	public static final String SUM_OF_DONATES = "donates.sum";
+
+	public static final String BIGGEST_DONATE = "donates.max";
+
+	public static final String NUMBER_OF_OWNERS = "owners.count";
+
+	public static final String NUMBER_OF_PETS = "pets.count";
+
+	private static final List<String> NAMES = List.of(NUMBER_OF_DONATES, SUM_OF_DONATES, BIGGEST_DONATE,
+			NUMBER_OF_OWNERS, NUMBER_OF_PETS);
+
+	private static final Logger logger = LoggerFactory.getLogger(ReportAggregateService.class);
+
+	private final ReportAggregateRepository aggregates;
+
+	private final DonateRepository donates;
+
+	private final OwnerRepository owners;
+
+	private final boolean rebuildOnStartup;
+
+	public ReportAggregateService(ReportAggregateRepository aggregates, DonateRepository donates,
+			OwnerRepository owners,
+			@Value("${petclinic.reports.aggregates.rebuild-on-startup:true}") boolean rebuildOnStartup) {
+		this.aggregates = aggregates;
+		this.donates = donates;
+		this.owners = owners;
+		this.rebuildOnStartup = rebuildOnStartup;
+	}
+
+	@Transactional
+	public void donateAdded(Donate donate) {
+		donatesAdded(List.of(donate));
+	}
+
+	/**
+	 * Adds a batch of donates with the same three updates a single donate takes.
+	 */
+	@Transactional
+	public void donatesAdded(Collection<Donate> donates) {
+		long sum = 0;
+		long max = 0;
+		for (Donate donate : donates) {
+			long amount = amountOf(donate);
+			sum += amount;
+			max = Math.max(max, amount);
+		}
+		increment(NUMBER_OF_DONATES, donates.size());
+		increment(SUM_OF_DONATES, sum);
+		this.aggregates.raiseTo(BIGGEST_DONATE, max);
+	}
+
+	/**
+	 * Must be called after the donate has been deleted in the current transaction. The
+	 * maximum cannot be decremented, so it is recomputed when the biggest donate goes
+	 * away.
+	 */
+	@Transactional
+	public void donateRemoved(Donate donate) {
+		long amount = amountOf(donate);
+		increment(NUMBER_OF_DONATES, -1);
+		increment(SUM_OF_DONATES, -amount);
+		if (amount >= current().get(BIGGEST_DONATE)) {
+			this.aggregates.update(BIGGEST_DONATE, toCents(this.donates.findMaxAmount()));
+		}
+	}
+
+	@Transactional
+	public void ownerAdded() {
+		increment(NUMBER_OF_OWNERS, 1);
+	}
+
+	@Transactional
+	public void petAdded() {
+		increment(NUMBER_OF_PETS, 1);
+	}
+
+	/**
+	 * Returns the stored aggregates; missing rows are reported as zero.
+	 */
+	@Transactional(readOnly = true)
+	public Map<String, Long> current() {
+		Map<String, Long> values = zeros();
+		for (ReportAggregate aggregate : this.aggregates.findAll()) {
+			values.put(aggregate.getName(), aggregate.getValue());
+		}
+		return values;
+	}
+
+	/**
+	 * Computes the aggregates from the source tables. This is the expensive path that the
+	 * stored values replace, so it is only used to rebuild or check for drift.
+	 */
+	@Transactional(readOnly = true)
+	public Map<String, Long> recompute() {
+		Map<String, Long> values = zeros();
+		values.put(NUMBER_OF_DONATES, (long) this.donates.findNumberOfDonates());
+		values.put(SUM_OF_DONATES, toCents(this.donates.calculateTotalAmount()));
+		values.put(BIGGEST_DONATE, toCents(this.donates.findMaxAmount()));
+		values.put(NUMBER_OF_OWNERS, (long) this.owners.findNumberOfOwners());
+		values.put(NUMBER_OF_PETS, (long) this.owners.findNumberOfPets());
+		return values;
+	}
+
+	/**
+	 * Overwrites the stored aggregates with freshly computed values.
+	 * @return the rebuilt values
+	 */
+	@Transactional
+	public Map<String, Long> rebuild() {
+		Map<String, Long> values = recompute();
+		values.forEach((name, value) -> {
+			if (this.aggregates.update(name, value) == 0) {
+				this.aggregates.save(new ReportAggregate(name, value));
+			}
+		});
+		logger.info("Report aggregates rebuilt: {}", values);
+		return values;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuildOnStartup() {
+		// the seed scripts insert rows behind the application's back
+		if (this.rebuildOnStartup) {
+			rebuild();
+		}
+	}
+
+	private void increment(String name, long delta) {
+		if (this.aggregates.increment(name, delta) == 0) {
+			logger.warn("Report aggregate {} is missing, run a rebuild to restore it.", name);
+		}
+	}
+
+	private static long amountOf(Donate donate) {
+		return toCents(donate.getAmount());
+	}
+
+	private static long toCents(BigDecimal amount) {
+		return amount == null ? 0 : amount.movePointRight(2).longValueExact();
+	}
+
+	/**
+	 * Converts a money aggregate back from cents to the amount shown to users.
+	 */
+	public static BigDecimal fromCents(long cents) {
+		return BigDecimal.valueOf(cents, 2);
+	}
+
+	private static Map<String, Long> zeros() {
+		Map<String, Long> values = new LinkedHashMap<>();
+		NAMES.forEach(name -> values.put(name, 0L));
+		return values;
+	}
+
+}
@@ -0,0 +1,42 @@
+package org.springframework.samples.petclinic.report;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint for the report aggregates. A GET on
+ * {@code /actuator/reportaggregates} compares the stored values with the source tables, a
+ * POST rebuilds them.
+ */
+@Component
+@Endpoint(id = "reportaggregates")
+class ReportAggregatesEndpoint {
+
+	private final ReportAggregateService aggregates;
+
+	ReportAggregatesEndpoint(ReportAggregateService aggregates) {
+		this.aggregates = aggregates;
+	}
+
+	@ReadOperation
+	public Map<String, Object> reconcile() {
+		Map<String, Long> stored = this.aggregates.current();
+		Map<String, Long> actual = this.aggregates.recompute();
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("stored", stored);
+		result.put("actual", actual);
+		result.put("drift", !stored.equals(actual));
+		return result;
+	}
+
+	@WriteOperation
+	public Map<String, Long> rebuild() {
+		return this.aggregates.rebuild();
+	}
+
+}
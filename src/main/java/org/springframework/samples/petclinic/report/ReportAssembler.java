@@ -0,0 +1,209 @@
+package org.springframework.samples.petclinic.report;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the {@link Report} shown on the reports page. The independent queries behind the
+ * page ("parts") are sent concurrently, so the page takes as long as the slowest query
+ * instead of the sum of all of them.
+ * <p>
+ * Parts run on virtual threads when the JVM offers them (Java 21+), otherwise on a small
+ * fixed pool; either way at most {@code petclinic.reports.parallelism} queries of all
+ * requests together hold a connection at the same time. A part that fails or does not
+ * finish within {@code petclinic.reports.query-timeout} is left out of the report and
+ * listed in {@link Report#getUnavailableParts()}, the rest of the page still renders. The
+ * duration of every part is recorded in the report and in the
+ * {@code petclinic.report.query} timer, tagged with the part name.
+ */
+@Component
+public class ReportAssembler implements DisposableBean {
+
+	static final String AGGREGATES = "aggregates";
+
+	static final String PET_SUMMARIES = "petSummaries";
+
+	static final String DONATION_TRENDS = "donationTrends";
+
+	/*
+	 * hranice datumoveho okna, pokud neni zadano (rozsah typu DATE v MySQL)
+	 */
+	static final LocalDate EARLIEST_DATE = LocalDate.of(1000, 1, 1);
+
+	static final LocalDate LATEST_DATE = LocalDate.of(9999, 12, 31);
+
+	static final int DEFAULT_PAGE_SIZE = 20;
+
+	static final int MAX_PAGE_SIZE = 100;
+
+	private static final Logger logger = LoggerFactory.getLogger(ReportAssembler.class);
+
+	private final ReportAggregateService reportAggregates;
+
+	private final OwnerRepository owners;
+
+	private final DonationRollupService donationRollups;
+
+	private final MeterRegistry meterRegistry;
+
+	private final Duration queryTimeout;
+
+	private final Semaphore permits;
+
+	private final ExecutorService executor;
+
+	public ReportAssembler(ReportAggregateService reportAggregates, OwnerRepository owners,
+			DonationRollupService donationRollups, ObjectProvider<MeterRegistry> meterRegistry,
+			@Value("${petclinic.reports.query-timeout:2s}") Duration queryTimeout,
+			@Value("${petclinic.reports.parallelism:4}") int parallelism) {
+		this.reportAggregates = reportAggregates;
+		this.owners = owners;
+		this.donationRollups = donationRollups;
+		this.meterRegistry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+		this.queryTimeout = queryTimeout;
+		this.permits = new Semaphore(parallelism);
+		this.executor = newExecutor(parallelism);
+	}
+
+	/**
+	 * Assembles the whole report, running all parts concurrently.
+	 * @param from first visit date of the summaries, or {@code null} for no lower bound
+	 * @param to last visit date of the summaries, or {@code null} for no upper bound
+	 * @param pageSize number of summaries on the first slice
+	 */
+	public Report assemble(LocalDate from, LocalDate to, int pageSize) {
+		Map<String, Future<?>> parts = new LinkedHashMap<>();
+		Map<String, Long> queryTimes = new ConcurrentHashMap<>();
+		parts.put(AGGREGATES, submit(AGGREGATES, queryTimes, this.reportAggregates::current));
+		parts.put(PET_SUMMARIES,
+				submit(PET_SUMMARIES, queryTimes, () -> findPetSummaries(from, to, null, null, pageSize)));
+		parts.put(DONATION_TRENDS,
+				submit(DONATION_TRENDS, queryTimes, () -> this.donationRollups.trends(LocalDate.now())));
+
+		Report report = new Report();
+		long deadline = System.nanoTime() + this.queryTimeout.toNanos();
+		Map<String, Long> aggregates = await(AGGREGATES, parts, deadline, report);
+		if (aggregates != null) {
+			report.setNumberOfDonates(String.valueOf(aggregates.get(ReportAggregateService.NUMBER_OF_DONATES)));
+			report.setBiggestDonate(
+					ReportAggregateService.fromCents(aggregates.get(ReportAggregateService.BIGGEST_DONATE))
+						.toPlainString());
+			report
+				.setSumOfDonates(ReportAggregateService.fromCents(aggregates.get(ReportAggregateService.SUM_OF_DONATES))
+					.toPlainString());
+			report.setNumberOfOwners(String.valueOf(aggregates.get(ReportAggregateService.NUMBER_OF_OWNERS)));
+			report.setNumberOfPets(String.valueOf(aggregates.get(ReportAggregateService.NUMBER_OF_PETS)));
+		}
+		report.setPetSummaries(await(PET_SUMMARIES, parts, deadline, report));
+		report.setDonationTrends(await(DONATION_TRENDS, parts, deadline, report));
+		parts.keySet()
+			.stream()
+			.filter(queryTimes::containsKey)
+			.forEach(part -> report.getQueryTimes().put(part, queryTimes.get(part)));
+		return report;
+	}
+
+	/**
+	 * Loads one slice of the pet visit summaries on the calling thread.
+	 */
+	public PetSummaryPage findPetSummaries(LocalDate from, LocalDate to, LocalDate beforeDate, Integer beforeId,
+			int size) {
+		LocalDate windowFrom = from != null ? from : EARLIEST_DATE;
+		LocalDate windowTo = to != null ? to : LATEST_DATE;
+		// bez kurzoru zaciname za koncem okna, tedy od nejnovejsi navstevy
+		boolean first = beforeDate == null || beforeId == null;
+		PageRequest pageable = PageRequest.of(0, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+		return PetSummaryPage.of(this.owners.findPetVisitSummaries(windowFrom, windowTo, first ? windowTo : beforeDate,
+				first ? Integer.MAX_VALUE : beforeId, pageable));
+	}
+
+	private <T> Future<T> submit(String part, Map<String, Long> queryTimes, Supplier<T> query) {
+		Timer timer = Timer.builder("petclinic.report.query")
+			.description("Time taken by a single query of the reports page")
+			.tag("part", part)
+			.register(this.meterRegistry);
+		return this.executor.submit(() -> {
+			this.permits.acquire();
+			long start = System.nanoTime();
+			try {
+				return query.get();
+			}
+			finally {
+				long elapsed = System.nanoTime() - start;
+				this.permits.release();
+				timer.record(elapsed, TimeUnit.NANOSECONDS);
+				queryTimes.put(part, TimeUnit.NANOSECONDS.toMillis(elapsed));
+			}
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T await(String part, Map<String, Future<?>> parts, long deadline, Report report) {
+		Future<?> future = parts.get(part);
+		try {
+			return (T) future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+		}
+		catch (TimeoutException ex) {
+			future.cancel(true);
+			logger.warn("Report part {} did not finish within {}, rendering without it.", part, this.queryTimeout);
+		}
+		catch (ExecutionException | CancellationException ex) {
+			logger.error("Report part {} failed, rendering without it.", part, ex);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		report.getUnavailableParts().add(part);
+		return null;
+	}
+
+	@Override
+	public void destroy() {
+		this.executor.shutdownNow();
+	}
+
+	/*
+	 * na Jave 21+ pouzijeme virtualni vlakna, jinak maly pevny pool
+	 */
+	private static ExecutorService newExecutor(int parallelism) {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		}
+		catch (ReflectiveOperationException ex) {
+			AtomicInteger threads = new AtomicInteger();
+			return Executors.newFixedThreadPool(parallelism, task -> {
+				Thread thread = new Thread(task, "report-" + threads.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+}
@@ -1,35 +1,59 @@
 package org.springframework.samples.petclinic.report;
 
-import org.springframework.samples.petclinic.donates.DonateRepository;
-import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 
-import java.util.List;
+import java.time.LocalDate;
 
 @Controller
 public class ReportController {
 
-	private final DonateRepository donateRepository;
-	private final OwnerRepository ownerRepository;
+	private final ReportAssembler reportAssembler;
 
-	public ReportController(DonateRepository donateRepository, OwnerRepository ownerRepository) {
-		this.donateRepository = donateRepository;
-		this.ownerRepository = ownerRepository;
+	private final ReportSnapshotCache reportSnapshots;
+
+	public ReportController(ReportAssembler reportAssembler, ReportSnapshotCache reportSnapshots) {
+		this.reportAssembler = reportAssembler;
+		this.reportSnapshots = reportSnapshots;
 	}
 
 	@GetMapping("/reports.html")
-	public String showReports(Model model) {
-		Report report = new Report();
-		report.setNumberOfDonates(String.valueOf(donateRepository.findNumberOfDonates()));
-		report.setBiggestDonate(String.valueOf(donateRepository.findMaxAmount()));
-		report.setSumOfDonates(String.valueOf(donateRepository.calculateTotalAmount()));
-		report.setNumberOfOwners(String.valueOf(ownerRepository.findNumberOfOwners()));
-		report.setNumberOfPets(String.valueOf(ownerRepository.findNumberOfPets()));
-		report.setPetSummaries(ownerRepository.findPetSummaries());
-		model.addAttribute("report", report);
+	public String showReports(
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to, Model model) {
+		// jen prvni stranka souhrnu, dalsi si stranka dotahne pres /reports/pet-summaries
+		if (from == null && to == null) {
+			// nefiltrovana stranka se bere z posledniho snapshotu, i kdyz uz je trochu
+			// stary
+			ReportSnapshot snapshot = reportSnapshots.get();
+			model.addAttribute("report", snapshot.report());
+			model.addAttribute("snapshotAge", snapshot.age().toSeconds());
+		}
+		else {
+			model.addAttribute("report", reportAssembler.assemble(from, to, ReportAssembler.DEFAULT_PAGE_SIZE));
+		}
+		model.addAttribute("from", from);
+		model.addAttribute("to", to);
 		return "reports/reports";
 	}
 
+	/**
+	 * Returns one slice of the pet visit summaries as JSON, newest first. The cursor of
+	 * the returned page is passed back as {@code beforeDate}/{@code beforeId} to
+	 * continue.
+	 */
+	@GetMapping("/reports/pet-summaries")
+	public @ResponseBody PetSummaryPage showPetSummaries(
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate beforeDate,
+			@RequestParam(required = false) Integer beforeId,
+			@RequestParam(defaultValue = "" + ReportAssembler.DEFAULT_PAGE_SIZE) int size) {
+		return reportAssembler.findPetSummaries(from, to, beforeDate, beforeId, size);
+	}
+
 }
@@ -0,0 +1,125 @@
+package org.springframework.samples.petclinic.report;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.samples.petclinic.donates.DonateRepository;
+import org.springframework.samples.petclinic.donates.DonateRow;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.PetVisitSummary;
+import org.springframework.samples.petclinic.system.AcceptEncoding;
+import org.springframework.stereotype.Controller;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Machine readable exports of the report data. Rows are streamed from a database cursor
+ * straight to the response, so memory use stays flat however many rows there are, and the
+ * first bytes go out before the last row is read.
+ * <p>
+ * Both exports are ordered oldest first and take an inclusive {@code from}/{@code to}
+ * date range. An interrupted download is resumed by passing the date and id of the last
+ * row received as {@code from} and {@code afterId}. The response is gzip compressed when
+ * the client accepts it.
+ */
+@Controller
+class ReportExportController {
+
+	private final OwnerRepository owners;
+
+	private final DonateRepository donates;
+
+	private final ObjectWriter jsonWriter;
+
+	ReportExportController(OwnerRepository owners, DonateRepository donates, ObjectMapper objectMapper) {
+		this.owners = owners;
+		this.donates = donates;
+		this.jsonWriter = objectMapper.writer();
+	}
+
+	@GetMapping("/reports/pet-summaries.csv")
+	@Transactional(readOnly = true)
+	public void exportPetSummaries(
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			@RequestParam(defaultValue = "0") int afterId,
+			@RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+			HttpServletResponse response) throws IOException {
+		response.setContentType("text/csv;charset=UTF-8");
+		try (Stream<PetVisitSummary> rows = this.owners.streamPetVisitSummaries(lowerBound(from), upperBound(to),
+				afterId); Writer writer = open(response, acceptEncoding)) {
+			writer.write("visit_id,visit_date,pet_name,pet_type\n");
+			for (Iterator<PetVisitSummary> it = rows.iterator(); it.hasNext();) {
+				PetVisitSummary row = it.next();
+				writer.write(row.visitId() + "," + row.visitDate() + "," + csv(row.petName()) + ","
+						+ csv(row.petTypeName()) + "\n");
+			}
+		}
+	}
+
+	@GetMapping("/reports/donates.ndjson")
+	@Transactional(readOnly = true)
+	public void exportDonates(
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			@RequestParam(defaultValue = "0") int afterId,
+			@RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+			HttpServletResponse response) throws IOException {
+		response.setContentType("application/x-ndjson;charset=UTF-8");
+		try (Stream<DonateRow> rows = this.donates.streamDonates(lowerBound(from), upperBound(to), afterId);
+				Writer writer = open(response, acceptEncoding)) {
+			for (Iterator<DonateRow> it = rows.iterator(); it.hasNext();) {
+				writer.write(this.jsonWriter.writeValueAsString(it.next()));
+				writer.write('\n');
+			}
+		}
+	}
+
+	private static Writer open(HttpServletResponse response, String acceptEncoding) throws IOException {
+		response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		OutputStream out = response.getOutputStream();
+		if (AcceptEncoding.acceptsGzip(acceptEncoding)) {
+			response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+			out = new GZIPOutputStream(out, 8192);
+		}
+		return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+	}
+
+	private static LocalDate lowerBound(LocalDate from) {
+		return from != null ? from : ReportAssembler.EARLIEST_DATE;
+	}
+
+	private static LocalDate upperBound(LocalDate to) {
+		return to != null ? to : ReportAssembler.LATEST_DATE;
+	}
+
+	/*
+	 * hodnoty s carkou, uvozovkou nebo koncem radku se uzavrou do uvozovek (RFC 4180)
+	 */
+	private static String csv(String value) {
+		if (value == null) {
+			return "";
+		}
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+}
@@ -0,0 +1,16 @@
+package org.springframework.samples.petclinic.report;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A completed {@link Report} together with the moment it was assembled. The report must
+ * not be modified once it is part of a snapshot, as it is shared between requests.
+ */
+public record ReportSnapshot(Report report, Instant createdAt) {
+
+	public Duration age() {
+		return Duration.between(this.createdAt, Instant.now());
+	}
+
+}
@@ -0,0 +1,109 @@
+package org.springframework.samples.petclinic.report;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the last completed {@link ReportSnapshot} of the (unfiltered) reports page.
+ * <p>
+ * Readers never wait for the database once the first snapshot exists: a snapshot older
+ * than {@code petclinic.reports.snapshot-ttl} is still returned, and a single background
+ * thread rebuilds it in the meantime (stale-while-revalidate). Concurrent readers of a
+ * stale snapshot trigger one rebuild, not one each. Only the very first request, before
+ * any snapshot exists, assembles the report on its own thread.
+ */
+@Component
+public class ReportSnapshotCache implements DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReportSnapshotCache.class);
+
+	private final ReportAssembler reportAssembler;
+
+	private final Duration ttl;
+
+	private final AtomicReference<ReportSnapshot> snapshot = new AtomicReference<>();
+
+	private final AtomicBoolean refreshing = new AtomicBoolean();
+
+	private final ExecutorService refresher = Executors.newSingleThreadExecutor(task -> {
+		Thread thread = new Thread(task, "report-snapshot");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public ReportSnapshotCache(ReportAssembler reportAssembler,
+			@Value("${petclinic.reports.snapshot-ttl:30s}") Duration ttl) {
+		this.reportAssembler = reportAssembler;
+		this.ttl = ttl;
+	}
+
+	/**
+	 * Returns the last completed snapshot, scheduling a background rebuild when it is
+	 * older than the TTL.
+	 */
+	public ReportSnapshot get() {
+		ReportSnapshot current = this.snapshot.get();
+		if (current == null) {
+			synchronized (this) {
+				current = this.snapshot.get();
+				if (current == null) {
+					current = refresh();
+				}
+			}
+		}
+		else if (current.age().compareTo(this.ttl) > 0) {
+			refreshInBackground();
+		}
+		return current;
+	}
+
+	/**
+	 * Rebuilds the snapshot on the calling thread. A report with unavailable parts only
+	 * replaces the current snapshot if there is none yet, so a slow query does not wipe
+	 * out figures that were complete.
+	 * @return the snapshot readers get from now on
+	 */
+	public synchronized ReportSnapshot refresh() {
+		Report report = this.reportAssembler.assemble(null, null, ReportAssembler.DEFAULT_PAGE_SIZE);
+		ReportSnapshot current = this.snapshot.get();
+		if (!report.getUnavailableParts().isEmpty() && current != null) {
+			logger.warn("Report snapshot not refreshed, parts {} are unavailable.", report.getUnavailableParts());
+			return current;
+		}
+		ReportSnapshot fresh = new ReportSnapshot(report, Instant.now());
+		this.snapshot.set(fresh);
+		return fresh;
+	}
+
+	private void refreshInBackground() {
+		if (this.refreshing.compareAndSet(false, true)) {
+			this.refresher.execute(() -> {
+				try {
+					refresh();
+				}
+				catch (RuntimeException ex) {
+					logger.error("Report snapshot refresh failed, keeping the previous one.", ex);
+				}
+				finally {
+					this.refreshing.set(false);
+				}
+			});
+		}
+	}
+
+	@Override
+	public void destroy() {
+		this.refresher.shutdownNow();
+	}
+
+}
@@ -0,0 +1,45 @@
+package org.springframework.samples.petclinic.report;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint for the reports page snapshot. A GET on
+ * {@code /actuator/reportsnapshot} shows how old the snapshot is, a POST rebuilds it
+ * right away.
+ */
+@Component
+@Endpoint(id = "reportsnapshot")
+class ReportSnapshotEndpoint {
+
+	private final ReportSnapshotCache snapshots;
+
+	ReportSnapshotEndpoint(ReportSnapshotCache snapshots) {
+		this.snapshots = snapshots;
+	}
+
+	@ReadOperation
+	public Map<String, Object> snapshot() {
+		return describe(this.snapshots.get());
+	}
+
+	@WriteOperation
+	public Map<String, Object> refresh() {
+		return describe(this.snapshots.refresh());
+	}
+
+	private static Map<String, Object> describe(ReportSnapshot snapshot) {
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("createdAt", snapshot.createdAt());
+		result.put("ageSeconds", snapshot.age().toSeconds());
+		result.put("unavailableParts", snapshot.report().getUnavailableParts());
+		result.put("queryTimes", snapshot.report().getQueryTimes());
+		return result;
+	}
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.util.Locale;
+
+/**
+ * Reads the {@code Accept-Encoding} request header for the controllers that compress
+ * their responses themselves.
+ */
+public final class AcceptEncoding {
+
+	private AcceptEncoding() {
+	}
+
+	/*
+	 * prijme klient gzip? rozhoduje gzip (x-gzip) s q > 0, pokud neni uveden tak *,
+	 * "gzip;q=0" gzip odmita
+	 */
+	public static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		Boolean gzip = null;
+		Boolean any = null;
+		for (String element : acceptEncoding.split(",")) {
+			String[] parts = element.split(";");
+			String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+			boolean accepted = true;
+			for (int i = 1; i < parts.length; i++) {
+				String parameter = parts[i].trim();
+				if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+					try {
+						accepted = Double.parseDouble(parameter.substring(2).trim()) > 0;
+					}
+					catch (NumberFormatException ex) {
+						accepted = false;
+					}
+				}
+			}
+			if (coding.equals("gzip") || coding.equals("x-gzip")) {
+				gzip = accepted;
+			}
+			else if (coding.equals("*")) {
+				any = accepted;
+			}
+		}
+		return (gzip != null) ? gzip : Boolean.TRUE.equals(any);
+	}
+
+}
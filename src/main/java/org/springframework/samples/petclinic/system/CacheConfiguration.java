@@ -16,25 +16,104 @@
 
 package org.springframework.samples.petclinic.system;
 
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 import javax.cache.configuration.MutableConfiguration;
+import javax.cache.expiry.CreatedExpiryPolicy;
 
 /**
- * Cache configuration intended for caches providing the JCache API. This configuration
- * creates the used cache for the application and enables statistics that become
- * accessible via JMX.
+ * Cache configuration for the caches used by the application. Every cache is created
+ * explicitly with its own limits, whichever cache provider Spring Boot picks: the JCache
+ * customizer applies when a JCache provider is on the classpath, the Caffeine one when
+ * Caffeine is used directly.
+ * <p>
+ * The Hibernate second-level and query caches are configured here too. Each region takes
+ * its limits from {@code petclinic.cache.hibernate.<region>.max-size} and {@code .ttl},
+ * falling back to {@code petclinic.cache.hibernate.default.*}; a ttl of zero keeps
+ * entries until a write or the size limit evicts them.
  */
 @Configuration(proxyBeanMethods = false)
 @EnableCaching
 class CacheConfiguration {
 
+	private final long vetsMaxSize;
+
+	private final long donatesMaxSize;
+
+	private final Duration donatesTtl;
+
+	private final boolean hibernateCacheEnabled;
+
+	CacheConfiguration(@Value("${petclinic.cache.vets.max-size:1000}") long vetsMaxSize,
+			@Value("${petclinic.cache.donates.max-size:500}") long donatesMaxSize,
+			@Value("${petclinic.cache.donates.ttl:10m}") Duration donatesTtl,
+			@Value("${petclinic.cache.hibernate.enabled:true}") boolean hibernateCacheEnabled) {
+		this.vetsMaxSize = vetsMaxSize;
+		this.donatesMaxSize = donatesMaxSize;
+		this.donatesTtl = donatesTtl;
+		this.hibernateCacheEnabled = hibernateCacheEnabled;
+	}
+
 	@Bean
 	public JCacheManagerCustomizer petclinicCacheConfigurationCustomizer() {
-		return cm -> cm.createCache("vets", cacheConfiguration());
+		return cm -> {
+			cm.createCache("vets", cacheConfiguration());
+			cm.createCache("donates", cacheConfiguration().setExpiryPolicyFactory(CreatedExpiryPolicy
+				.factoryOf(new javax.cache.expiry.Duration(TimeUnit.MILLISECONDS, this.donatesTtl.toMillis()))));
+		};
+	}
+
+	@Bean
+	public CacheManagerCustomizer<CaffeineCacheManager> petclinicCaffeineCacheCustomizer() {
+		return cm -> {
+			cm.registerCustomCache("vets", Caffeine.newBuilder().maximumSize(this.vetsMaxSize).recordStats().build());
+			cm.registerCustomCache("donates",
+					Caffeine.newBuilder()
+						.maximumSize(this.donatesMaxSize)
+						.expireAfterWrite(this.donatesTtl)
+						.recordStats()
+						.build());
+		};
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer petclinicHibernateCacheCustomizer(Environment environment) {
+		return properties -> {
+			if (!this.hibernateCacheEnabled) {
+				properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, false);
+				return;
+			}
+			properties.put(AvailableSettings.CACHE_REGION_FACTORY,
+					new CaffeineRegionFactory(region -> hibernateRegion(environment, region)));
+			properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+			properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+			// region hits and misses are reported by the hibernatecache actuator endpoint
+			properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+		};
+	}
+
+	private static Caffeine<Object, Object> hibernateRegion(Environment environment, String region) {
+		String prefix = "petclinic.cache.hibernate.";
+		long maxSize = environment.getProperty(prefix + region + ".max-size", Long.class,
+				environment.getProperty(prefix + "default.max-size", Long.class, 1000L));
+		Duration ttl = environment.getProperty(prefix + region + ".ttl", Duration.class,
+				environment.getProperty(prefix + "default.ttl", Duration.class, Duration.ofMinutes(10)));
+		Caffeine<Object, Object> builder = Caffeine.newBuilder().maximumSize(maxSize);
+		return ttl.isZero() ? builder : builder.expireAfterWrite(ttl);
 	}
 
 	/**
@@ -46,7 +125,7 @@ class CacheConfiguration {
 	 * configuration options (like the size limit) must be set via a configuration
 	 * mechanism that is provided by the selected JCache implementation.
 	 */
-	private javax.cache.configuration.Configuration<Object, Object> cacheConfiguration() {
+	private MutableConfiguration<Object, Object> cacheConfiguration() {
 		return new MutableConfiguration<>().setStatisticsEnabled(true);
 	}
 
@@ -0,0 +1,100 @@
+package org.springframework.samples.petclinic.system;
+
+import java.util.Map;
+import java.util.function.Function;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Hibernate second-level cache regions kept in Caffeine caches. Hibernate takes care of
+ * the access strategies, locking and invalidation; this factory only provides the storage
+ * of every region, sized and expired as the {@code regionSettings} function says for the
+ * region name.
+ * <p>
+ * The update timestamps region is never bounded nor expired: dropping a timestamp could
+ * make a stale query result look current.
+ */
+public class CaffeineRegionFactory extends RegionFactoryTemplate {
+
+	private final Function<String, Caffeine<Object, Object>> regionSettings;
+
+	public CaffeineRegionFactory(Function<String, Caffeine<Object, Object>> regionSettings) {
+		this.regionSettings = regionSettings;
+	}
+
+	@Override
+	protected void prepareForUse(SessionFactoryOptions settings, Map<String, Object> configValues) {
+	}
+
+	@Override
+	protected void releaseFromUse() {
+	}
+
+	@Override
+	protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+			DomainDataRegionBuildingContext buildingContext) {
+		return new CaffeineStorageAccess(this.regionSettings.apply(regionConfig.getRegionName()).build());
+	}
+
+	@Override
+	protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+			SessionFactoryImplementor sessionFactory) {
+		return new CaffeineStorageAccess(this.regionSettings.apply(regionName).build());
+	}
+
+	@Override
+	protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+			SessionFactoryImplementor sessionFactory) {
+		return new CaffeineStorageAccess(Caffeine.newBuilder().build());
+	}
+
+	private record CaffeineStorageAccess(Cache<Object, Object> cache) implements DomainDataStorageAccess {
+
+		@Override
+		public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+			return this.cache.getIfPresent(key);
+		}
+
+		@Override
+		public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+			if (value == null) {
+				this.cache.invalidate(key);
+			}
+			else {
+				this.cache.put(key, value);
+			}
+		}
+
+		@Override
+		public boolean contains(Object key) {
+			return this.cache.asMap().containsKey(key);
+		}
+
+		@Override
+		public void evictData() {
+			this.cache.invalidateAll();
+		}
+
+		@Override
+		public void evictData(Object key) {
+			this.cache.invalidate(key);
+		}
+
+		@Override
+		public void release() {
+			this.cache.invalidateAll();
+		}
+
+	}
+
+}
@@ -0,0 +1,90 @@
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Routes read-only transactions to read replicas when
+ * {@code petclinic.datasource.routing.enabled} is set, see
+ * {@link ReadWriteRoutingDataSource}.
+ * <p>
+ * The primary pool is built from the usual {@code spring.datasource.*} properties, the
+ * replicas from the comma separated JDBC urls in {@code petclinic.datasource.replicas}.
+ * Each replica gets the driver that matches its own url, unless
+ * {@code petclinic.datasource.replica-driver-class-name} names one. Hibernate releases
+ * its connection after every transaction instead of holding it for the whole session:
+ * with open-in-view a request would otherwise keep using the connection of its first
+ * transaction, and a write following a read would reach the replica.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "petclinic.datasource.routing.enabled", havingValue = "true")
+class DataSourceRoutingConfiguration {
+
+	@Bean(destroyMethod = "close")
+	ReadWriteRoutingDataSource readWriteRoutingDataSource(DataSourceProperties properties,
+			@Value("${petclinic.datasource.replicas:}") List<String> replicaUrls,
+			@Value("${petclinic.datasource.replica-username:${spring.datasource.username:}}") String username,
+			@Value("${petclinic.datasource.replica-password:${spring.datasource.password:}}") String password,
+			@Value("${petclinic.datasource.replica-driver-class-name:}") String driverClassName,
+			@Value("${petclinic.datasource.replica-lag-query:}") String lagQuery,
+			@Value("${petclinic.datasource.replica-max-lag:5s}") Duration maxLag,
+			@Value("${petclinic.datasource.replica-check-interval:5s}") Duration checkInterval) {
+		HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		primary.setPoolName("primary");
+		List<DataSource> replicas = new ArrayList<>();
+		for (String url : replicaUrls) {
+			if (!StringUtils.hasText(url)) {
+				continue;
+			}
+			DataSourceBuilder<HikariDataSource> builder = DataSourceBuilder.create()
+				.type(HikariDataSource.class)
+				.url(url.trim())
+				.username(username)
+				.password(password);
+			// without an explicit driver the builder derives it from the url
+			if (StringUtils.hasText(driverClassName)) {
+				builder.driverClassName(driverClassName);
+			}
+			HikariDataSource replica = builder.build();
+			replica.setPoolName("replica-" + (replicas.size() + 1));
+			// a replica that is down should fail over to the primary quickly
+			replica.setConnectionTimeout(1000);
+			replicas.add(replica);
+		}
+		ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replicas, lagQuery, maxLag,
+				checkInterval);
+		routing.start();
+		return routing;
+	}
+
+	@Bean
+	@Primary
+	DataSource dataSource(ReadWriteRoutingDataSource routing) {
+		return new LazyConnectionDataSourceProxy(routing);
+	}
+
+	@Bean
+	HibernatePropertiesCustomizer petclinicRoutingHibernateCustomizer() {
+		return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+				PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+	}
+
+}
@@ -0,0 +1,62 @@
+package org.springframework.samples.petclinic.system;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Actuator endpoint for the Hibernate second-level cache. A GET on
+ * {@code /actuator/hibernatecache} lists the hits, misses and puts of every cache region
+ * and of the query cache.
+ */
+@Component
+@Endpoint(id = "hibernatecache")
+class HibernateCacheEndpoint {
+
+	private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+	HibernateCacheEndpoint(ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+		this.entityManagerFactory = entityManagerFactory;
+	}
+
+	@ReadOperation
+	public Map<String, Object> statistics() {
+		Map<String, Object> result = new LinkedHashMap<>();
+		EntityManagerFactory factory = this.entityManagerFactory.getIfAvailable();
+		Statistics statistics = factory == null ? null : factory.unwrap(SessionFactory.class).getStatistics();
+		result.put("enabled", statistics != null && statistics.isStatisticsEnabled());
+		if (statistics == null) {
+			return result;
+		}
+		Map<String, Object> regions = new TreeMap<>();
+		for (String name : statistics.getSecondLevelCacheRegionNames()) {
+			CacheRegionStatistics region = statistics.getCacheRegionStatistics(name);
+			if (region != null) {
+				regions.put(name, counts(region.getHitCount(), region.getMissCount(), region.getPutCount()));
+			}
+		}
+		result.put("regions", regions);
+		result.put("queries", counts(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(),
+				statistics.getQueryCachePutCount()));
+		return result;
+	}
+
+	private static Map<String, Long> counts(long hits, long misses, long puts) {
+		Map<String, Long> counts = new LinkedHashMap<>();
+		counts.put("hits", hits);
+		counts.put("misses", misses);
+		counts.put("puts", puts);
+		return counts;
+	}
+
+}
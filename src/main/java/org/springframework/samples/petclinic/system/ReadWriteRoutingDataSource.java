@@ -0,0 +1,219 @@
+package org.springframework.samples.petclinic.system;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+/**
+ * Sends the connections of read-only transactions to read replicas and everything else to
+ * the primary database.
+ * <p>
+ * Read-only transactions are spread over the replicas round robin. Each replica is
+ * checked every {@code checkInterval}: one that cannot be reached, or whose replication
+ * lag (as reported by {@code lagQuery}, in seconds) exceeds {@code maxLag}, is skipped
+ * until a later check finds it healthy again. A replica that fails to hand out a
+ * connection is skipped right away. When no replica is usable, reads go to the primary.
+ * <p>
+ * The read-only flag is only known once the transaction has started, so this data source
+ * has to be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} that asks for
+ * the connection on the first statement.
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+	private final DataSource primary;
+
+	private final List<Replica> replicas;
+
+	private final String lagQuery;
+
+	private final Duration maxLag;
+
+	private final Duration checkInterval;
+
+	private final AtomicInteger next = new AtomicInteger();
+
+	private ScheduledExecutorService checker;
+
+	public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas, String lagQuery, Duration maxLag,
+			Duration checkInterval) {
+		this.primary = primary;
+		this.replicas = replicas.stream().map(Replica::new).toList();
+		this.lagQuery = lagQuery;
+		this.maxLag = maxLag;
+		this.checkInterval = checkInterval;
+	}
+
+	/**
+	 * Checks the replicas once and then every {@code checkInterval} in the background.
+	 */
+	public synchronized void start() {
+		checkReplicas();
+		if (this.checker == null && !this.replicas.isEmpty()) {
+			this.checker = Executors.newSingleThreadScheduledExecutor(task -> {
+				Thread thread = new Thread(task, "replica-check");
+				thread.setDaemon(true);
+				return thread;
+			});
+			long interval = this.checkInterval.toMillis();
+			this.checker.scheduleWithFixedDelay(this::checkReplicas, interval, interval, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Stops the replica checks and closes the primary and replica pools.
+	 */
+	@Override
+	public synchronized void close() {
+		if (this.checker != null) {
+			this.checker.shutdownNow();
+			this.checker = null;
+		}
+		for (Replica replica : this.replicas) {
+			closePool(replica.dataSource);
+		}
+		closePool(this.primary);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			for (Replica replica = nextReplica(); replica != null; replica = nextReplica()) {
+				try {
+					return replica.dataSource.getConnection();
+				}
+				catch (SQLException ex) {
+					replica.down(ex);
+				}
+			}
+		}
+		return this.primary.getConnection();
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			for (Replica replica = nextReplica(); replica != null; replica = nextReplica()) {
+				try {
+					return replica.dataSource.getConnection(username, password);
+				}
+				catch (SQLException ex) {
+					replica.down(ex);
+				}
+			}
+		}
+		return this.primary.getConnection(username, password);
+	}
+
+	/**
+	 * Checks every replica now: reachable and within the allowed lag.
+	 */
+	public void checkReplicas() {
+		for (Replica replica : this.replicas) {
+			try (Connection connection = replica.dataSource.getConnection()) {
+				long lag = lagSeconds(connection);
+				if (lag > this.maxLag.toSeconds()) {
+					replica.lagging(lag);
+				}
+				else {
+					replica.up();
+				}
+			}
+			catch (SQLException ex) {
+				replica.down(ex);
+			}
+		}
+	}
+
+	/**
+	 * Number of replicas currently used for reads.
+	 */
+	public int healthyReplicas() {
+		return (int) this.replicas.stream().filter(replica -> replica.healthy).count();
+	}
+
+	private Replica nextReplica() {
+		int size = this.replicas.size();
+		int start = this.next.getAndIncrement();
+		for (int i = 0; i < size; i++) {
+			Replica replica = this.replicas.get(Math.floorMod(start + i, size));
+			if (replica.healthy) {
+				return replica;
+			}
+		}
+		return null;
+	}
+
+	private static void closePool(DataSource dataSource) {
+		if (dataSource instanceof AutoCloseable pool) {
+			try {
+				pool.close();
+			}
+			catch (Exception ex) {
+				logger.warn("Could not close {}", dataSource, ex);
+			}
+		}
+	}
+
+	private long lagSeconds(Connection connection) throws SQLException {
+		if (!StringUtils.hasText(this.lagQuery)) {
+			return 0;
+		}
+		try (Statement statement = connection.createStatement();
+				ResultSet result = statement.executeQuery(this.lagQuery)) {
+			return result.next() ? (long) Math.ceil(result.getDouble(1)) : 0;
+		}
+	}
+
+	private static final class Replica {
+
+		private final DataSource dataSource;
+
+		private volatile boolean healthy = true;
+
+		private Replica(DataSource dataSource) {
+			this.dataSource = dataSource;
+		}
+
+		void up() {
+			if (!this.healthy) {
+				logger.info("Read replica {} is back, sending reads to it again.", this.dataSource);
+			}
+			this.healthy = true;
+		}
+
+		void down(SQLException ex) {
+			if (this.healthy) {
+				logger.warn("Read replica {} failed, sending its reads elsewhere: {}", this.dataSource,
+						ex.getMessage());
+			}
+			this.healthy = false;
+		}
+
+		void lagging(long lag) {
+			if (this.healthy) {
+				logger.warn("Read replica {} is {}s behind, sending its reads elsewhere.", this.dataSource, lag);
+			}
+			this.healthy = false;
+		}
+
+	}
+
+}
@@ -0,0 +1,166 @@
+package org.springframework.samples.petclinic.system;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.EntityManager;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+
+/**
+ * Writes a resource list such as {@code Vets} or {@code Donates} straight from a
+ * repository stream, one element at a time, instead of collecting the whole table into
+ * the wrapper first. The documents look exactly like a serialized wrapper, so clients see
+ * no difference, but memory use stays flat and the first element goes out while the rest
+ * is still being read. No content length is set, so the servlet container uses chunked
+ * transfer encoding.
+ * <p>
+ * Elements are detached from the persistence context once written. The stream has to be
+ * consumed inside a read-only transaction.
+ */
+@Component
+public class ResourceStreamWriter {
+
+	private final ObjectMapper objectMapper;
+
+	private final ObjectWriter elementWriter;
+
+	private final EntityManager entityManager;
+
+	private final XMLOutputFactory xmlOutputFactory = XMLOutputFactory.newFactory();
+
+	private final Map<Class<?>, JAXBContext> jaxbContexts = new ConcurrentHashMap<>();
+
+	public ResourceStreamWriter(ObjectMapper objectMapper, ObjectProvider<EntityManager> entityManager) {
+		this.objectMapper = objectMapper;
+		// flush po kazdem prvku by z odpovedi udelal spoustu malych chunku
+		this.elementWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		// mimo JPA (napr. testy webove vrstvy) neni co odpojovat
+		this.entityManager = entityManager.getIfAvailable();
+	}
+
+	/**
+	 * Writes {@code {"<listName>": [...]}}, as Jackson would write the wrapper.
+	 */
+	public void writeJson(HttpServletResponse response, String listName, Stream<?> elements) throws IOException {
+		// json je vzdy v UTF-8, charset se neuvadi
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		writeJson(open(response), listName, elements);
+	}
+
+	/**
+	 * Writes the same JSON document to {@code out} and closes it.
+	 */
+	public void writeJson(OutputStream out, String listName, Stream<?> elements) throws IOException {
+		try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(out)) {
+			generator.writeStartObject();
+			generator.writeArrayFieldStart(listName);
+			for (Iterator<?> it = elements.iterator(); it.hasNext();) {
+				Object element = it.next();
+				this.elementWriter.writeValue(generator, element);
+				detach(element);
+			}
+			generator.writeEndArray();
+			generator.writeEndObject();
+		}
+	}
+
+	/**
+	 * Writes the XML document JAXB would produce for the wrapper: the root element of
+	 * {@code wrapperType} containing one {@code <listName>} element per stream element.
+	 */
+	public <T> void writeXml(HttpServletResponse response, Class<?> wrapperType, String listName, Class<T> elementType,
+			Stream<T> elements) throws IOException {
+		response.setContentType(MediaType.APPLICATION_XML_VALUE);
+		response.setCharacterEncoding("UTF-8");
+		writeXml(open(response), wrapperType, listName, elementType, elements);
+	}
+
+	/**
+	 * Writes the same XML document to {@code out}, in UTF-8, and closes it.
+	 */
+	public <T> void writeXml(OutputStream target, Class<?> wrapperType, String listName, Class<T> elementType,
+			Stream<T> elements) throws IOException {
+		try (OutputStream out = target) {
+			JAXBContext context = this.jaxbContexts.computeIfAbsent(wrapperType, ResourceStreamWriter::newContext);
+			QName root = context.createJAXBIntrospector().getElementName(newInstance(wrapperType));
+			Marshaller marshaller = context.createMarshaller();
+			marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+			XMLStreamWriter writer = this.xmlOutputFactory.createXMLStreamWriter(out, "UTF-8");
+			writer.writeStartDocument("UTF-8", "1.0");
+			writer.writeStartElement(root.getPrefix(), root.getLocalPart(), root.getNamespaceURI());
+			QName item = new QName(root.getNamespaceURI(), listName);
+			for (Iterator<T> it = elements.iterator(); it.hasNext();) {
+				T element = it.next();
+				marshaller.marshal(new JAXBElement<>(item, elementType, element), writer);
+				detach(element);
+			}
+			writer.writeEndElement();
+			writer.writeEndDocument();
+			writer.close();
+		}
+		catch (JAXBException | XMLStreamException ex) {
+			throw new IOException("Could not write " + wrapperType.getSimpleName() + " as XML", ex);
+		}
+	}
+
+	/**
+	 * Turns the optional {@code limit} request parameter into the page of a streaming
+	 * query: all elements when absent, at least one otherwise.
+	 */
+	public static Pageable limitOf(Integer limit) {
+		return limit == null ? Pageable.unpaged() : PageRequest.of(0, Math.max(1, limit));
+	}
+
+	private static OutputStream open(HttpServletResponse response) throws IOException {
+		return new BufferedOutputStream(response.getOutputStream(), 8192);
+	}
+
+	private void detach(Object element) {
+		if (this.entityManager != null) {
+			this.entityManager.detach(element);
+		}
+	}
+
+	private static JAXBContext newContext(Class<?> wrapperType) {
+		try {
+			return JAXBContext.newInstance(wrapperType);
+		}
+		catch (JAXBException ex) {
+			throw new IllegalStateException("Could not create JAXB context for " + wrapperType, ex);
+		}
+	}
+
+	private static Object newInstance(Class<?> wrapperType) {
+		try {
+			return wrapperType.getDeclaredConstructor().newInstance();
+		}
+		catch (ReflectiveOperationException ex) {
+			throw new IllegalStateException("Could not instantiate " + wrapperType, ex);
+		}
+	}
+
+}
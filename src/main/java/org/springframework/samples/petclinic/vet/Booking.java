@@ -0,0 +1,11 @@
+package org.springframework.samples.petclinic.vet;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * The time a visit is booked with a vet, as stored on the visit.
+ */
+public record Booking(int vetId, LocalDate date, LocalTime start, LocalTime end) {
+
+}
@@ -0,0 +1,35 @@
+package org.springframework.samples.petclinic.vet;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * An appointment slot of a vet, {@code [start, end)}.
+ */
+public record Slot(int vetId, String vetName, LocalDateTime start, LocalDateTime end) {
+
+	/**
+	 * Identifies the slot in a form, for example {@code 3@2024-05-06T09:30}.
+	 */
+	public String key() {
+		return this.vetId + "@" + this.start;
+	}
+
+	/**
+	 * The vet and start time of a {@link #key()}, or {@code null} if it is not a key.
+	 */
+	static Slot parseKey(String key) {
+		int at = key == null ? -1 : key.indexOf('@');
+		if (at < 1) {
+			return null;
+		}
+		try {
+			return new Slot(Integer.parseInt(key.substring(0, at)), null, LocalDateTime.parse(key.substring(at + 1)),
+					null);
+		}
+		catch (NumberFormatException | DateTimeParseException ex) {
+			return null;
+		}
+	}
+
+}
@@ -15,22 +15,25 @@
  */
 package org.springframework.samples.petclinic.vet;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.samples.petclinic.model.Person;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import jakarta.xml.bind.annotation.XmlElement;
 
 /**
@@ -43,15 +46,37 @@ import jakarta.xml.bind.annotation.XmlElement;
  */
 @Entity
 @Table(name = "vets")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "vets")
 public class Vet extends Person {
 
+	/*
+	 * poradi specialit podle nazvu bez ohledu na velikost pismen, bez nazvu na konci
+	 */
+	private static final Comparator<Specialty> BY_NAME = Comparator.comparing(Specialty::getName,
+			Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
+	/*
+	 * speciality vsech veterinaru nactenych spolu (stranka seznamu) se nactou jednim
+	 * dotazem po davkach az 100 veterinaru, ne jednim dotazem za kazdeho veterinare
+	 */
+	@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "vet-specialties")
+	@BatchSize(size = 100)
 	@ManyToMany(fetch = FetchType.EAGER)
 	@JoinTable(name = "vet_specialties", joinColumns = @JoinColumn(name = "vet_id"),
 			inverseJoinColumns = @JoinColumn(name = "specialty_id"))
 	private Set<Specialty> specialties;
 
 	/*
-	Vraci hashset specialit, tedy zamereni.
+	 * serazene speciality, spocitane pri prvnim volani getSpecialties a zahozene pri
+	 * kazde zmene specialit nemenny List.of, takze ho muze sdilet vic vlaken (napr.
+	 * veterinari v adresari VetDirectory)
+	 */
+	@Transient
+	private transient List<Specialty> sortedSpecialties;
+
+	/*
+	 * Vraci hashset specialit, tedy zamereni.
 	 */
 	protected Set<Specialty> getSpecialtiesInternal() {
 		if (this.specialties == null) {
@@ -62,36 +87,39 @@ public class Vet extends Person {
 
 	protected void setSpecialtiesInternal(Set<Specialty> specialties) {
 		this.specialties = specialties;
+		this.sortedSpecialties = null;
 	}
 
 	/*
-	Anotace @XmlElement rika, aby metoda a jeji navratova hodnota byla zahrnuta do vysledneho XML
+	 * Anotace @XmlElement rika, aby metoda a jeji navratova hodnota byla zahrnuta do
+	 * vysledneho XML vraci vzestupne podle nazvu serazeny nemenny seznam specialit;
+	 * razeni probehne jen jednou, dalsi volani (sablona, JSON, XML) vraci tentyz seznam
 	 */
 	@XmlElement
 	public List<Specialty> getSpecialties() {
-		List<Specialty> sortedSpecs = new ArrayList<>(getSpecialtiesInternal());
-		/*
-		tridi vzestupne speciality podle name s ohledem na velikost pismen
-		 */
-		PropertyComparator.sort(sortedSpecs, new MutableSortDefinition("name", true, true));
-		/*
-		vytvori nemenny pohled na seznam specialit, tedy ze nelze menit obsah seznamu po jeho vraceni
-		 */
-		return Collections.unmodifiableList(sortedSpecs);
+		List<Specialty> sorted = this.sortedSpecialties;
+		if (sorted == null) {
+			Specialty[] specs = getSpecialtiesInternal().toArray(new Specialty[0]);
+			Arrays.sort(specs, BY_NAME);
+			sorted = List.of(specs);
+			this.sortedSpecialties = sorted;
+		}
+		return sorted;
 	}
 
 	/*
-	vraci pocet specialit
+	 * vraci pocet specialit
 	 */
 	public int getNrOfSpecialties() {
 		return getSpecialtiesInternal().size();
 	}
 
 	/*
-	prida novou specialitu do seznamu
+	 * prida novou specialitu do seznamu
 	 */
 	public void addSpecialty(Specialty specialty) {
 		getSpecialtiesInternal().add(specialty);
+		this.sortedSpecialties = null;
 	}
 
 }
@@ -0,0 +1,47 @@
+package org.springframework.samples.petclinic.vet;
+
+import org.hibernate.Cache;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Actuator endpoint for the cached vets. Vets only change through the seed scripts, so
+ * after changing them a POST on {@code /actuator/vetcache} drops every cached copy: the
+ * Hibernate second-level cache entries, the {@code vets} cache with the rendered
+ * {@code /vets} documents, and the vet directory, which is rebuilt right away.
+ */
+@Component
+@Endpoint(id = "vetcache")
+class VetCacheEndpoint {
+
+	private final VetResourceCache resources;
+
+	private final VetDirectory directory;
+
+	private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+	VetCacheEndpoint(VetResourceCache resources, VetDirectory directory,
+			ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+		this.resources = resources;
+		this.directory = directory;
+		this.entityManagerFactory = entityManagerFactory;
+	}
+
+	@WriteOperation
+	public void evict() {
+		EntityManagerFactory factory = this.entityManagerFactory.getIfAvailable();
+		if (factory != null) {
+			Cache cache = factory.getCache().unwrap(Cache.class);
+			cache.evictEntityData(Vet.class);
+			cache.evictEntityData(Specialty.class);
+			cache.evictCollectionData(Vet.class.getName() + ".specialties");
+		}
+		this.resources.vetsChanged();
+		this.directory.refresh();
+	}
+
+}
@@ -0,0 +1,106 @@
+package org.springframework.samples.petclinic.vet;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Working hours and booked appointments of one vet.
+ * <p>
+ * Booked appointments never overlap, so they are kept in a map from start to end ordered
+ * by start, which serves as the interval tree: the only booking that can overlap
+ * {@code [start, end)} is the last one starting before {@code end}, found in
+ * {@code O(log n)}. All access is synchronized on the calendar, so two requests for the
+ * same vet are checked and booked one after the other, while other vets are not blocked.
+ */
+final class VetCalendar {
+
+	private final int vetId;
+
+	private final String vetName;
+
+	/*
+	 * pracovni okna podle dne v tydnu, index 0 = pondeli; kazde okno je dvojice [zacatek,
+	 * konec)
+	 */
+	private final List<List<LocalTime[]>> hours;
+
+	private final TreeMap<LocalDateTime, LocalDateTime> booked = new TreeMap<>();
+
+	VetCalendar(int vetId, String vetName, List<List<LocalTime[]>> hours) {
+		this.vetId = vetId;
+		this.vetName = vetName;
+		this.hours = hours;
+	}
+
+	int vetId() {
+		return this.vetId;
+	}
+
+	/**
+	 * The slot of {@code length} starting at {@code start} if it lies on the slot grid of
+	 * a working window, {@code null} otherwise. Whether it is free is not checked.
+	 */
+	Slot slotAt(LocalDateTime start, Duration length) {
+		LocalDateTime end = start.plus(length);
+		for (LocalTime[] window : windows(start.toLocalDate())) {
+			LocalDateTime from = start.toLocalDate().atTime(window[0]);
+			LocalDateTime to = start.toLocalDate().atTime(window[1]);
+			if (!start.isBefore(from) && !end.isAfter(to)
+					&& Duration.between(from, start).toSeconds() % length.toSeconds() == 0) {
+				return new Slot(this.vetId, this.vetName, start, end);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The free slots of {@code length} on the given day that start at or after
+	 * {@code notBefore}, in time order.
+	 */
+	synchronized List<Slot> freeSlots(LocalDate date, Duration length, LocalDateTime notBefore) {
+		List<Slot> free = new ArrayList<>();
+		for (LocalTime[] window : windows(date)) {
+			LocalDateTime to = date.atTime(window[1]);
+			for (LocalDateTime start = date.atTime(window[0]); !start.plus(length).isAfter(to); start = start
+				.plus(length)) {
+				LocalDateTime end = start.plus(length);
+				if (!start.isBefore(notBefore) && !overlaps(start, end)) {
+					free.add(new Slot(this.vetId, this.vetName, start, end));
+				}
+			}
+		}
+		return free;
+	}
+
+	/**
+	 * Books {@code [start, end)} unless it overlaps a booking.
+	 * @return whether the slot was booked
+	 */
+	synchronized boolean book(LocalDateTime start, LocalDateTime end) {
+		if (overlaps(start, end)) {
+			return false;
+		}
+		this.booked.put(start, end);
+		return true;
+	}
+
+	synchronized void release(LocalDateTime start) {
+		this.booked.remove(start);
+	}
+
+	private boolean overlaps(LocalDateTime start, LocalDateTime end) {
+		Map.Entry<LocalDateTime, LocalDateTime> before = this.booked.lowerEntry(end);
+		return before != null && before.getValue().isAfter(start);
+	}
+
+	private List<LocalTime[]> windows(LocalDate date) {
+		return this.hours.get(date.getDayOfWeek().getValue() - 1);
+	}
+
+}
@@ -15,16 +15,27 @@
  */
 package org.springframework.samples.petclinic.vet;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.model.Cursor;
+import org.springframework.samples.petclinic.model.KeysetPage;
+import org.springframework.samples.petclinic.system.AcceptEncoding;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import jakarta.servlet.http.HttpServletResponse;
 
 /**
  * @author Juergen Hoeller
@@ -35,33 +46,67 @@ import org.springframework.web.bind.annotation.ResponseBody;
 @Controller
 class VetController {
 
+	/*
+	 * pocet veterinaru na jedne strance seznamu
+	 */
+	private static final int PAGE_SIZE = 5;
+
+	/*
+	 * vychozi a nejvetsi velikost stranky adresare veterinaru
+	 */
+	private static final int DIRECTORY_PAGE_SIZE = 20;
+
+	private static final int MAX_DIRECTORY_PAGE_SIZE = 100;
+
 	private final VetRepository vetRepository;
 
-	public VetController(VetRepository clinicService) {
+	private final VetResourceCache vetResourceCache;
+
+	private final VetDirectory vetDirectory;
+
+	public VetController(VetRepository clinicService, VetResourceCache vetResourceCache, VetDirectory vetDirectory) {
 		this.vetRepository = clinicService;
+		this.vetResourceCache = vetResourceCache;
+		this.vetDirectory = vetDirectory;
 	}
 
 	/*
-	get mapping pro vets.html
-	výchozí hodnota page = 1
-	Model použijeme pro přidání parametrů do html šablony
-	vyvtori se instance tridy Vets vets
-	zavola se metoda vets.getVetlist, tedy arraylist, do ktereho se prida
+	 * get mapping pro vets.html s parametrem page se strankuje pres offset, jinak pres
+	 * kurzory after/before (keyset) bez count dotazu Model použijeme pro přidání
+	 * parametrů do html šablony vyvtori se instance tridy Vets vets zavola se metoda
+	 * vets.getVetlist, tedy arraylist, do ktereho se prida
 	 */
 	@GetMapping("/vets.html")
-	public String showVetList(@RequestParam(defaultValue = "1") int page, Model model) {
+	public String showVetList(@RequestParam(required = false) Integer page,
+			@RequestParam(required = false) String after, @RequestParam(required = false) String before,
+			@RequestParam(defaultValue = "false") boolean count, Model model) {
+		if (page == null) {
+			KeysetPage<Vet> slice = findSlice(Cursor.decode(after), Cursor.decode(before));
+			model.addAttribute("previousCursor", slice.previousCursor());
+			model.addAttribute("nextCursor", slice.nextCursor());
+			if (count) {
+				model.addAttribute("totalItems", vetRepository.count());
+			}
+			model.addAttribute("listVets", slice.content());
+			return "vets/vetList";
+		}
 		// Here we are returning an object of type 'Vets' rather than a collection of Vet
 		// objects so it is simpler for Object-Xml mapping
 		Vets vets = new Vets();
-		Page<Vet> paginated = findPaginated(page); // vrati vysledek na jedne strance z db veterinaru
-		vets.getVetList().addAll(paginated.toList()); // vytvori arraylist, do ktereho se prida predchozi vysledek
-		return addPaginationModel(page, paginated, model); // zavola se metoda viz nize, ktera prida data do modelu
+		Page<Vet> paginated = findPaginated(page); // vrati vysledek na jedne strance z db
+													// veterinaru
+		vets.getVetList().addAll(paginated.toList()); // vytvori arraylist, do ktereho se
+														// prida predchozi vysledek
+		return addPaginationModel(page, paginated, model); // zavola se metoda viz nize,
+															// ktera prida data do modelu
 	}
 
 	private String addPaginationModel(int page, Page<Vet> paginated, Model model) {
-		List<Vet> listVets = paginated.getContent(); // vytvori seznam veterinaru na aktualni strance z objektu paginated
+		List<Vet> listVets = paginated.getContent(); // vytvori seznam veterinaru na
+														// aktualni strance z objektu
+														// paginated
 		/*
-		ulozeni promennych do promennych pro html sablonu
+		 * ulozeni promennych do promennych pro html sablonu
 		 */
 		model.addAttribute("currentPage", page);
 		model.addAttribute("totalPages", paginated.getTotalPages());
@@ -71,24 +116,92 @@ class VetController {
 	}
 
 	/*
-	vraci stranku veterinaru na zaklade aktualni stranky
+	 * vraci stranku veterinaru na zaklade aktualni stranky
 	 */
 	private Page<Vet> findPaginated(int page) {
-		int pageSize = 5;
-		Pageable pageable = PageRequest.of(page - 1, pageSize);
+		Pageable pageable = PageRequest.of(page - 1, PAGE_SIZE);
 		return vetRepository.findAll(pageable);
 	}
 
 	/*
-	nevraci html stranku, nybrz data ve formatu json
+	 * vraci stranku veterinaru za kurzorem after, pred kurzorem before, nebo prvni
+	 * stranku
+	 */
+	private KeysetPage<Vet> findSlice(Cursor after, Cursor before) {
+		Pageable pageable = PageRequest.of(0, PAGE_SIZE);
+		if (before != null) {
+			KeysetPage<Vet> previous = KeysetPage
+				.backward(vetRepository.findBefore(before.key(), before.id(), pageable), VetController::cursorOf);
+			if (!previous.isEmpty()) {
+				return previous;
+			}
+		}
+		else if (after != null) {
+			return KeysetPage.forward(vetRepository.findAfter(after.key(), after.id(), pageable), true,
+					VetController::cursorOf);
+		}
+		return KeysetPage.forward(vetRepository.findAfter("", 0, pageable), false, VetController::cursorOf);
+	}
+
+	private static Cursor cursorOf(Vet vet) {
+		return new Cursor(vet.getLastName(), vet.getId());
+	}
+
+	/*
+	 * nevraci html stranku, nybrz data ve formatu json dokument se bere hotovy z cache
+	 * (vcetne gzip varianty); klient s aktualni kopii dostane 304 podle ETag after je id
+	 * posledniho prijateho veterinare, limit omezuje pocet veterinaru v odpovedi
 	 */
 	@GetMapping({ "/vets" })
-	public @ResponseBody Vets showResourcesVetList() {
-		// Here we are returning an object of type 'Vets' rather than a collection of Vet
-		// objects so it is simpler for JSon/Object mapping
-		Vets vets = new Vets();
-		vets.getVetList().addAll(this.vetRepository.findAll());
-		return vets;
+	public void showResourcesVetList(@RequestParam(defaultValue = "0") int after,
+			@RequestParam(required = false) Integer limit,
+			@RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+			ServletWebRequest request, HttpServletResponse response) throws IOException {
+		// dokument vypada stejne jako serializovany objekt Vets
+		write(this.vetResourceCache.json(after, limit), MediaType.APPLICATION_JSON, acceptEncoding, request, response);
+	}
+
+	/*
+	 * totez ve formatu xml (JAXB, korenovy element Vets)
+	 */
+	@GetMapping(value = "/vets", produces = MediaType.APPLICATION_XML_VALUE)
+	public void showResourcesVetListAsXml(@RequestParam(defaultValue = "0") int after,
+			@RequestParam(required = false) Integer limit,
+			@RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+			ServletWebRequest request, HttpServletResponse response) throws IOException {
+		write(this.vetResourceCache.xml(after, limit), new MediaType(MediaType.APPLICATION_XML, StandardCharsets.UTF_8),
+				acceptEncoding, request, response);
+	}
+
+	private static void write(VetResourceCache.RenderedVets document, MediaType contentType, String acceptEncoding,
+			ServletWebRequest request, HttpServletResponse response) throws IOException {
+		boolean gzip = AcceptEncoding.acceptsGzip(acceptEncoding);
+		// json a xml sdili url, gzip se posila jen kdyz ho klient prijme
+		response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+		response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		if (request.checkNotModified(document.etag(gzip))) {
+			return;
+		}
+		byte[] body = document.body(gzip);
+		response.setContentType(contentType.toString());
+		if (gzip) {
+			response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+		}
+		response.setContentLength(body.length);
+		response.getOutputStream().write(body);
+	}
+
+	/*
+	 * veterinari se vsemi zadanymi specialitami (napr.
+	 * ?specialty=radiology&specialty=surgery) z adresare v pameti vraci stranku
+	 * veterinaru a pocty veterinaru podle specialit, bez dotazu do db
+	 */
+	@GetMapping(value = "/vets", params = "specialty", produces = MediaType.APPLICATION_JSON_VALUE)
+	@ResponseBody
+	public VetDirectoryPage showVetsBySpecialty(@RequestParam List<String> specialty,
+			@RequestParam(defaultValue = "1") int page,
+			@RequestParam(defaultValue = "" + DIRECTORY_PAGE_SIZE) int size) {
+		return this.vetDirectory.find(specialty, page, Math.max(1, Math.min(size, MAX_DIRECTORY_PAGE_SIZE)));
 	}
 
 }
@@ -0,0 +1,190 @@
+package org.springframework.samples.petclinic.vet;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Immutable in-memory snapshot of all vets, for filtering by specialty, counting and
+ * paging without going to the database.
+ * <p>
+ * Every specialty gets a bit number and every vet a {@link BitSet} of its specialties, so
+ * matching a vet against the requested specialties is a few word operations. The vets are
+ * kept ordered by {@code (lastName, id)}, like the vet list pages.
+ * <p>
+ * The snapshot is loaded on first use. Vets only change through the database scripts, so
+ * once it is older than {@code petclinic.vets.directory.ttl} the next reader gets it as
+ * it is and triggers one rebuild in the background; {@link #refresh()} rebuilds it right
+ * away.
+ */
+@Component
+public class VetDirectory implements DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(VetDirectory.class);
+
+	private final VetRepository vets;
+
+	private final Duration ttl;
+
+	private volatile Snapshot snapshot;
+
+	private final AtomicBoolean refreshing = new AtomicBoolean();
+
+	private final ExecutorService refresher = Executors.newSingleThreadExecutor(task -> {
+		Thread thread = new Thread(task, "vet-directory");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public VetDirectory(VetRepository vets, @Value("${petclinic.vets.directory.ttl:10m}") Duration ttl) {
+		this.vets = vets;
+		this.ttl = ttl;
+	}
+
+	/**
+	 * One page of the vets that have all the given specialties, ordered by
+	 * {@code (lastName, id)}, with the number of matching vets per specialty. No
+	 * specialties match every vet; an unknown specialty matches none.
+	 * @param page the page number, starting at 1
+	 */
+	public VetDirectoryPage find(Collection<String> specialties, int page, int size) {
+		Snapshot current = current();
+		int number = Math.max(1, page);
+		BitSet required = new BitSet();
+		for (String name : specialties) {
+			Integer bit = current.bits().get(name);
+			if (bit == null) {
+				return VetDirectoryPage.empty(current.specialties(), number);
+			}
+			required.set(bit);
+		}
+		int[] counts = new int[current.specialties().size()];
+		List<Vet> matching = new ArrayList<>();
+		for (int i = 0; i < current.vets().size(); i++) {
+			BitSet has = current.vetSpecialties()[i];
+			if (containsAll(has, required)) {
+				matching.add(current.vets().get(i));
+				for (int bit = has.nextSetBit(0); bit >= 0; bit = has.nextSetBit(bit + 1)) {
+					counts[bit]++;
+				}
+			}
+		}
+		Map<String, Integer> specialtyCounts = new LinkedHashMap<>();
+		for (int bit = 0; bit < counts.length; bit++) {
+			specialtyCounts.put(current.specialties().get(bit).getName(), counts[bit]);
+		}
+		// v long, aby vysoke cislo stranky nepreteklo do zaporneho offsetu
+		int from = (int) Math.min(matching.size(), (number - 1L) * size);
+		int to = (int) Math.min(matching.size(), (long) from + size);
+		int totalPages = (int) ((matching.size() + (long) size - 1) / size);
+		return new VetDirectoryPage(List.copyOf(matching.subList(from, to)), specialtyCounts, number, totalPages,
+				matching.size());
+	}
+
+	/**
+	 * Reloads the snapshot from the database on the calling thread.
+	 */
+	public synchronized void refresh() {
+		List<Specialty> specialties = this.vets.findSpecialties();
+		List<Vet> all = this.vets.findAllWithSpecialties();
+		this.snapshot = Snapshot.of(all, specialties);
+		logger.info("Vet directory loaded with {} vets and {} specialties.", all.size(), specialties.size());
+	}
+
+	private Snapshot current() {
+		Snapshot current = this.snapshot;
+		if (current == null) {
+			synchronized (this) {
+				if (this.snapshot == null) {
+					refresh();
+				}
+				return this.snapshot;
+			}
+		}
+		if (current.age().compareTo(this.ttl) > 0) {
+			refreshInBackground();
+		}
+		return current;
+	}
+
+	private void refreshInBackground() {
+		if (this.refreshing.compareAndSet(false, true)) {
+			this.refresher.execute(() -> {
+				try {
+					refresh();
+				}
+				catch (RuntimeException ex) {
+					logger.error("Vet directory refresh failed, keeping the previous one.", ex);
+				}
+				finally {
+					this.refreshing.set(false);
+				}
+			});
+		}
+	}
+
+	@Override
+	public void destroy() {
+		this.refresher.shutdownNow();
+	}
+
+	private static boolean containsAll(BitSet has, BitSet required) {
+		for (int bit = required.nextSetBit(0); bit >= 0; bit = required.nextSetBit(bit + 1)) {
+			if (!has.get(bit)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * {@code vetSpecialties[i]} holds the bits of the specialties of {@code vets[i]}; bit
+	 * {@code b} stands for {@code specialties[b]}.
+	 */
+	private record Snapshot(List<Vet> vets, BitSet[] vetSpecialties, List<Specialty> specialties,
+			Map<String, Integer> bits, Instant loadedAt) {
+
+		static Snapshot of(List<Vet> vets, List<Specialty> specialties) {
+			Map<Integer, Integer> bitsById = new HashMap<>();
+			Map<String, Integer> bits = new HashMap<>();
+			for (int bit = 0; bit < specialties.size(); bit++) {
+				bitsById.put(specialties.get(bit).getId(), bit);
+				bits.put(specialties.get(bit).getName(), bit);
+			}
+			BitSet[] vetSpecialties = new BitSet[vets.size()];
+			for (int i = 0; i < vets.size(); i++) {
+				BitSet has = new BitSet(specialties.size());
+				for (Specialty specialty : vets.get(i).getSpecialties()) {
+					Integer bit = bitsById.get(specialty.getId());
+					if (bit != null) {
+						has.set(bit);
+					}
+				}
+				vetSpecialties[i] = has;
+			}
+			return new Snapshot(List.copyOf(vets), vetSpecialties, List.copyOf(specialties), Map.copyOf(bits),
+					Instant.now());
+		}
+
+		Duration age() {
+			return Duration.between(this.loadedAt, Instant.now());
+		}
+
+	}
+
+}
@@ -0,0 +1,20 @@
+package org.springframework.samples.petclinic.vet;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of a {@link VetDirectory} search: the vets on the page, how many of all
+ * matching vets have each specialty (in specialty name order), and the paging figures.
+ */
+public record VetDirectoryPage(List<Vet> vetList, Map<String, Integer> specialtyCounts, int page, int totalPages,
+		int totalItems) {
+
+	static VetDirectoryPage empty(List<Specialty> specialties, int page) {
+		Map<String, Integer> counts = new LinkedHashMap<>();
+		specialties.forEach(specialty -> counts.put(specialty.getName(), 0));
+		return new VetDirectoryPage(List.of(), counts, page, 0, 0);
+	}
+
+}
@@ -15,14 +15,23 @@
  */
 package org.springframework.samples.petclinic.vet;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import jakarta.persistence.QueryHint;
 
 /**
  * Repository class for <code>Vet</code> domain objects All method names are compliant
@@ -41,7 +50,8 @@ public interface VetRepository extends Repository<Vet, Integer> {
 	 * Retrieve all <code>Vet</code>s from the data store.
 	 * @return a <code>Collection</code> of <code>Vet</code>s
 	 */
-	@Transactional(readOnly = true) // oznacuje metodu jako transakci = bude provadet operace s db v ramci jedne transakce
+	@Transactional(readOnly = true) // oznacuje metodu jako transakci = bude provadet
+									// operace s db v ramci jedne transakce
 	@Cacheable("vets") // uklada vysledek do cache (urychluje opakovane dotazy)
 	Collection<Vet> findAll() throws DataAccessException; // vrati vsechny veterinare v DB
 
@@ -53,6 +63,60 @@ public interface VetRepository extends Repository<Vet, Integer> {
 	 */
 	@Transactional(readOnly = true)
 	@Cacheable("vets")
-	Page<Vet> findAll(Pageable pageable) throws DataAccessException; // vraci pouze jednu stranku vysledku, jinak podobne predchozi metode
+	Page<Vet> findAll(Pageable pageable) throws DataAccessException; // vraci pouze jednu
+																		// stranku
+																		// vysledku, jinak
+																		// podobne
+																		// predchozi
+																		// metode
+
+	/**
+	 * Retrieve one page of <code>Vet</code>s ordered by {@code (lastName, id)}, strictly
+	 * after the given keyset. No count query is run. Pass an empty name and id 0 for the
+	 * first page.
+	 */
+	@Query("SELECT vet FROM Vet vet WHERE vet.lastName > :afterName "
+			+ "OR (vet.lastName = :afterName AND vet.id > :afterId) ORDER BY vet.lastName, vet.id")
+	@Transactional(readOnly = true)
+	@Cacheable("vets")
+	Slice<Vet> findAfter(@Param("afterName") String afterName, @Param("afterId") int afterId, Pageable pageable);
+
+	/**
+	 * Retrieve the <code>Vet</code>s strictly before the given keyset, in reverse order.
+	 */
+	@Query("SELECT vet FROM Vet vet WHERE vet.lastName < :beforeName "
+			+ "OR (vet.lastName = :beforeName AND vet.id < :beforeId) ORDER BY vet.lastName DESC, vet.id DESC")
+	@Transactional(readOnly = true)
+	@Cacheable("vets")
+	Slice<Vet> findBefore(@Param("beforeName") String beforeName, @Param("beforeId") int beforeId, Pageable pageable);
+
+	/**
+	 * Stream the <code>Vet</code>s ordered by id, strictly after the given id. Rows are
+	 * fetched from a cursor in small batches; the pageable only limits the number of
+	 * rows. The stream must be consumed and closed inside a transaction.
+	 */
+	@Query("SELECT vet FROM Vet vet WHERE vet.id > :afterId ORDER BY vet.id")
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+	@Transactional(readOnly = true)
+	Stream<Vet> streamAfter(@Param("afterId") int afterId, Pageable pageable);
+
+	/**
+	 * Retrieve all <code>Vet</code>s with their specialties in one query, ordered by
+	 * {@code (lastName, id)}.
+	 */
+	@Query("SELECT DISTINCT vet FROM Vet vet LEFT JOIN FETCH vet.specialties ORDER BY vet.lastName, vet.id")
+	@Transactional(readOnly = true)
+	List<Vet> findAllWithSpecialties();
+
+	/**
+	 * Retrieve all {@link Specialty specialties}, sorted by name.
+	 */
+	@Query("SELECT specialty FROM Specialty specialty ORDER BY specialty.name")
+	@Transactional(readOnly = true)
+	List<Specialty> findSpecialties();
+
+	@Query("SELECT COUNT(vet) FROM Vet vet")
+	@Transactional(readOnly = true)
+	long count();
 
 }
@@ -0,0 +1,149 @@
+package org.springframework.samples.petclinic.vet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.samples.petclinic.system.ResourceStreamWriter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Keeps the {@code /vets} documents rendered, so that a request only copies bytes instead
+ * of reading and serializing the vets again.
+ * <p>
+ * Each document is rendered once per format and {@code after}/{@code limit} window by
+ * {@link ResourceStreamWriter}, compressed with gzip as well, and stored in the
+ * {@code vets} cache next to the cached repository results. Its strong ETag is the MD5 of
+ * the uncompressed bytes; the gzip variant has its own ETag, as a different encoding is a
+ * different representation. {@link #vetsChanged()} clears the {@code vets} cache,
+ * rendered documents included.
+ */
+@Component
+public class VetResourceCache {
+
+	static final String CACHE_NAME = "vets";
+
+	private final VetRepository vets;
+
+	private final ResourceStreamWriter resourceStreamWriter;
+
+	private final Cache cache;
+
+	private final TransactionOperations readOnlyTransaction;
+
+	public VetResourceCache(VetRepository vets, ResourceStreamWriter resourceStreamWriter,
+			ObjectProvider<CacheManager> cacheManager, ObjectProvider<PlatformTransactionManager> transactionManager) {
+		this.vets = vets;
+		this.resourceStreamWriter = resourceStreamWriter;
+		// bez cache a spravce transakci (testy webove vrstvy) se renderuje pri kazdem
+		// dotazu a bez transakce
+		this.cache = cacheManager.getIfAvailable(NoOpCacheManager::new).getCache(CACHE_NAME);
+		PlatformTransactionManager manager = transactionManager.getIfAvailable();
+		if (manager != null) {
+			TransactionTemplate template = new TransactionTemplate(manager);
+			template.setReadOnly(true);
+			this.readOnlyTransaction = template;
+		}
+		else {
+			this.readOnlyTransaction = TransactionOperations.withoutTransaction();
+		}
+	}
+
+	/**
+	 * The JSON document of the vets after the given id, at most {@code limit} of them.
+	 */
+	public RenderedVets json(int after, Integer limit) {
+		return this.cache.get(new RenderedKey("json", after, limit),
+				() -> render(after, limit, (vets, out) -> this.resourceStreamWriter.writeJson(out, "vetList", vets)));
+	}
+
+	/**
+	 * The XML document of the vets after the given id, at most {@code limit} of them.
+	 */
+	public RenderedVets xml(int after, Integer limit) {
+		return this.cache.get(new RenderedKey("xml", after, limit), () -> render(after, limit,
+				(vets, out) -> this.resourceStreamWriter.writeXml(out, Vets.class, "vetList", Vet.class, vets)));
+	}
+
+	/**
+	 * Drops the cached vets and their rendered documents. Inside a transaction this
+	 * happens after commit, so a concurrent request cannot render the old rows again.
+	 */
+	public void vetsChanged() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					cache.clear();
+				}
+			});
+		}
+		else {
+			this.cache.clear();
+		}
+	}
+
+	private RenderedVets render(int after, Integer limit, Renderer renderer) {
+		byte[] body = this.readOnlyTransaction.execute(status -> {
+			ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+			try (Stream<Vet> vets = this.vets.streamAfter(after, ResourceStreamWriter.limitOf(limit))) {
+				renderer.render(vets, out);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			return out.toByteArray();
+		});
+		return new RenderedVets(body, gzip(body), DigestUtils.md5DigestAsHex(body));
+	}
+
+	private static byte[] gzip(byte[] body) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+		try (OutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(body);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * A rendered document, plain and gzip compressed.
+	 */
+	public record RenderedVets(byte[] body, byte[] gzipped, String hash) {
+
+		public byte[] body(boolean gzip) {
+			return gzip ? this.gzipped : this.body;
+		}
+
+		public String etag(boolean gzip) {
+			return "\"" + this.hash + (gzip ? "-gzip\"" : "\"");
+		}
+
+	}
+
+	private record RenderedKey(String format, int after, Integer limit) {
+	}
+
+	@FunctionalInterface
+	private interface Renderer {
+
+		void render(Stream<Vet> vets, OutputStream out) throws IOException;
+
+	}
+
+}
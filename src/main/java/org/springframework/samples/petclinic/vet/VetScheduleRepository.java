@@ -0,0 +1,32 @@
+package org.springframework.samples.petclinic.vet;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository for the working hours of the vets and the visits booked with them.
+ */
+public interface VetScheduleRepository extends Repository<WorkingHours, Integer> {
+
+	/**
+	 * All working windows with their vets, ordered by vet name.
+	 */
+	@Query("SELECT hours FROM WorkingHours hours JOIN FETCH hours.vet vet "
+			+ "ORDER BY vet.lastName, vet.id, hours.dayOfWeek, hours.startTime")
+	@Transactional(readOnly = true)
+	List<WorkingHours> findWorkingHours();
+
+	/**
+	 * The visits booked with a vet on or after the given day.
+	 */
+	@Query("SELECT new org.springframework.samples.petclinic.vet.Booking(visit.vet.id, visit.date, visit.startTime, visit.endTime) "
+			+ "FROM Visit visit WHERE visit.vet IS NOT NULL AND visit.date >= :from")
+	@Transactional(readOnly = true)
+	List<Booking> findBookings(@Param("from") LocalDate from);
+
+}
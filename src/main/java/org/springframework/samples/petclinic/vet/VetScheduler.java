@@ -0,0 +1,178 @@
+package org.springframework.samples.petclinic.vet;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+/**
+ * Appointment slots of the vets: which slots are free and booking one of them.
+ * <p>
+ * Every vet has a {@link VetCalendar} built from its working hours and the visits already
+ * booked from today on. The slots follow a grid of
+ * {@code petclinic.vets.appointments.slot-length} from the start of each working window.
+ * {@link #book(Slot, Runnable)} books a slot in the calendar of its vet, so of two
+ * parallel requests for the same slot only one gets it, and then saves the visit. If the
+ * save fails the slot is released again, so a visit that was never saved does not keep
+ * its slot.
+ * <p>
+ * The calendars only see the bookings made through this instance after they were loaded.
+ * The unique {@code (vet_id, visit_date, start_time)} constraint on {@code visits} keeps
+ * several instances from booking the same slot: the losing save fails with a
+ * {@link DataIntegrityViolationException}, and the slot then stays booked here too.
+ */
+@Component
+public class VetScheduler {
+
+	private static final Logger logger = LoggerFactory.getLogger(VetScheduler.class);
+
+	private final VetScheduleRepository schedules;
+
+	private final Duration slotLength;
+
+	/*
+	 * kalendare podle id veterinare, v poradi podle jmena veterinare
+	 */
+	private volatile Map<Integer, VetCalendar> calendars;
+
+	public VetScheduler(VetScheduleRepository schedules,
+			@Value("${petclinic.vets.appointments.slot-length:30m}") Duration slotLength) {
+		if (slotLength.toSeconds() <= 0) {
+			throw new IllegalArgumentException(
+					"petclinic.vets.appointments.slot-length must be at least one second, not " + slotLength);
+		}
+		this.schedules = schedules;
+		this.slotLength = slotLength;
+	}
+
+	/**
+	 * Loads the calendars once the application is ready, so the first visit form does not
+	 * wait for them.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void preload() {
+		calendars();
+	}
+
+	/*
+	 * nacte pracovni doby a rezervace od dneska; vola se jen jednou, dalsi rezervace uz
+	 * jdou pres reserve
+	 */
+	private synchronized void load() {
+		Map<Integer, List<List<LocalTime[]>>> hours = new LinkedHashMap<>();
+		Map<Integer, String> names = new LinkedHashMap<>();
+		for (WorkingHours window : this.schedules.findWorkingHours()) {
+			Vet vet = window.getVet();
+			names.putIfAbsent(vet.getId(), vet.getFirstName() + " " + vet.getLastName());
+			hours.computeIfAbsent(vet.getId(), id -> week())
+				.get(window.getDayOfWeek().getValue() - 1)
+				.add(new LocalTime[] { window.getStartTime(), window.getEndTime() });
+		}
+		Map<Integer, VetCalendar> loaded = new LinkedHashMap<>();
+		hours.forEach((vetId, week) -> {
+			week.forEach(day -> day.sort(Comparator.comparing(window -> window[0])));
+			loaded.put(vetId, new VetCalendar(vetId, names.get(vetId), week));
+		});
+		List<Booking> bookings = this.schedules.findBookings(LocalDate.now());
+		for (Booking booking : bookings) {
+			VetCalendar calendar = loaded.get(booking.vetId());
+			if (calendar != null && booking.start() != null && booking.end() != null) {
+				calendar.book(booking.date().atTime(booking.start()), booking.date().atTime(booking.end()));
+			}
+		}
+		this.calendars = loaded;
+		logger.info("Vet calendars loaded for {} vets with {} bookings.", loaded.size(), bookings.size());
+	}
+
+	/**
+	 * The free slots of all vets on the given day that have not started yet, ordered by
+	 * start time and then by vet name.
+	 */
+	public List<Slot> freeSlots(LocalDate date) {
+		LocalDateTime now = LocalDateTime.now();
+		List<Slot> free = new ArrayList<>();
+		for (VetCalendar calendar : calendars().values()) {
+			free.addAll(calendar.freeSlots(date, this.slotLength, now));
+		}
+		free.sort(Comparator.comparing(Slot::start));
+		return free;
+	}
+
+	/**
+	 * The slot with the given {@link Slot#key() key}, or {@code null} if the key is not a
+	 * slot a vet works in or the slot has already started. The slot may be booked.
+	 */
+	public Slot findSlot(String key) {
+		Slot parsed = Slot.parseKey(key);
+		if (parsed == null || parsed.start().isBefore(LocalDateTime.now())) {
+			return null;
+		}
+		VetCalendar calendar = calendars().get(parsed.vetId());
+		return calendar == null ? null : calendar.slotAt(parsed.start(), this.slotLength);
+	}
+
+	/**
+	 * Books the slot, which must come from {@link #freeSlots} or {@link #findSlot}, and
+	 * runs {@code save} to store the visit. Must be called outside a transaction, so that
+	 * the save has committed or rolled back when it returns.
+	 * @return {@code false} if the slot is already booked, here or by another instance
+	 */
+	public boolean book(Slot slot, Runnable save) {
+		Assert.state(!TransactionSynchronizationManager.isActualTransactionActive(),
+				"Slots must be booked outside a transaction");
+		VetCalendar calendar = calendars().get(slot.vetId());
+		if (calendar == null || !calendar.book(slot.start(), slot.end())) {
+			return false;
+		}
+		try {
+			save.run();
+			return true;
+		}
+		catch (DataIntegrityViolationException ex) {
+			// termin uz ma v db jina instance; zustava obsazeny i v tomto kalendari
+			logger.info("Slot {} was booked by another instance.", slot.key());
+			return false;
+		}
+		catch (RuntimeException ex) {
+			calendar.release(slot.start());
+			throw ex;
+		}
+	}
+
+	private Map<Integer, VetCalendar> calendars() {
+		Map<Integer, VetCalendar> current = this.calendars;
+		if (current == null) {
+			synchronized (this) {
+				if (this.calendars == null) {
+					load();
+				}
+				return this.calendars;
+			}
+		}
+		return current;
+	}
+
+	private static List<List<LocalTime[]>> week() {
+		List<List<LocalTime[]>> week = new ArrayList<>(7);
+		for (int day = 0; day < 7; day++) {
+			week.add(new ArrayList<>());
+		}
+		return week;
+	}
+
+}
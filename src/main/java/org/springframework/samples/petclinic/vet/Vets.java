@@ -33,7 +33,7 @@ public class Vets {
 	private List<Vet> vets;
 
 	/*
-	Tato anotace rika, ze ma dany vystup zaradit do XML
+	 * Tato anotace rika, ze ma dany vystup zaradit do XML
 	 */
 	@XmlElement
 	public List<Vet> getVetList() {
@@ -0,0 +1,71 @@
+package org.springframework.samples.petclinic.vet;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+import org.springframework.samples.petclinic.model.BaseEntity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+/**
+ * One working window of a {@link Vet} on a day of the week, for example Monday 09:00 to
+ * 17:00. A vet may have several windows on the same day.
+ */
+@Entity
+@Table(name = "vet_working_hours")
+public class WorkingHours extends BaseEntity {
+
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "vet_id")
+	private Vet vet;
+
+	/*
+	 * den v tydnu podle ISO, 1 = pondeli ... 7 = nedele
+	 */
+	@Column(name = "day_of_week")
+	private int dayOfWeek;
+
+	@Column(name = "start_time")
+	private LocalTime startTime;
+
+	@Column(name = "end_time")
+	private LocalTime endTime;
+
+	public Vet getVet() {
+		return this.vet;
+	}
+
+	public void setVet(Vet vet) {
+		this.vet = vet;
+	}
+
+	public DayOfWeek getDayOfWeek() {
+		return DayOfWeek.of(this.dayOfWeek);
+	}
+
+	public void setDayOfWeek(DayOfWeek dayOfWeek) {
+		this.dayOfWeek = dayOfWeek.getValue();
+	}
+
+	public LocalTime getStartTime() {
+		return this.startTime;
+	}
+
+	public void setStartTime(LocalTime startTime) {
+		this.startTime = startTime;
+	}
+
+	public LocalTime getEndTime() {
+		return this.endTime;
+	}
+
+	public void setEndTime(LocalTime endTime) {
+		this.endTime = endTime;
+	}
+
+}
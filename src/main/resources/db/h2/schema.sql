@@ -1,10 +1,14 @@
+DROP TABLE vet_working_hours IF EXISTS;
 DROP TABLE vet_specialties IF EXISTS;
+DROP TABLE visits IF EXISTS;
 DROP TABLE vets IF EXISTS;
 DROP TABLE specialties IF EXISTS;
-DROP TABLE visits IF EXISTS;
 DROP TABLE pets IF EXISTS;
 DROP TABLE types IF EXISTS;
 DROP TABLE owners IF EXISTS;
+DROP TABLE donates IF EXISTS;
+DROP TABLE report_aggregates IF EXISTS;
+DROP TABLE donation_buckets IF EXISTS;
 
 
 CREATE TABLE vets (
@@ -27,6 +31,15 @@ CREATE TABLE vet_specialties (
 ALTER TABLE vet_specialties ADD CONSTRAINT fk_vet_specialties_vets FOREIGN KEY (vet_id) REFERENCES vets (id);
 ALTER TABLE vet_specialties ADD CONSTRAINT fk_vet_specialties_specialties FOREIGN KEY (specialty_id) REFERENCES specialties (id);
 
+CREATE TABLE vet_working_hours (
+  id          INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  vet_id      INTEGER NOT NULL,
+  day_of_week INTEGER NOT NULL,
+  start_time  TIME NOT NULL,
+  end_time    TIME NOT NULL
+);
+ALTER TABLE vet_working_hours ADD CONSTRAINT fk_vet_working_hours_vets FOREIGN KEY (vet_id) REFERENCES vets (id);
+
 CREATE TABLE types (
   id   INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
   name VARCHAR(80)
@@ -58,7 +71,36 @@ CREATE TABLE visits (
   id          INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
   pet_id      INTEGER,
   visit_date  DATE,
-  description VARCHAR(255)
+  description VARCHAR(255),
+  vet_id      INTEGER,
+  start_time  TIME,
+  end_time    TIME
 );
 ALTER TABLE visits ADD CONSTRAINT fk_visits_pets FOREIGN KEY (pet_id) REFERENCES pets (id);
-CREATE INDEX visits_pet_id ON visits (pet_id);
+ALTER TABLE visits ADD CONSTRAINT fk_visits_vets FOREIGN KEY (vet_id) REFERENCES vets (id);
+ALTER TABLE visits ADD CONSTRAINT visits_vet_slot UNIQUE (vet_id, visit_date, start_time);
+CREATE INDEX visits_pet_date ON visits (pet_id, visit_date, id);
+CREATE INDEX visits_date_id ON visits (visit_date, id);
+
+CREATE TABLE donates (
+  id           INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  donator_name VARCHAR(50),
+  donate_date  DATE,
+  amount       DECIMAL(12,2),
+  message      VARCHAR(255)
+);
+CREATE INDEX donates_donate_date ON donates (donate_date);
+CREATE INDEX donates_amount_date ON donates (amount, donate_date);
+
+CREATE TABLE report_aggregates (
+  aggregate_name  VARCHAR(30) PRIMARY KEY,
+  aggregate_value BIGINT NOT NULL
+);
+
+CREATE TABLE donation_buckets (
+  bucket_date    DATE PRIMARY KEY,
+  donation_count BIGINT NOT NULL,
+  amount_sum     DECIMAL(14,2) NOT NULL,
+  amount_max     DECIMAL(12,2) NOT NULL,
+  amount_min     DECIMAL(12,2) NOT NULL
+);
@@ -47,7 +47,13 @@ INSERT INTO pets VALUES (11, 'Freddy', '2010-03-09', 5, 9);
 INSERT INTO pets VALUES (12, 'Lucky', '2010-06-24', 2, 10);
 INSERT INTO pets VALUES (13, 'Sly', '2012-06-08', 1, 10);
 
-INSERT INTO visits VALUES (1, 7, '2013-01-01', 'rabies shot');
-INSERT INTO visits VALUES (2, 8, '2013-01-02', 'rabies shot');
-INSERT INTO visits VALUES (3, 8, '2013-01-03', 'neutered');
-INSERT INTO visits VALUES (4, 7, '2013-01-04', 'spayed');
+INSERT INTO visits (id, pet_id, visit_date, description) VALUES (1, 7, '2013-01-01', 'rabies shot');
+INSERT INTO visits (id, pet_id, visit_date, description) VALUES (2, 8, '2013-01-02', 'rabies shot');
+INSERT INTO visits (id, pet_id, visit_date, description) VALUES (3, 8, '2013-01-03', 'neutered');
+INSERT INTO visits (id, pet_id, visit_date, description) VALUES (4, 7, '2013-01-04', 'spayed');
+
+INSERT INTO vet_working_hours (vet_id, day_of_week, start_time, end_time) SELECT id, 1, TIME '09:00:00', TIME '17:00:00' FROM vets;
+INSERT INTO vet_working_hours (vet_id, day_of_week, start_time, end_time) SELECT id, 2, TIME '09:00:00', TIME '17:00:00' FROM vets;
+INSERT INTO vet_working_hours (vet_id, day_of_week, start_time, end_time) SELECT id, 3, TIME '09:00:00', TIME '17:00:00' FROM vets;
+INSERT INTO vet_working_hours (vet_id, day_of_week, start_time, end_time) SELECT id, 4, TIME '09:00:00', TIME '17:00:00' FROM vets;
+INSERT INTO vet_working_hours (vet_id, day_of_week, start_time, end_time) SELECT id, 5, TIME '09:00:00', TIME '13:00:00' FROM vets;
@@ -19,6 +19,15 @@ CREATE TABLE IF NOT EXISTS vet_specialties (
   UNIQUE (vet_id,specialty_id)
 ) engine=InnoDB;
 
+CREATE TABLE IF NOT EXISTS vet_working_hours (
+  id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  vet_id INT(4) UNSIGNED NOT NULL,
+  day_of_week INT(1) NOT NULL,
+  start_time TIME NOT NULL,
+  end_time TIME NOT NULL,
+  FOREIGN KEY (vet_id) REFERENCES vets(id)
+) engine=InnoDB;
+
 CREATE TABLE IF NOT EXISTS types (
   id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
   name VARCHAR(80),
@@ -51,13 +60,77 @@ CREATE TABLE IF NOT EXISTS visits (
   pet_id INT(4) UNSIGNED,
   visit_date DATE,
   description VARCHAR(255),
-  FOREIGN KEY (pet_id) REFERENCES pets(id)
+  vet_id INT(4) UNSIGNED,
+  start_time TIME,
+  end_time TIME,
+  INDEX visits_date_id (visit_date, id),
+  INDEX visits_pet_date (pet_id, visit_date, id),
+  UNIQUE visits_vet_slot (vet_id, visit_date, start_time),
+  FOREIGN KEY (pet_id) REFERENCES pets(id),
+  FOREIGN KEY (vet_id) REFERENCES vets(id)
 ) engine=InnoDB;
+-- a visit booked with a vet keeps the vet and its time slot, add the columns to databases created before
+SET @add_columns := (SELECT IF(COUNT(*) = 0,
+  'ALTER TABLE visits ADD COLUMN vet_id INT(4) UNSIGNED, ADD COLUMN start_time TIME, ADD COLUMN end_time TIME, ADD UNIQUE visits_vet_slot (vet_id, visit_date, start_time), ADD FOREIGN KEY (vet_id) REFERENCES vets(id)', 'DO 0')
+  FROM information_schema.columns
+  WHERE table_schema = DATABASE() AND table_name = 'visits' AND column_name = 'vet_id');
+PREPARE add_columns FROM @add_columns;
+EXECUTE add_columns;
+DEALLOCATE PREPARE add_columns;
+-- visit history of a pet is read newest first, add the index to databases created before
+SET @create_index := (SELECT IF(COUNT(*) = 0,
+  'CREATE INDEX visits_pet_date ON visits (pet_id, visit_date, id)', 'DO 0')
+  FROM information_schema.statistics
+  WHERE table_schema = DATABASE() AND table_name = 'visits' AND index_name = 'visits_pet_date');
+PREPARE create_index FROM @create_index;
+EXECUTE create_index;
+DEALLOCATE PREPARE create_index;
+-- visits are paged by (visit_date, id), add the index to databases created before
+SET @create_index := (SELECT IF(COUNT(*) = 0,
+  'CREATE INDEX visits_date_id ON visits (visit_date, id)', 'DO 0')
+  FROM information_schema.statistics
+  WHERE table_schema = DATABASE() AND table_name = 'visits' AND index_name = 'visits_date_id');
+PREPARE create_index FROM @create_index;
+EXECUTE create_index;
+DEALLOCATE PREPARE create_index;
 
 CREATE TABLE IF NOT EXISTS donates (
   id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
   donator_name VARCHAR(50),
   donate_date DATE,
-  amount INT,
-  message VARCHAR(255)
+  amount DECIMAL(12,2),
+  message VARCHAR(255),
+  INDEX donates_donate_date (donate_date),
+  INDEX donates_amount_date (amount, donate_date)
+) engine=InnoDB;
+
+-- amount used to be an INT column, convert databases created before the change
+ALTER TABLE donates MODIFY amount DECIMAL(12,2);
+SET @create_index := (SELECT IF(COUNT(*) = 0,
+  'CREATE INDEX donates_amount_date ON donates (amount, donate_date)', 'DO 0')
+  FROM information_schema.statistics
+  WHERE table_schema = DATABASE() AND table_name = 'donates' AND index_name = 'donates_amount_date');
+PREPARE create_index FROM @create_index;
+EXECUTE create_index;
+DEALLOCATE PREPARE create_index;
+-- the donates list is read by date, add the index to databases created before
+SET @create_index := (SELECT IF(COUNT(*) = 0,
+  'CREATE INDEX donates_donate_date ON donates (donate_date)', 'DO 0')
+  FROM information_schema.statistics
+  WHERE table_schema = DATABASE() AND table_name = 'donates' AND column_name = 'donate_date' AND seq_in_index = 1);
+PREPARE create_index FROM @create_index;
+EXECUTE create_index;
+DEALLOCATE PREPARE create_index;
+
+CREATE TABLE IF NOT EXISTS report_aggregates (
+  aggregate_name VARCHAR(30) NOT NULL PRIMARY KEY,
+  aggregate_value BIGINT NOT NULL
+) engine=InnoDB;
+
+CREATE TABLE IF NOT EXISTS donation_buckets (
+  bucket_date DATE NOT NULL PRIMARY KEY,
+  donation_count BIGINT NOT NULL,
+  amount_sum DECIMAL(14,2) NOT NULL,
+  amount_max DECIMAL(12,2) NOT NULL,
+  amount_min DECIMAL(12,2) NOT NULL
 ) engine=InnoDB;
@@ -51,3 +51,8 @@ INSERT INTO visits (pet_id, visit_date, description) SELECT 7, '2010-03-04', 'ra
 INSERT INTO visits (pet_id, visit_date, description) SELECT 8, '2011-03-04', 'rabies shot' WHERE NOT EXISTS (SELECT * FROM visits WHERE id=2);
 INSERT INTO visits (pet_id, visit_date, description) SELECT 8, '2009-06-04', 'neutered' WHERE NOT EXISTS (SELECT * FROM visits WHERE id=3);
 INSERT INTO visits (pet_id, visit_date, description) SELECT 7, '2008-09-04', 'spayed' WHERE NOT EXISTS (SELECT * FROM visits WHERE id=4);
+
+INSERT INTO vet_working_hours (vet_id, day_of_week, start_time, end_time)
+  SELECT vets.id, days.day_of_week, TIME '09:00:00', CASE WHEN days.day_of_week = 5 THEN TIME '13:00:00' ELSE TIME '17:00:00' END
+  FROM vets CROSS JOIN generate_series(1, 5) AS days(day_of_week)
+  WHERE NOT EXISTS (SELECT * FROM vet_working_hours);
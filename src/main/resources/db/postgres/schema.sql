@@ -17,6 +17,14 @@ CREATE TABLE IF NOT EXISTS vet_specialties (
   UNIQUE (vet_id, specialty_id)
 );
 
+CREATE TABLE IF NOT EXISTS vet_working_hours (
+  id          INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  vet_id      INT NOT NULL REFERENCES vets (id),
+  day_of_week INT NOT NULL,
+  start_time  TIME NOT NULL,
+  end_time    TIME NOT NULL
+);
+
 CREATE TABLE IF NOT EXISTS types (
   id   INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
   name TEXT
@@ -49,4 +57,34 @@ CREATE TABLE IF NOT EXISTS visits (
   visit_date  DATE,
   description TEXT
 );
-CREATE INDEX ON visits (pet_id);
+-- a visit booked with a vet keeps the vet and its time slot
+ALTER TABLE visits ADD COLUMN IF NOT EXISTS vet_id INT REFERENCES vets (id),
+  ADD COLUMN IF NOT EXISTS start_time TIME, ADD COLUMN IF NOT EXISTS end_time TIME;
+CREATE UNIQUE INDEX IF NOT EXISTS visits_vet_slot ON visits (vet_id, visit_date, start_time);
+CREATE INDEX IF NOT EXISTS visits_pet_date ON visits (pet_id, visit_date, id);
+CREATE INDEX IF NOT EXISTS visits_date_id ON visits (visit_date, id);
+
+CREATE TABLE IF NOT EXISTS donates (
+  id           INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  donator_name TEXT,
+  donate_date  DATE,
+  amount       NUMERIC(12,2),
+  message      TEXT
+);
+CREATE INDEX IF NOT EXISTS donates_donate_date ON donates (donate_date);
+-- amount used to be an INT column, convert databases created before the change
+ALTER TABLE donates ALTER COLUMN amount TYPE NUMERIC(12,2);
+CREATE INDEX IF NOT EXISTS donates_amount_date ON donates (amount, donate_date);
+
+CREATE TABLE IF NOT EXISTS report_aggregates (
+  aggregate_name  TEXT PRIMARY KEY,
+  aggregate_value BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS donation_buckets (
+  bucket_date    DATE PRIMARY KEY,
+  donation_count BIGINT NOT NULL,
+  amount_sum     NUMERIC(14,2) NOT NULL,
+  amount_max     NUMERIC(12,2) NOT NULL,
+  amount_min     NUMERIC(12,2) NOT NULL
+);
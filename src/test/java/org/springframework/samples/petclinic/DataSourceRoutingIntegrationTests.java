@@ -0,0 +1,82 @@
+package org.springframework.samples.petclinic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Runs the application with {@code petclinic.datasource.routing.enabled} against an H2
+ * primary and an H2 replica whose copy of owner 1 lives in another city, to see which
+ * database serves each request.
+ */
+@SpringBootTest(properties = { "spring.profiles.active=default", "database=h2",
+		"petclinic.datasource.routing.enabled=true", "petclinic.cache.hibernate.enabled=false" })
+@AutoConfigureMockMvc
+class DataSourceRoutingIntegrationTests {
+
+	private static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@DynamicPropertySource
+	static void replicaProperties(DynamicPropertyRegistry registry) {
+		DataSource replica = replica();
+		new ResourceDatabasePopulator(new ClassPathResource("db/h2/schema.sql"),
+				new ClassPathResource("db/h2/data.sql"))
+			.execute(replica);
+		new JdbcTemplate(replica).update("UPDATE owners SET city = 'Replicaville' WHERE id = 1");
+		registry.add("petclinic.datasource.replicas", () -> REPLICA_URL);
+	}
+
+	@Test
+	void ownerPageIsReadFromTheReplica() throws Exception {
+		this.mockMvc.perform(get("/owners/{ownerId}", 1))
+			.andExpect(status().isOk())
+			.andExpect(content().string(containsString("Replicaville")));
+	}
+
+	@Test
+	void ownerEditIsWrittenToThePrimary() throws Exception {
+		this.mockMvc
+			.perform(post("/owners/{ownerId}/edit", 2).param("firstName", "Betty")
+				.param("lastName", "Davis")
+				.param("address", "638 Cardinal Ave.")
+				.param("city", "Middleton")
+				.param("telephone", "6085551749"))
+			.andExpect(status().is3xxRedirection());
+
+		JdbcTemplate primary = new JdbcTemplate(this.dataSource);
+		assertThat(primary.queryForObject("SELECT city FROM owners WHERE id = 2", String.class)).isEqualTo("Middleton");
+		JdbcTemplate replica = new JdbcTemplate(replica());
+		assertThat(replica.queryForObject("SELECT city FROM owners WHERE id = 2", String.class))
+			.isEqualTo("Sun Prairie");
+	}
+
+	private static DataSource replica() {
+		JdbcDataSource replica = new JdbcDataSource();
+		replica.setURL(REPLICA_URL);
+		return replica;
+	}
+
+}
@@ -0,0 +1,67 @@
+package org.springframework.samples.petclinic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.vet.Slot;
+import org.springframework.samples.petclinic.vet.VetScheduler;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Books a slot that another instance has already booked: the unique constraint on
+ * {@code visits} refuses the second visit, and the form reports the slot as taken.
+ */
+@SpringBootTest(properties = { "spring.profiles.active=default", "database=h2" })
+@AutoConfigureMockMvc
+class VisitBookingIntegrationTests {
+
+	private static final LocalDate MONDAY = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private VetScheduler scheduler;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@AfterEach
+	void deleteBookings() {
+		this.jdbcTemplate.update("DELETE FROM visits WHERE vet_id IS NOT NULL");
+	}
+
+	@Test
+	void slotBookedByAnotherInstanceIsReportedAsTaken() throws Exception {
+		Slot slot = this.scheduler.freeSlots(MONDAY).get(0);
+		// jina instance zapsala termin primo do db, tato o nem nevi
+		this.jdbcTemplate.update(
+				"INSERT INTO visits (pet_id, visit_date, description, vet_id, start_time, end_time) "
+						+ "VALUES (8, ?, 'booked elsewhere', ?, ?, ?)",
+				MONDAY, slot.vetId(), slot.start().toLocalTime(), slot.end().toLocalTime());
+
+		this.mockMvc
+			.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", 6, 7).param("description", "checkup")
+				.param("slot", slot.key()))
+			.andExpect(status().isOk())
+			.andExpect(model().attributeHasFieldErrorCode("visit", "date", "slotTaken"));
+
+		assertThat(
+				this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM visits WHERE vet_id IS NOT NULL", Integer.class))
+			.isEqualTo(1);
+		assertThat(this.scheduler.freeSlots(MONDAY)).doesNotContain(slot);
+	}
+
+}
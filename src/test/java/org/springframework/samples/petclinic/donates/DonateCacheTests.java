@@ -0,0 +1,121 @@
+package org.springframework.samples.petclinic.donates;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+/**
+ * Test class for {@link DonateCache}
+ */
+@ExtendWith(MockitoExtension.class)
+class DonateCacheTests {
+
+	private static final LocalDate LATEST = LocalDate.of(9999, 12, 31);
+
+	private static final Pageable TWO = PageRequest.of(0, 2);
+
+	@Mock
+	private DonateRepository donates;
+
+	private DonateCache cache;
+
+	@BeforeEach
+	void setup() {
+		this.cache = new DonateCache(this.donates, new ConcurrentMapCacheManager(DonateCache.CACHE_NAME), 500,
+				Duration.ofMinutes(10));
+	}
+
+	private void givenTwoKeysetPages() {
+		// 4 donaty, nejnovejsi prvni: dve stranky po dvou
+		given(this.donates.findOlderThan(LATEST, Integer.MAX_VALUE, TWO))
+			.willReturn(new SliceImpl<>(List.of(donate(4, "2023-05-04"), donate(3, "2023-05-03")), TWO, true));
+		given(this.donates.findOlderThan(LocalDate.parse("2023-05-03"), 3, TWO))
+			.willReturn(new SliceImpl<>(List.of(donate(2, "2023-05-02"), donate(1, "2023-05-01")), TWO, false));
+	}
+
+	@Test
+	void shouldServeRepeatedPagesFromCache() {
+		givenTwoKeysetPages();
+		loadBothPages();
+		loadBothPages();
+		verify(this.donates, times(1)).findOlderThan(LATEST, Integer.MAX_VALUE, TWO);
+		verify(this.donates, times(1)).findOlderThan(LocalDate.parse("2023-05-03"), 3, TWO);
+	}
+
+	@Test
+	void shouldEvictOnlyThePageANewDonateBelongsTo() {
+		givenTwoKeysetPages();
+		loadBothPages();
+		this.cache.donateChanged(donate(5, "2023-05-05"));
+		loadBothPages();
+		verify(this.donates, times(2)).findOlderThan(LATEST, Integer.MAX_VALUE, TWO);
+		verify(this.donates, times(1)).findOlderThan(LocalDate.parse("2023-05-03"), 3, TWO);
+	}
+
+	@Test
+	void shouldEvictOnlyThePageADeletedDonateWasOn() {
+		givenTwoKeysetPages();
+		loadBothPages();
+		this.cache.donateChanged(donate(1, "2023-05-01"));
+		loadBothPages();
+		verify(this.donates, times(1)).findOlderThan(LATEST, Integer.MAX_VALUE, TWO);
+		verify(this.donates, times(2)).findOlderThan(LocalDate.parse("2023-05-03"), 3, TWO);
+	}
+
+	@Test
+	void shouldNotKeepAPageLoadedDuringAWrite() {
+		given(this.donates.findOlderThan(LATEST, Integer.MAX_VALUE, TWO)).willAnswer(invocation -> {
+			// zapis se potvrdi, zatimco se stranka cte
+			this.cache.donateChanged(donate(5, "2023-05-05"));
+			return new SliceImpl<>(List.of(donate(4, "2023-05-04"), donate(3, "2023-05-03")), TWO, true);
+		});
+		this.cache.findOlderThan(LATEST, Integer.MAX_VALUE, TWO);
+		this.cache.findOlderThan(LATEST, Integer.MAX_VALUE, TWO);
+		verify(this.donates, times(2)).findOlderThan(LATEST, Integer.MAX_VALUE, TWO);
+	}
+
+	@Test
+	void shouldDropOffsetPagesOnWrite() {
+		given(this.donates.findAll(any(Pageable.class))).willReturn(new PageImpl<>(List.of(donate(1, "2023-05-01"))));
+		this.cache.findAll(TWO);
+		this.cache.findAll(TWO);
+		this.cache.donateChanged(donate(5, "2023-05-05"));
+		this.cache.findAll(TWO);
+		verify(this.donates, times(2)).findAll(TWO);
+		verify(this.donates, times(0)).findNewerThan(any(), anyInt(), any());
+	}
+
+	private void loadBothPages() {
+		this.cache.findOlderThan(LATEST, Integer.MAX_VALUE, TWO);
+		this.cache.findOlderThan(LocalDate.parse("2023-05-03"), 3, TWO);
+	}
+
+	private static Donate donate(int id, String date) {
+		Donate donate = new Donate();
+		donate.setId(id);
+		donate.setDate(LocalDate.parse(date));
+		donate.setDonatorName("Jan Novak");
+		donate.setAmount(new BigDecimal("100.00"));
+		donate.setMessage("Na krmeni");
+		return donate;
+	}
+
+}
@@ -0,0 +1,144 @@
+package org.springframework.samples.petclinic.donates;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.model.Cursor;
+import org.springframework.samples.petclinic.report.DonationRollupService;
+import org.springframework.samples.petclinic.report.ReportAggregateService;
+import org.springframework.samples.petclinic.system.ResourceStreamWriter;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Test class for the {@link DonateController}
+ */
+@WebMvcTest(DonateController.class)
+@Import(ResourceStreamWriter.class)
+@DisabledInNativeImage
+class DonateControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private DonateRepository donates;
+
+	@MockBean
+	private DonateCache donateCache;
+
+	@MockBean
+	private ReportAggregateService reportAggregates;
+
+	@MockBean
+	private DonationRollupService donationRollups;
+
+	@MockBean
+	private DonateWriter donateWriter;
+
+	@Test
+	void testProcessCreationFormSuccess() throws Exception {
+		given(this.donateWriter.write(any(Donate.class))).willReturn(true);
+		mockMvc
+			.perform(post("/donates.html").param("donatorName", "Jan Novak")
+				.param("date", "2023-05-02")
+				.param("amount", "100.50")
+				.param("message", "Na krmeni"))
+			.andExpect(status().is3xxRedirection())
+			.andExpect(view().name("redirect:/donates.html"));
+		verify(this.donateWriter).write(any(Donate.class));
+	}
+
+	@Test
+	void testProcessCreationFormWhenQueueIsFull() throws Exception {
+		given(this.donateWriter.write(any(Donate.class))).willReturn(false);
+		mockMvc
+			.perform(post("/donates.html").param("donatorName", "Jan Novak")
+				.param("date", "2023-05-02")
+				.param("amount", "100.50")
+				.param("message", "Na krmeni"))
+			.andExpect(status().isServiceUnavailable());
+	}
+
+	@Test
+	void testProcessCreationFormRejectsInvalidAmount() throws Exception {
+		mockMvc
+			.perform(post("/donates.html").param("donatorName", "Jan Novak")
+				.param("date", "2023-05-02")
+				.param("amount", "10.505")
+				.param("message", "Na krmeni"))
+			.andExpect(view().name("error.html"));
+		verify(this.donateWriter, never()).write(any(Donate.class));
+	}
+
+	@Test
+	void testFindDonatesInRange() throws Exception {
+		given(this.donates.findByAmountAndDate(eq(new BigDecimal("50")), eq(new BigDecimal("9999999999.99")),
+				eq(LocalDate.of(2023, 1, 1)), eq(LocalDate.of(2023, 12, 31)), any(Pageable.class)))
+			.willReturn(new SliceImpl<>(List
+				.of(new DonateRow(8, "Jan Novak", LocalDate.of(2023, 5, 2), new BigDecimal("100.50"), "Na krmeni")),
+					PageRequest.of(0, 20), false));
+		mockMvc
+			.perform(get("/donates/range").param("minAmount", "50")
+				.param("from", "2023-01-01")
+				.param("to", "2023-12-31")
+				.accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$[0].donatorName").value("Jan Novak"))
+			.andExpect(jsonPath("$[0].amount").value(100.50));
+	}
+
+	@Test
+	void testStreamDonatesAfterId() throws Exception {
+		Donate donate = new Donate();
+		donate.setId(8);
+		donate.setDonatorName("Jan Novak");
+		donate.setDate(LocalDate.of(2023, 5, 2));
+		donate.setAmount(new BigDecimal("100.50"));
+		given(this.donates.streamAfter(eq(7), any(Pageable.class))).willReturn(Stream.of(donate));
+		mockMvc.perform(get("/donates").param("after", "7").accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.donateList.length()").value(1))
+			.andExpect(jsonPath("$.donateList[0].id").value(8))
+			.andExpect(jsonPath("$.donateList[0].amount").value(100.50));
+	}
+
+	@Test
+	void testShowDonateListWithMalformedCursorDate() throws Exception {
+		given(this.donateCache.findOlderThan(eq(LocalDate.of(9999, 12, 31)), eq(Integer.MAX_VALUE),
+				any(Pageable.class)))
+			.willReturn(new SliceImpl<>(List.of(), PageRequest.of(0, 5), false));
+		String token = new Cursor("not-a-date", 8).encode();
+		mockMvc.perform(get("/donates.html").param("after", token))
+			.andExpect(status().isOk())
+			.andExpect(view().name("donates/donateList"));
+		mockMvc.perform(get("/donates.html").param("before", token))
+			.andExpect(status().isOk())
+			.andExpect(view().name("donates/donateList"));
+		verify(this.donateCache, never()).findNewerThan(any(), anyInt(), any());
+	}
+
+}
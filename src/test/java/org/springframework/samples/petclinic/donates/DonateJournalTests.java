@@ -0,0 +1,93 @@
+package org.springframework.samples.petclinic.donates;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for {@link DonateJournal}.
+ */
+class DonateJournalTests {
+
+	private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void shouldReplayDonatesAfterTheLastCommit() throws IOException {
+		Path path = this.dir.resolve("donates.journal");
+		DonateJournal journal = new DonateJournal(path, this.objectMapper, false);
+		assertThat(journal.open()).isEmpty();
+		long first = journal.append(donate("Jan Novak", "100.50"));
+		journal.append(donate("Eva Mala", "20.00"));
+		journal.commit(first);
+		journal.append(donate("Petr Velky", "5.25"));
+		journal.close();
+
+		DonateJournal reopened = new DonateJournal(path, this.objectMapper, false);
+		List<DonateJournal.Entry> pending = reopened.open();
+		assertThat(pending).extracting(DonateJournal.Entry::donatorName).containsExactly("Eva Mala", "Petr Velky");
+		Donate donate = pending.get(0).toDonate();
+		assertThat(donate.getAmount()).isEqualByComparingTo("20.00");
+		assertThat(donate.getDate()).isEqualTo(LocalDate.of(2023, 5, 2));
+		// nova cisla navazuji na zurnal, aby commit neoznacil neulozene donaty
+		assertThat(reopened.append(donate("Ivana Nova", "1.00"))).isEqualTo(4);
+		reopened.close();
+	}
+
+	@Test
+	void shouldTruncateWhenEverythingIsCommitted() throws IOException {
+		Path path = this.dir.resolve("donates.journal");
+		DonateJournal journal = new DonateJournal(path, this.objectMapper, true);
+		journal.open();
+		journal.append(donate("Jan Novak", "100.50"));
+		long last = journal.append(donate("Eva Mala", "20.00"));
+		journal.commit(last);
+		journal.close();
+
+		assertThat(Files.size(path)).isZero();
+		assertThat(new DonateJournal(path, this.objectMapper, false).open()).isEmpty();
+	}
+
+	@Test
+	void shouldIgnoreTornLastLine() throws IOException {
+		Path path = this.dir.resolve("donates.journal");
+		DonateJournal journal = new DonateJournal(path, this.objectMapper, false);
+		journal.open();
+		journal.append(donate("Jan Novak", "100.50"));
+		journal.close();
+		Files.writeString(path, "{\"sequence\":2,\"donatorName\":\"Eva", StandardCharsets.UTF_8,
+				StandardOpenOption.APPEND);
+
+		DonateJournal reopened = new DonateJournal(path, this.objectMapper, false);
+		assertThat(reopened.open()).extracting(DonateJournal.Entry::sequence).containsExactly(1L);
+		reopened.append(donate("Petr Velky", "5.25"));
+		reopened.close();
+
+		assertThat(new DonateJournal(path, this.objectMapper, false).open()).extracting(DonateJournal.Entry::sequence)
+			.containsExactly(1L, 2L);
+	}
+
+	private static Donate donate(String name, String amount) {
+		Donate donate = new Donate();
+		donate.setDonatorName(name);
+		donate.setDate(LocalDate.of(2023, 5, 2));
+		donate.setAmount(new BigDecimal(amount));
+		donate.setMessage("Na krmeni");
+		return donate;
+	}
+
+}
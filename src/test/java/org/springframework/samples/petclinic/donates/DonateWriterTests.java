@@ -0,0 +1,188 @@
+package org.springframework.samples.petclinic.donates;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.samples.petclinic.report.DonationRollupService;
+import org.springframework.samples.petclinic.report.ReportAggregateService;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Tests for {@link DonateWriter} in write-behind mode. The database is a mocked
+ * {@link JdbcTemplate} that records the inserted batches.
+ */
+class DonateWriterTests {
+
+	private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+	private final DonateRepository donates = mock(DonateRepository.class);
+
+	/*
+	 * vlozene davky, jmena darcu v poradi vlozeni
+	 */
+	private final List<List<String>> batches = new ArrayList<>();
+
+	@TempDir
+	Path dir;
+
+	private DonateWriter writer;
+
+	@AfterEach
+	void stop() {
+		if (this.writer != null) {
+			this.writer.stop();
+		}
+	}
+
+	@Test
+	void insertsDonatesInBatchesOfFlushSize() throws Exception {
+		recordBatches();
+		this.writer = writer(100, 3, Duration.ofMillis(200), 5);
+		this.writer.start();
+		for (int i = 1; i <= 7; i++) {
+			assertThat(this.writer.write(donate("Darce " + i))).isTrue();
+		}
+		this.writer.stop();
+		assertThat(this.batches).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(3));
+		assertThat(this.batches.stream().flatMap(List::stream)).containsExactly("Darce 1", "Darce 2", "Darce 3",
+				"Darce 4", "Darce 5", "Darce 6", "Darce 7");
+		verify(this.donates, never()).save(any());
+	}
+
+	@Test
+	void rejectsDonatesWhileTheQueueIsFull() throws Exception {
+		CountDownLatch inserting = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		given(this.jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(),
+				any(ParameterizedPreparedStatementSetter.class)))
+			.willAnswer(invocation -> {
+				inserting.countDown();
+				release.await(10, TimeUnit.SECONDS);
+				return new int[0][];
+			});
+		this.writer = writer(2, 1, Duration.ofMillis(10), 5);
+		this.writer.start();
+		assertThat(this.writer.write(donate("Jan Novak"))).isTrue();
+		assertThat(inserting.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(this.writer.write(donate("Eva Mala"))).isTrue();
+		// obe mista ve fronte drzi donaty, ktere jeste nejsou v db
+		assertThat(this.writer.write(donate("Petr Velky"))).isFalse();
+		release.countDown();
+	}
+
+	@Test
+	void drainsTheQueueOnShutdown() throws Exception {
+		recordBatches();
+		this.writer = writer(100, 50, Duration.ofMillis(200), 5);
+		this.writer.start();
+		for (int i = 1; i <= 5; i++) {
+			this.writer.write(donate("Darce " + i));
+		}
+		this.writer.stop();
+		assertThat(this.writer.pending()).isZero();
+		assertThat(this.batches.stream().flatMap(List::stream)).hasSize(5);
+		assertThat(Files.size(journalPath())).isZero();
+	}
+
+	@Test
+	void replaysTheJournalAfterARestart() throws Exception {
+		DonateJournal journal = new DonateJournal(journalPath(), this.objectMapper, false);
+		journal.open();
+		long first = journal.append(donate("Jan Novak"));
+		journal.append(donate("Eva Mala"));
+		journal.append(donate("Petr Velky"));
+		journal.commit(first);
+		// pad: zbytek zurnalu se nikdy nepotvrdil
+		journal.close();
+
+		recordBatches();
+		this.writer = writer(100, 50, Duration.ofMillis(200), 5);
+		this.writer.start();
+		assertThat(this.batches).containsExactly(List.of("Eva Mala", "Petr Velky"));
+	}
+
+	@Test
+	void movesRefusedDonatesToTheDeadLetterFile() throws Exception {
+		given(this.jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(),
+				any(ParameterizedPreparedStatementSetter.class)))
+			.willAnswer(invocation -> {
+				Collection<Donate> batch = invocation.getArgument(1);
+				if (batch.stream().anyMatch(donate -> donate.getDonatorName().equals("Eva Mala"))) {
+					throw new DataIntegrityViolationException("amount out of range");
+				}
+				this.batches.add(batch.stream().map(Donate::getDonatorName).toList());
+				return new int[0][];
+			});
+		this.writer = writer(100, 3, Duration.ofMillis(200), 2);
+		this.writer.start();
+		this.writer.write(donate("Jan Novak"));
+		this.writer.write(donate("Eva Mala"));
+		this.writer.write(donate("Petr Velky"));
+		this.writer.stop();
+		assertThat(this.batches.stream().flatMap(List::stream)).containsExactly("Jan Novak", "Petr Velky");
+		Path failed = this.dir.resolve("donates.journal.failed");
+		assertThat(Files.readString(failed)).contains("Eva Mala").doesNotContain("Jan Novak");
+		assertThat(Files.size(journalPath())).isZero();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void recordBatches() {
+		given(this.jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(),
+				any(ParameterizedPreparedStatementSetter.class)))
+			.willAnswer(invocation -> {
+				Collection<Donate> batch = invocation.getArgument(1);
+				synchronized (this.batches) {
+					this.batches.add(batch.stream().map(Donate::getDonatorName).toList());
+				}
+				return new int[0][];
+			});
+	}
+
+	private DonateWriter writer(int queueCapacity, int flushSize, Duration flushInterval, int maxAttempts) {
+		return new DonateWriter(this.donates, this.jdbcTemplate, mock(PlatformTransactionManager.class),
+				mock(ReportAggregateService.class), mock(DonationRollupService.class), mock(DonateCache.class),
+				this.objectMapper, true, queueCapacity, flushSize, flushInterval, Duration.ofMillis(50),
+				Duration.ofSeconds(10), maxAttempts, journalPath(), false);
+	}
+
+	private Path journalPath() {
+		return this.dir.resolve("donates.journal");
+	}
+
+	private static Donate donate(String name) {
+		Donate donate = new Donate();
+		donate.setDonatorName(name);
+		donate.setDate(LocalDate.of(2023, 5, 2));
+		donate.setAmount(new BigDecimal("10.00"));
+		return donate;
+	}
+
+}
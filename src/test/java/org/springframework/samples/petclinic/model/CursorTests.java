@@ -0,0 +1,28 @@
+package org.springframework.samples.petclinic.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link Cursor}
+ */
+class CursorTests {
+
+	@Test
+	void shouldRoundTripThroughToken() {
+		Cursor cursor = new Cursor("O'Brien: Jr.", 42);
+		String token = cursor.encode();
+		assertThat(token).matches("[A-Za-z0-9_-]+");
+		assertThat(Cursor.decode(token)).isEqualTo(cursor);
+	}
+
+	@Test
+	void shouldTreatMalformedTokenAsFirstPage() {
+		assertThat(Cursor.decode(null)).isNull();
+		assertThat(Cursor.decode("")).isNull();
+		assertThat(Cursor.decode("not a token!")).isNull();
+		assertThat(Cursor.decode("Zm9v")).isNull();
+	}
+
+}
@@ -0,0 +1,94 @@
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Tests for the Hibernate second-level cache behind the owner pages: repeated views are
+ * served without SQL and a save makes the next view read the database again.
+ */
+@SpringBootTest(properties = { "spring.profiles.active=default", "database=h2" })
+@AutoConfigureMockMvc
+class OwnerCacheTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setup() {
+		this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void ownerDetailsAreCachedUntilTheOwnerIsSaved() throws Exception {
+		this.mockMvc.perform(get("/owners/{ownerId}", 9)).andExpect(status().isOk());
+		this.statistics.clear();
+		this.mockMvc.perform(get("/owners/{ownerId}", 9)).andExpect(status().isOk());
+		assertThat(this.statistics.getPrepareStatementCount()).isZero();
+
+		this.mockMvc
+			.perform(post("/owners/{ownerId}/edit", 9).param("firstName", "David")
+				.param("lastName", "Schroeder")
+				.param("address", "2749 Blackhawk Trail")
+				.param("city", "Monona")
+				.param("telephone", "6085559435"))
+			.andExpect(status().is3xxRedirection());
+		this.statistics.clear();
+		this.mockMvc.perform(get("/owners/{ownerId}", 9))
+			.andExpect(status().isOk())
+			.andExpect(content().string(containsString("Monona")));
+		assertThat(this.statistics.getPrepareStatementCount()).isPositive();
+	}
+
+	@Test
+	void newVisitIsShownOnTheCachedOwnerPage() throws Exception {
+		this.mockMvc.perform(get("/owners/{ownerId}", 8)).andExpect(status().isOk());
+		this.mockMvc
+			.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", 8, 10).param("date", "2013-01-05")
+				.param("description", "first checkup of the year"))
+			.andExpect(status().is3xxRedirection());
+		this.mockMvc.perform(get("/owners/{ownerId}", 8))
+			.andExpect(status().isOk())
+			.andExpect(content().string(containsString("first checkup of the year")));
+	}
+
+	@Test
+	void petTypesAreCached() throws Exception {
+		this.mockMvc.perform(get("/owners/{ownerId}/pets/new", 3)).andExpect(status().isOk());
+		this.statistics.clear();
+		this.mockMvc.perform(get("/owners/{ownerId}/pets/new", 3)).andExpect(status().isOk());
+		assertThat(this.statistics.getPrepareStatementCount()).isZero();
+		assertThat(this.statistics.getQueryCacheHitCount()).isPositive();
+	}
+
+	@Test
+	void regionStatisticsAreExposed() throws Exception {
+		this.mockMvc.perform(get("/owners/{ownerId}", 1)).andExpect(status().isOk());
+		this.mockMvc.perform(get("/actuator/hibernatecache"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.enabled").value(true))
+			.andExpect(jsonPath("$.regions.owners.puts").isNumber());
+	}
+
+}
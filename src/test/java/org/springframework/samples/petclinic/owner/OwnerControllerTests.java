@@ -16,21 +16,27 @@
 
 package org.springframework.samples.petclinic.owner;
 
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.assertj.core.util.Lists;
@@ -43,9 +49,13 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.samples.petclinic.report.ReportAggregateService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.samples.petclinic.model.Cursor;
 import org.springframework.test.web.servlet.MockMvc;
 
 /**
@@ -65,6 +75,15 @@ class OwnerControllerTests {
 	@MockBean
 	private OwnerRepository owners;
 
+	@MockBean
+	private ReportAggregateService reportAggregates;
+
+	@MockBean
+	private OwnerNameIndex ownerNameIndex;
+
+	@MockBean
+	private VisitRepository visits;
+
 	private Owner george() {
 		Owner george = new Owner();
 		george.setId(TEST_OWNER_ID);
@@ -84,16 +103,31 @@ class OwnerControllerTests {
 		return george;
 	};
 
+	private static List<OwnerListRow> rows(Owner... owners) {
+		List<OwnerListRow> rows = new ArrayList<>();
+		for (Owner owner : owners) {
+			for (Pet pet : owner.getPets()) {
+				rows.add(new OwnerListRow(owner.getId(), owner.getFirstName(), owner.getLastName(), owner.getAddress(),
+						owner.getCity(), owner.getTelephone(), pet.getName()));
+			}
+		}
+		return rows;
+	}
+
 	@BeforeEach
 	void setup() {
 
 		Owner george = george();
-		given(this.owners.findByLastName(eq("Franklin"), any(Pageable.class)))
-			.willReturn(new PageImpl<Owner>(Lists.newArrayList(george)));
+		given(this.owners.findIdsByLastName(eq("Franklin"), any(Pageable.class)))
+			.willReturn(new PageImpl<>(Lists.newArrayList(TEST_OWNER_ID)));
+		given(this.owners.findListRows(List.of(TEST_OWNER_ID))).willReturn(rows(george));
 
 		given(this.owners.findAll(any(Pageable.class))).willReturn(new PageImpl<Owner>(Lists.newArrayList(george)));
 
 		given(this.owners.findById(TEST_OWNER_ID)).willReturn(george);
+		given(this.owners.findWithPetsById(TEST_OWNER_ID)).willReturn(george);
+		given(this.visits.findLatest(List.of(1), 6))
+			.willReturn(List.of(new PetVisit(1, 1, LocalDate.now(), "rabies shot")));
 		Visit visit = new Visit();
 		visit.setDate(LocalDate.now());
 		george.getPet("Max").getVisits().add(visit);
@@ -140,15 +174,25 @@ class OwnerControllerTests {
 
 	@Test
 	void testProcessFindFormSuccess() throws Exception {
-		Page<Owner> tasks = new PageImpl<Owner>(Lists.newArrayList(george(), new Owner()));
-		Mockito.when(this.owners.findByLastName(anyString(), any(Pageable.class))).thenReturn(tasks);
-		mockMvc.perform(get("/owners?page=1")).andExpect(status().isOk()).andExpect(view().name("owners/ownersList"));
+		Owner betty = george();
+		betty.setId(2);
+		betty.setFirstName("Betty");
+		Page<Integer> tasks = new PageImpl<>(Lists.newArrayList(TEST_OWNER_ID, 2));
+		Mockito.when(this.owners.findIdsByLastName(anyString(), any(Pageable.class))).thenReturn(tasks);
+		given(this.owners.findListRows(List.of(TEST_OWNER_ID, 2))).willReturn(rows(betty, george()));
+		mockMvc.perform(get("/owners?page=1"))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("listOwners",
+					contains(hasProperty("firstName", is("George")), hasProperty("firstName", is("Betty")))))
+			.andExpect(model().attribute("listOwners",
+					contains(hasProperty("pets", contains("Max")), hasProperty("pets", contains("Max")))))
+			.andExpect(view().name("owners/ownersList"));
 	}
 
 	@Test
 	void testProcessFindFormByLastName() throws Exception {
-		Page<Owner> tasks = new PageImpl<Owner>(Lists.newArrayList(george()));
-		Mockito.when(this.owners.findByLastName(eq("Franklin"), any(Pageable.class))).thenReturn(tasks);
+		Page<Integer> tasks = new PageImpl<>(Lists.newArrayList(TEST_OWNER_ID));
+		Mockito.when(this.owners.findIdsByLastName(eq("Franklin"), any(Pageable.class))).thenReturn(tasks);
 		mockMvc.perform(get("/owners?page=1").param("lastName", "Franklin"))
 			.andExpect(status().is3xxRedirection())
 			.andExpect(view().name("redirect:/owners/" + TEST_OWNER_ID));
@@ -156,8 +200,8 @@ class OwnerControllerTests {
 
 	@Test
 	void testProcessFindFormNoOwnersFound() throws Exception {
-		Page<Owner> tasks = new PageImpl<Owner>(Lists.newArrayList());
-		Mockito.when(this.owners.findByLastName(eq("Unknown Surname"), any(Pageable.class))).thenReturn(tasks);
+		Page<Integer> tasks = new PageImpl<>(Lists.newArrayList());
+		Mockito.when(this.owners.findIdsByLastName(eq("Unknown Surname"), any(Pageable.class))).thenReturn(tasks);
 		mockMvc.perform(get("/owners?page=1").param("lastName", "Unknown Surname"))
 			.andExpect(status().isOk())
 			.andExpect(model().attributeHasFieldErrors("owner", "lastName"))
@@ -166,6 +210,51 @@ class OwnerControllerTests {
 
 	}
 
+	@Test
+	void testProcessFindFormByKeyset() throws Exception {
+		Owner betty = george();
+		betty.setId(2);
+		betty.setLastName("Franklin");
+		given(this.owners.findIdsByLastNameAfter(eq("Fr"), eq("Franklin"), eq(TEST_OWNER_ID), any(Pageable.class)))
+			.willReturn(new SliceImpl<>(Lists.newArrayList(2), PageRequest.of(0, 5), false));
+		given(this.owners.findListRows(List.of(2))).willReturn(rows(betty));
+		mockMvc
+			.perform(get("/owners").param("lastName", "Fr")
+				.param("after", new Cursor("Franklin", TEST_OWNER_ID).encode()))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("previousCursor", new Cursor("Franklin", 2).encode()))
+			.andExpect(model().attribute("nextCursor", nullValue()))
+			.andExpect(model().attribute("lastName", "Fr"))
+			.andExpect(view().name("owners/ownersList"));
+		Mockito.verify(this.owners, Mockito.never()).countByLastName(anyString());
+	}
+
+	@Test
+	void testProcessFindFormByKeysetSingleOwner() throws Exception {
+		given(this.owners.findIdsByLastNameAfter(eq("Franklin"), eq(""), eq(0), any(Pageable.class)))
+			.willReturn(new SliceImpl<>(Lists.newArrayList(TEST_OWNER_ID), PageRequest.of(0, 5), false));
+		mockMvc.perform(get("/owners").param("lastName", "Franklin"))
+			.andExpect(status().is3xxRedirection())
+			.andExpect(view().name("redirect:/owners/" + TEST_OWNER_ID));
+	}
+
+	@Test
+	void testProcessFindFormByNameIndex() throws Exception {
+		Owner betty = george();
+		betty.setId(2);
+		given(this.ownerNameIndex.isLoaded()).willReturn(true);
+		given(this.ownerNameIndex.findPage(eq("Fr"), any(Pageable.class)))
+			.willReturn(new PageImpl<>(List.of(2, TEST_OWNER_ID), PageRequest.of(0, 5), 7));
+		given(this.owners.findListRows(List.of(2, TEST_OWNER_ID))).willReturn(rows(george(), betty));
+		mockMvc.perform(get("/owners?page=1").param("lastName", "Fr"))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("totalItems", 7L))
+			.andExpect(model().attribute("listOwners",
+					contains(hasProperty("id", is(2)), hasProperty("id", is(TEST_OWNER_ID)))))
+			.andExpect(view().name("owners/ownersList"));
+		Mockito.verify(this.owners, Mockito.never()).findIdsByLastName(anyString(), any(Pageable.class));
+	}
+
 	@Test
 	void testInitUpdateOwnerForm() throws Exception {
 		mockMvc.perform(get("/owners/{ownerId}/edit", TEST_OWNER_ID))
@@ -240,6 +329,8 @@ class OwnerControllerTests {
 					description.appendText("Max did not have any visits");
 				}
 			})))
+			.andExpect(model().attribute("visits", hasKey(1)))
+			.andExpect(content().string(containsString("rabies shot")))
 			.andExpect(view().name("owners/ownerDetails"));
 	}
 
@@ -0,0 +1,102 @@
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Locks the number of SQL statements the owner pages run, so that a mapping change which
+ * brings back eager loading or an N+1 query fails here instead of in production.
+ */
+// the second-level cache would hide the statements of the fetch plans
+@SpringBootTest(properties = { "spring.profiles.active=default", "database=h2",
+		"spring.jpa.properties.hibernate.generate_statistics=true", "petclinic.cache.hibernate.enabled=false" })
+@AutoConfigureMockMvc
+class OwnerFetchPlanTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private PetTypeFormatter petTypeFormatter;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setup() {
+		this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		// the formatter loads the pet types once per application, not per request
+		this.petTypeFormatter.refresh();
+	}
+
+	@Test
+	void ownerDetailsLoadTheLatestVisitsOfAllPetsTogether() throws Exception {
+		// owner, owner with pets and the latest visits of both pets
+		assertThat(statements(get("/owners/{ownerId}", 6))).isEqualTo(3);
+	}
+
+	@Test
+	void ownerFormLoadsOnlyTheOwner() throws Exception {
+		assertThat(statements(get("/owners/{ownerId}/edit", 6))).isEqualTo(1);
+	}
+
+	@Test
+	void ownersListLoadsOnlyTheRowsOfThePage() throws Exception {
+		// the ids come from the owner name index
+		assertThat(statements(get("/owners").param("lastName", "Davis"))).isEqualTo(1);
+	}
+
+	@Test
+	void petFormLoadsOwnerWithPets() throws Exception {
+		// owner with pets once for all model attributes, then the pet types for the
+		// select
+		assertThat(statements(get("/owners/{ownerId}/pets/{petId}/edit", 6, 7))).isEqualTo(2);
+	}
+
+	@Test
+	void petUpdateDoesNotQueryTypesToBindTheType() throws Exception {
+		// owner with pets, the pet types for the form and the update of the pet
+		assertThat(statements(post("/owners/{ownerId}/pets/{petId}/edit", 6, 7).param("name", "Samantha")
+			.param("birthDate", "2012-09-05")
+			.param("type", "cat"), status().is3xxRedirection())).isEqualTo(3);
+	}
+
+	@Test
+	void visitFormLoadsVisitsOfOnePet() throws Exception {
+		assertThat(statements(get("/owners/{ownerId}/pets/{petId}/visits/new", 6, 7))).isEqualTo(2);
+	}
+
+	@Test
+	void newVisitIsOneInsertAfterAKeyLookup() throws Exception {
+		assertThat(statements(post("/owners/{ownerId}/pets/{petId}/visits/new", 6, 7).param("date", "2013-01-05")
+			.param("description", "checkup"), status().is3xxRedirection())).isEqualTo(2);
+	}
+
+	private long statements(RequestBuilder request) throws Exception {
+		return statements(request, status().isOk());
+	}
+
+	private long statements(RequestBuilder request, ResultMatcher expected) throws Exception {
+		this.statistics.clear();
+		this.mockMvc.perform(request).andExpect(expected);
+		return this.statistics.getPrepareStatementCount();
+	}
+
+}
@@ -0,0 +1,100 @@
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * Tests for {@link OwnerNameIndex}.
+ */
+@ExtendWith(MockitoExtension.class)
+class OwnerNameIndexTests {
+
+	@Mock
+	private OwnerRepository owners;
+
+	private OwnerNameIndex index;
+
+	@BeforeEach
+	void setup() {
+		this.index = new OwnerNameIndex(this.owners, true);
+		given(this.owners.findOwnerNames())
+			.willReturn(List.of(new OwnerName(1, "Franklin"), new OwnerName(2, "Davis"), new OwnerName(3, "Fran"),
+					new OwnerName(4, "Davis"), new OwnerName(5, "Escobito"), new OwnerName(6, "Frank")));
+	}
+
+	@Test
+	void shouldCountAndPageByPrefix() {
+		this.index.load();
+		assertThat(this.index.count("Fran")).isEqualTo(3);
+		assertThat(this.index.count("")).isEqualTo(6);
+		assertThat(this.index.count("Z")).isZero();
+		assertThat(this.index.findPage("Fran", PageRequest.of(0, 2)).getContent()).containsExactly(3, 6);
+		assertThat(this.index.findPage("Fran", PageRequest.of(1, 2)).getContent()).containsExactly(1);
+		assertThat(this.index.findPage("Fran", PageRequest.of(1, 2)).getTotalElements()).isEqualTo(3);
+	}
+
+	@Test
+	void shouldPageByKeyset() {
+		this.index.load();
+		assertThat(this.index.findAfter("", "Davis", 2, 2).getContent()).containsExactly(4, 5);
+		assertThat(this.index.findAfter("", "Davis", 2, 2).hasNext()).isTrue();
+		assertThat(this.index.findAfter("D", "Davis", 2, 2).getContent()).containsExactly(4);
+		assertThat(this.index.findAfter("D", "Davis", 2, 2).hasNext()).isFalse();
+		assertThat(this.index.findBefore("", "Fran", 3, 2).getContent()).containsExactly(5, 4);
+		assertThat(this.index.findBefore("", "Fran", 3, 2).hasNext()).isTrue();
+	}
+
+	@Test
+	void shouldFollowSavedOwners() {
+		Owner renamed = new Owner();
+		renamed.setId(1);
+		renamed.setLastName("Black");
+		// zapis behem nacitani se po nacteni prehraje
+		this.index.ownerSaved(renamed);
+		this.index.load();
+		Owner added = new Owner();
+		added.setId(7);
+		added.setLastName("Francis");
+		this.index.ownerSaved(added);
+
+		assertThat(this.index.findPage("Fran", PageRequest.of(0, 5)).getContent()).containsExactly(3, 7, 6);
+		assertThat(this.index.findPage("B", PageRequest.of(0, 5)).getContent()).containsExactly(1);
+	}
+
+	@Test
+	void shouldMatchAndOrderIgnoringCase() {
+		given(this.owners.findOwnerNames()).willReturn(List.of(new OwnerName(1, "davis"), new OwnerName(2, "Davies"),
+				new OwnerName(3, "DAVIS"), new OwnerName(4, "Black")));
+		this.index.load();
+		assertThat(this.index.count("dav")).isEqualTo(3);
+		assertThat(this.index.findPage("DAV", PageRequest.of(0, 5)).getContent()).containsExactly(2, 1, 3);
+		assertThat(this.index.findAfter("d", "Davis", 1, 5).getContent()).containsExactly(3);
+		assertThat(this.index.findBefore("", "davies", 2, 5).getContent()).containsExactly(4);
+	}
+
+	@Test
+	void shouldKeepTheOrderWhenOwnersAreInsertedAndRenamed() {
+		this.index.load();
+		Owner owner = new Owner();
+		owner.setId(8);
+		for (String lastName : List.of("Aaron", "Frankie", "Zed", "davis")) {
+			owner.setLastName(lastName);
+			this.index.ownerSaved(owner);
+			assertThat(this.index.count("")).isEqualTo(7);
+		}
+		assertThat(this.index.findPage("", PageRequest.of(0, 10)).getContent()).containsExactly(2, 4, 8, 5, 3, 6, 1);
+		owner.setLastName(null);
+		this.index.ownerSaved(owner);
+		assertThat(this.index.count("")).isEqualTo(6);
+	}
+
+}
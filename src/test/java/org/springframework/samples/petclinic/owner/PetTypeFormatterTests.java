@@ -18,6 +18,8 @@ package org.springframework.samples.petclinic.owner;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import java.text.ParseException;
 import java.util.ArrayList;
@@ -75,6 +77,33 @@ class PetTypeFormatterTests {
 		});
 	}
 
+	@Test
+	void shouldParseById() throws ParseException {
+		given(this.pets.findPetTypes()).willReturn(makePetTypes());
+		PetType petType = petTypeFormatter.parse("2", Locale.ENGLISH);
+		assertThat(petType.getName()).isEqualTo("Bird");
+	}
+
+	@Test
+	void shouldLoadPetTypesOnce() throws ParseException {
+		given(this.pets.findPetTypes()).willReturn(makePetTypes());
+		petTypeFormatter.parse("Bird", Locale.ENGLISH);
+		petTypeFormatter.parse("Dog", Locale.ENGLISH);
+		verify(this.pets, times(1)).findPetTypes();
+	}
+
+	@Test
+	void shouldReloadForUnknownType() throws ParseException {
+		List<PetType> petTypes = makePetTypes();
+		given(this.pets.findPetTypes()).willReturn(petTypes);
+		petTypeFormatter.parse("Dog", Locale.ENGLISH);
+		PetType fish = new PetType();
+		fish.setId(3);
+		fish.setName("Fish");
+		petTypes.add(fish);
+		assertThat(petTypeFormatter.parse("Fish", Locale.ENGLISH)).isSameAs(fish);
+	}
+
 	/**
 	 * Helper method to produce some sample pet types just for test purpose
 	 * @return {@link Collection} of {@link PetType}
@@ -83,11 +112,13 @@ class PetTypeFormatterTests {
 		List<PetType> petTypes = new ArrayList<>();
 		petTypes.add(new PetType() {
 			{
+				setId(1);
 				setName("Dog");
 			}
 		});
 		petTypes.add(new PetType() {
 			{
+				setId(2);
 				setName("Bird");
 			}
 		});
@@ -16,27 +16,49 @@
 
 package org.springframework.samples.petclinic.owner;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.DisabledInNativeImage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.context.annotation.Import;
+import org.springframework.samples.petclinic.vet.Slot;
+import org.springframework.samples.petclinic.vet.VetScheduler;
 import org.springframework.test.web.servlet.MockMvc;
 
+import jakarta.servlet.ServletException;
+
 /**
  * Test class for {@link VisitController}
  *
  * @author Colin But
  */
 @WebMvcTest(VisitController.class)
+@Import(OwnerLoader.class)
 @DisabledInNativeImage
 class VisitControllerTests {
 
@@ -50,13 +72,22 @@ class VisitControllerTests {
 	@MockBean
 	private OwnerRepository owners;
 
+	@MockBean
+	private VisitRepository visits;
+
+	@MockBean
+	private VetScheduler scheduler;
+
 	@BeforeEach
 	void init() {
 		Owner owner = new Owner();
 		Pet pet = new Pet();
 		owner.addPet(pet);
 		pet.setId(TEST_PET_ID);
-		given(this.owners.findById(TEST_OWNER_ID)).willReturn(owner);
+		given(this.owners.findWithPetsById(TEST_OWNER_ID)).willReturn(owner);
+		given(this.visits.countPetsOfOwner(TEST_OWNER_ID, TEST_PET_ID)).willReturn(1L);
+		given(this.visits.findHistory(eq(TEST_PET_ID), any(), anyInt(), any()))
+			.willReturn(new SliceImpl<>(List.of(), PageRequest.of(0, VisitController.HISTORY_PAGE_SIZE), false));
 	}
 
 	@Test
@@ -66,6 +97,19 @@ class VisitControllerTests {
 			.andExpect(view().name("pets/createOrUpdateVisitForm"));
 	}
 
+	@Test
+	void testInitNewVisitFormShowsTheNewestVisitsOnly() throws Exception {
+		LocalDate date = LocalDate.of(2013, 1, 4);
+		given(this.visits.findHistory(eq(TEST_PET_ID), eq(LocalDate.of(9999, 12, 31)), eq(Integer.MAX_VALUE), any()))
+			.willReturn(new SliceImpl<>(List.of(new PetVisit(TEST_PET_ID, 4, date, "spayed")),
+					PageRequest.of(0, VisitController.HISTORY_PAGE_SIZE), true));
+		mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits/new", TEST_OWNER_ID, TEST_PET_ID))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("visits",
+					new VisitHistoryPage(List.of(new PetVisit(TEST_PET_ID, 4, date, "spayed")), date, 4)))
+			.andExpect(content().string(containsString("Older visits")));
+	}
+
 	@Test
 	void testProcessNewVisitFormSuccess() throws Exception {
 		mockMvc
@@ -74,6 +118,38 @@ class VisitControllerTests {
 				.param("description", "Visit Description"))
 			.andExpect(status().is3xxRedirection())
 			.andExpect(view().name("redirect:/owners/{ownerId}"));
+		verify(this.visits).insert(eq(TEST_PET_ID), any(LocalDate.class), eq("Visit Description"));
+		verify(this.owners, never()).findWithPetsById(TEST_OWNER_ID);
+	}
+
+	@Test
+	void testShowVisitHistory() throws Exception {
+		LocalDate date = LocalDate.of(2013, 1, 4);
+		given(this.visits.findHistory(eq(TEST_PET_ID), eq(LocalDate.of(2013, 1, 5)), eq(8), any())).willReturn(
+				new SliceImpl<>(List.of(new PetVisit(TEST_PET_ID, 4, date, "spayed")), PageRequest.of(0, 1), true));
+		mockMvc
+			.perform(get("/owners/{ownerId}/pets/{petId}/visits", TEST_OWNER_ID, TEST_PET_ID)
+				.param("beforeDate", "2013-01-05")
+				.param("beforeId", "8")
+				.param("size", "1"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.visits[0].description").value("spayed"))
+			.andExpect(jsonPath("$.nextBeforeDate").value("2013-01-04"))
+			.andExpect(jsonPath("$.nextBeforeId").value(4));
+	}
+
+	@Test
+	void testShowVisitHistoryOfAnotherOwnersPet() throws Exception {
+		mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits", TEST_OWNER_ID, 2))
+			.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void testProcessNewVisitFormForPetOfAnotherOwner() {
+		assertThrows(ServletException.class,
+				() -> mockMvc.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", TEST_OWNER_ID, 2)
+					.param("description", "Visit Description")));
+		verify(this.visits, never()).insert(anyInt(), any(), any());
 	}
 
 	@Test
@@ -86,4 +162,51 @@ class VisitControllerTests {
 			.andExpect(view().name("pets/createOrUpdateVisitForm"));
 	}
 
+	@Test
+	void testProcessNewVisitFormWithSlot() throws Exception {
+		LocalDateTime start = LocalDate.now().plusDays(1).atTime(9, 30);
+		Slot slot = new Slot(3, "Linda Douglas", start, start.plusMinutes(30));
+		given(this.scheduler.findSlot(slot.key())).willReturn(slot);
+		given(this.scheduler.book(eq(slot), any())).willAnswer(invocation -> {
+			invocation.<Runnable>getArgument(1).run();
+			return true;
+		});
+		mockMvc
+			.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", TEST_OWNER_ID, TEST_PET_ID)
+				.param("description", "Visit Description")
+				.param("slot", slot.key()))
+			.andExpect(status().is3xxRedirection())
+			.andExpect(view().name("redirect:/owners/{ownerId}"));
+		verify(this.visits).insertBooked(TEST_PET_ID, start.toLocalDate(), "Visit Description", 3, LocalTime.of(9, 30),
+				LocalTime.of(10, 0));
+	}
+
+	@Test
+	void testProcessNewVisitFormWithTakenSlot() throws Exception {
+		LocalDateTime start = LocalDate.now().plusDays(1).atTime(9, 30);
+		Slot slot = new Slot(3, "Linda Douglas", start, start.plusMinutes(30));
+		given(this.scheduler.findSlot(slot.key())).willReturn(slot);
+		given(this.scheduler.book(eq(slot), any())).willReturn(false);
+		mockMvc
+			.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", TEST_OWNER_ID, TEST_PET_ID)
+				.param("description", "Visit Description")
+				.param("slot", slot.key()))
+			.andExpect(model().attributeHasFieldErrorCode("visit", "date", "slotTaken"))
+			.andExpect(status().isOk())
+			.andExpect(view().name("pets/createOrUpdateVisitForm"));
+		verify(this.visits, never()).insertBooked(anyInt(), any(), any(), anyInt(), any(), any());
+	}
+
+	@Test
+	void testProcessNewVisitFormWithUnknownSlot() throws Exception {
+		mockMvc
+			.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", TEST_OWNER_ID, TEST_PET_ID)
+				.param("description", "Visit Description")
+				.param("slot", "not-a-slot"))
+			.andExpect(model().attributeHasFieldErrorCode("visit", "date", "slotUnavailable"))
+			.andExpect(status().isOk())
+			.andExpect(view().name("pets/createOrUpdateVisitForm"));
+		verify(this.scheduler, never()).book(any(), any());
+	}
+
 }
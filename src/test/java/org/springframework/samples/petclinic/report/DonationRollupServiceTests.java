@@ -0,0 +1,83 @@
+package org.springframework.samples.petclinic.report;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.samples.petclinic.donates.Donate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Concurrent writers to the donation buckets, each in its own transaction.
+ */
+@DataJpaTest(includeFilters = @ComponentScan.Filter(Service.class),
+		properties = { "spring.profiles.active=default", "database=h2" })
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DonationRollupServiceTests {
+
+	private static final LocalDate DAY = LocalDate.of(2031, 1, 6);
+
+	@Autowired
+	private DonationRollupService donationRollups;
+
+	@Autowired
+	private DonationBucketRepository buckets;
+
+	@AfterEach
+	void deleteBuckets() {
+		this.buckets.deleteAll();
+	}
+
+	@Test
+	void concurrentFirstDonatesOfADayShareOneBucket() throws Exception {
+		int writers = 8;
+		CyclicBarrier start = new CyclicBarrier(writers);
+		ExecutorService executor = Executors.newFixedThreadPool(writers);
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (int i = 1; i <= writers; i++) {
+				Donate donate = donate(i * 10);
+				results.add(executor.submit(() -> {
+					start.await(10, TimeUnit.SECONDS);
+					this.donationRollups.donateAdded(donate);
+					return null;
+				}));
+			}
+			for (Future<?> result : results) {
+				result.get(10, TimeUnit.SECONDS);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertThat(this.donationRollups.daily(DAY, DAY)).containsExactly(new DonationRollup(DAY, writers,
+				new BigDecimal("360.00"), new BigDecimal("80.00"), new BigDecimal("10.00")));
+	}
+
+	private static Donate donate(int amount) {
+		Donate donate = new Donate();
+		donate.setDonatorName("Darce " + amount);
+		donate.setDate(DAY);
+		donate.setAmount(BigDecimal.valueOf(amount));
+		return donate;
+	}
+
+}
@@ -0,0 +1,137 @@
+package org.springframework.samples.petclinic.report;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.PetVisitSummary;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Test class for the {@link ReportController}
+ */
+@WebMvcTest(controllers = ReportController.class, properties = "petclinic.reports.query-timeout=500ms")
+@Import(ReportAssembler.class)
+@DisabledInNativeImage
+class ReportControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private ReportAggregateService reportAggregates;
+
+	@MockBean
+	private OwnerRepository owners;
+
+	@MockBean
+	private DonationRollupService donationRollups;
+
+	@MockBean
+	private ReportSnapshotCache reportSnapshots;
+
+	@Autowired
+	private ReportAssembler reportAssembler;
+
+	@BeforeEach
+	void setup() {
+		given(this.reportSnapshots.get()).willAnswer(invocation -> new ReportSnapshot(
+				this.reportAssembler.assemble(null, null, ReportAssembler.DEFAULT_PAGE_SIZE), Instant.now()));
+		given(this.reportAggregates.current()).willReturn(Map.of(ReportAggregateService.NUMBER_OF_DONATES, 3L,
+				ReportAggregateService.SUM_OF_DONATES, 60050L, ReportAggregateService.BIGGEST_DONATE, 30000L,
+				ReportAggregateService.NUMBER_OF_OWNERS, 10L, ReportAggregateService.NUMBER_OF_PETS, 13L));
+		given(this.donationRollups.trends(any())).willReturn(new DonationTrends(
+				List.of(DonationRollup.empty(LocalDate.of(2023, 4, 1)),
+						new DonationRollup(LocalDate.of(2023, 5, 1), 2, new BigDecimal("400.50"),
+								new BigDecimal("300.00"), new BigDecimal("100.50"))),
+				List.of(new DonationRollup(LocalDate.of(2023, 1, 1), 2, new BigDecimal("400.50"),
+						new BigDecimal("300.00"), new BigDecimal("100.50")))));
+		PetVisitSummary samantha = new PetVisitSummary("Samantha", "cat", LocalDate.of(2013, 1, 4), 4);
+		PetVisitSummary max = new PetVisitSummary("Max", "cat", LocalDate.of(2013, 1, 2), 3);
+		given(this.owners.findPetVisitSummaries(any(), any(), any(), eq(Integer.MAX_VALUE), any(Pageable.class)))
+			.willReturn(new SliceImpl<>(List.of(samantha, max), PageRequest.of(0, 2), true));
+		given(this.owners.findPetVisitSummaries(any(), any(), eq(LocalDate.of(2013, 1, 2)), eq(3), any(Pageable.class)))
+			.willReturn(new SliceImpl<>(List.of(new PetVisitSummary("Leo", "cat", LocalDate.of(2012, 5, 1), 1)),
+					PageRequest.of(0, 2), false));
+	}
+
+	@Test
+	void testShowReports() throws Exception {
+		mockMvc.perform(get("/reports.html"))
+			.andExpect(status().isOk())
+			.andExpect(model().attributeExists("report"))
+			.andExpect(model().attributeExists("snapshotAge"))
+			.andExpect(view().name("reports/reports"))
+			.andExpect(content().string(containsString("Samantha")))
+			.andExpect(content().string(containsString("loadMorePetSummaries")))
+			.andExpect(content().string(containsString("width: 100%")))
+			.andExpect(content().string(containsString("400.50 (2x)")))
+			.andExpect(model().attribute("report", hasProperty("sumOfDonates", is("600.50"))));
+	}
+
+	@Test
+	void testShowReportsWithoutSlowPart() throws Exception {
+		given(this.owners.findPetVisitSummaries(any(), any(), any(), any(Integer.class), any(Pageable.class)))
+			.willAnswer(invocation -> {
+				Thread.sleep(5000);
+				return null;
+			});
+		mockMvc.perform(get("/reports.html"))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("report",
+					hasProperty("unavailableParts", contains(ReportAssembler.PET_SUMMARIES))))
+			.andExpect(model().attribute("report", hasProperty("numberOfOwners", is("10"))))
+			.andExpect(content().string(containsString("Pet visits are not available")));
+	}
+
+	@Test
+	void testShowPetSummariesFirstSlice() throws Exception {
+		mockMvc.perform(get("/reports/pet-summaries").accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.summaries[0].petName").value("Samantha"))
+			.andExpect(jsonPath("$.nextBeforeDate").value("2013-01-02"))
+			.andExpect(jsonPath("$.nextBeforeId").value(3));
+	}
+
+	@Test
+	void testShowPetSummariesLastSlice() throws Exception {
+		mockMvc
+			.perform(get("/reports/pet-summaries").param("beforeDate", "2013-01-02")
+				.param("beforeId", "3")
+				.accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.summaries[0].petName").value("Leo"))
+			.andExpect(jsonPath("$.nextBeforeId").doesNotExist())
+			.andExpect(content().string(not(containsString("Samantha"))));
+	}
+
+}
@@ -0,0 +1,95 @@
+package org.springframework.samples.petclinic.report;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.endsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.samples.petclinic.donates.DonateRepository;
+import org.springframework.samples.petclinic.donates.DonateRow;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.PetVisitSummary;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Test class for the {@link ReportExportController}
+ */
+@WebMvcTest(ReportExportController.class)
+@DisabledInNativeImage
+class ReportExportControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private OwnerRepository owners;
+
+	@MockBean
+	private DonateRepository donates;
+
+	@Test
+	void testExportPetSummariesAsCsv() throws Exception {
+		given(this.owners.streamPetVisitSummaries(any(), any(), eq(0)))
+			.willReturn(Stream.of(new PetVisitSummary("Max", "cat", LocalDate.of(2013, 1, 2), 2),
+					new PetVisitSummary("Mr. \"Big\", Jr.", "dog", LocalDate.of(2013, 1, 3), 3)));
+		mockMvc.perform(get("/reports/pet-summaries.csv"))
+			.andExpect(status().isOk())
+			.andExpect(content().contentTypeCompatibleWith("text/csv"))
+			.andExpect(content().string("visit_id,visit_date,pet_name,pet_type\n" + "2,2013-01-02,Max,cat\n"
+					+ "3,2013-01-03,\"Mr. \"\"Big\"\", Jr.\",dog\n"));
+	}
+
+	@Test
+	void testResumeDonatesExport() throws Exception {
+		given(this.donates.streamDonates(LocalDate.of(2023, 5, 1), ReportAssembler.LATEST_DATE, 7)).willReturn(Stream
+			.of(new DonateRow(8, "Jan Novak", LocalDate.of(2023, 5, 2), new BigDecimal("100.50"), "Na krmeni")));
+		mockMvc.perform(get("/reports/donates.ndjson").param("from", "2023-05-01").param("afterId", "7"))
+			.andExpect(status().isOk())
+			.andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+			.andExpect(content().string("{\"id\":8,\"donatorName\":\"Jan Novak\",\"date\":\"2023-05-02\","
+					+ "\"amount\":100.50,\"message\":\"Na krmeni\"}\n"));
+	}
+
+	@Test
+	void testExportIsGzippedWhenAccepted() throws Exception {
+		given(this.owners.streamPetVisitSummaries(any(), any(), eq(0)))
+			.willReturn(Stream.of(new PetVisitSummary("Max", "cat", LocalDate.of(2013, 1, 2), 2)));
+		byte[] body = mockMvc.perform(get("/reports/pet-summaries.csv").header("Accept-Encoding", "gzip, deflate"))
+			.andExpect(status().isOk())
+			.andExpect(header().string("Content-Encoding", "gzip"))
+			.andReturn()
+			.getResponse()
+			.getContentAsByteArray();
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+			assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).endsWith("2,2013-01-02,Max,cat\n");
+		}
+	}
+
+	@Test
+	void testExportIsPlainWhenGzipIsRefused() throws Exception {
+		given(this.owners.streamPetVisitSummaries(any(), any(), eq(0)))
+			.willReturn(Stream.of(new PetVisitSummary("Max", "cat", LocalDate.of(2013, 1, 2), 2)));
+		mockMvc.perform(get("/reports/pet-summaries.csv").header("Accept-Encoding", "gzip;q=0, deflate"))
+			.andExpect(status().isOk())
+			.andExpect(header().doesNotExist("Content-Encoding"))
+			.andExpect(content().string(endsWith("2,2013-01-02,Max,cat\n")));
+	}
+
+}
@@ -0,0 +1,73 @@
+package org.springframework.samples.petclinic.report;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Test class for {@link ReportSnapshotCache}
+ */
+@ExtendWith(MockitoExtension.class)
+class ReportSnapshotCacheTests {
+
+	@Mock
+	private ReportAssembler reportAssembler;
+
+	private ReportSnapshotCache snapshots;
+
+	@AfterEach
+	void shutdown() {
+		if (this.snapshots != null) {
+			this.snapshots.destroy();
+		}
+	}
+
+	@Test
+	void shouldServeSnapshotWithinTtl() {
+		given(this.reportAssembler.assemble(any(), any(), anyInt())).willAnswer(invocation -> new Report());
+		this.snapshots = new ReportSnapshotCache(this.reportAssembler, Duration.ofMinutes(1));
+
+		ReportSnapshot first = this.snapshots.get();
+		assertThat(this.snapshots.get()).isSameAs(first);
+		verify(this.reportAssembler, times(1)).assemble(any(), any(), anyInt());
+	}
+
+	@Test
+	void shouldServeStaleSnapshotWhileRefreshing() throws InterruptedException {
+		given(this.reportAssembler.assemble(any(), any(), anyInt())).willAnswer(invocation -> new Report());
+		this.snapshots = new ReportSnapshotCache(this.reportAssembler, Duration.ZERO);
+
+		ReportSnapshot first = this.snapshots.get();
+		// stale, so the same snapshot comes back and a rebuild starts in the background
+		assertThat(this.snapshots.get()).isSameAs(first);
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (this.snapshots.get() == first && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(this.snapshots.get()).isNotSameAs(first);
+	}
+
+	@Test
+	void shouldKeepCompleteSnapshotWhenRefreshIsPartial() {
+		Report partial = new Report();
+		partial.getUnavailableParts().add(ReportAssembler.AGGREGATES);
+		given(this.reportAssembler.assemble(any(), any(), anyInt())).willReturn(new Report(), partial);
+		this.snapshots = new ReportSnapshotCache(this.reportAssembler, Duration.ofMinutes(1));
+
+		ReportSnapshot complete = this.snapshots.get();
+		assertThat(this.snapshots.refresh()).isSameAs(complete);
+		assertThat(this.snapshots.get().report().getUnavailableParts()).isEmpty();
+	}
+
+}
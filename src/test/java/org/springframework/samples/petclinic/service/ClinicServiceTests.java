@@ -17,9 +17,17 @@
 package org.springframework.samples.petclinic.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,12 +36,25 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.samples.petclinic.donates.Donate;
+import org.springframework.samples.petclinic.donates.DonateRepository;
+import org.springframework.samples.petclinic.donates.DonateRow;
 import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerListRow;
 import org.springframework.samples.petclinic.owner.OwnerRepository;
 import org.springframework.samples.petclinic.owner.Pet;
 import org.springframework.samples.petclinic.owner.PetType;
+import org.springframework.samples.petclinic.owner.PetVisit;
+import org.springframework.samples.petclinic.owner.PetVisitSummary;
 import org.springframework.samples.petclinic.owner.Visit;
+import org.springframework.samples.petclinic.owner.VisitRepository;
+import org.springframework.samples.petclinic.report.DonationRollup;
+import org.springframework.samples.petclinic.report.DonationRollupService;
+import org.springframework.samples.petclinic.report.ReportAggregateService;
+import org.springframework.samples.petclinic.vet.Specialty;
 import org.springframework.samples.petclinic.vet.Vet;
 import org.springframework.samples.petclinic.vet.VetRepository;
 import org.springframework.stereotype.Service;
@@ -79,17 +100,49 @@ class ClinicServiceTests {
 	@Autowired
 	protected VetRepository vets;
 
+	@Autowired
+	protected VisitRepository visits;
+
+	@Autowired
+	protected DonateRepository donates;
+
+	@Autowired
+	protected ReportAggregateService reportAggregates;
+
+	@Autowired
+	protected DonationRollupService donationRollups;
+
 	Pageable pageable;
 
 	@Test
 	void shouldFindOwnersByLastName() {
-		Page<Owner> owners = this.owners.findByLastName("Davis", pageable);
+		Page<Integer> owners = this.owners.findIdsByLastName("Davis", pageable);
 		assertThat(owners).hasSize(2);
 
-		owners = this.owners.findByLastName("Daviss", pageable);
+		owners = this.owners.findIdsByLastName("Daviss", pageable);
 		assertThat(owners).isEmpty();
 	}
 
+	@Test
+	@Transactional
+	void shouldListOwnersInTwoPhases() {
+		Owner owner = new Owner();
+		owner.setFirstName("Sam");
+		owner.setLastName("Estes");
+		owner.setAddress("4, Evans Street");
+		owner.setCity("Wollongong");
+		owner.setTelephone("4444444444");
+		this.owners.save(owner);
+
+		Page<Integer> ids = this.owners.findIdsByLastName("Es", PageRequest.of(0, 2));
+		assertThat(ids.getContent()).containsExactly(8, 10);
+		assertThat(ids.getTotalElements()).isEqualTo(3);
+
+		List<OwnerListRow> rows = this.owners.findListRows(List.of(10, owner.getId()));
+		assertThat(rows).extracting(OwnerListRow::id, OwnerListRow::petName)
+			.containsExactlyInAnyOrder(tuple(10, "Lucky"), tuple(10, "Sly"), tuple(owner.getId(), null));
+	}
+
 	@Test
 	void shouldFindSingleOwnerWithPet() {
 		Owner owner = this.owners.findById(1);
@@ -102,7 +155,7 @@ class ClinicServiceTests {
 	@Test
 	@Transactional
 	void shouldInsertOwner() {
-		Page<Owner> owners = this.owners.findByLastName("Schultz", pageable);
+		Page<Integer> owners = this.owners.findIdsByLastName("Schultz", pageable);
 		int found = (int) owners.getTotalElements();
 
 		Owner owner = new Owner();
@@ -114,7 +167,7 @@ class ClinicServiceTests {
 		this.owners.save(owner);
 		assertThat(owner.getId().longValue()).isNotEqualTo(0);
 
-		owners = this.owners.findByLastName("Schultz", pageable);
+		owners = this.owners.findIdsByLastName("Schultz", pageable);
 		assertThat(owners.getTotalElements()).isEqualTo(found + 1);
 	}
 
@@ -193,6 +246,14 @@ class ClinicServiceTests {
 		assertThat(vet.getSpecialties().get(1).getName()).isEqualTo("surgery");
 	}
 
+	@Test
+	@Transactional(readOnly = true)
+	void shouldStreamVetsAfterIdWithLimit() {
+		try (Stream<Vet> vets = this.vets.streamAfter(2, PageRequest.of(0, 2))) {
+			assertThat(vets.map(Vet::getId)).containsExactly(3, 4);
+		}
+	}
+
 	@Test
 	@Transactional
 	void shouldAddNewVisitForPet() {
@@ -225,4 +286,134 @@ class ClinicServiceTests {
 			.isNotNull();
 	}
 
+	@Test
+	void shouldFindPetVisitSummariesByKeyset() {
+		LocalDate from = LocalDate.of(2000, 1, 1);
+		LocalDate to = LocalDate.of(2020, 12, 31);
+		Slice<PetVisitSummary> first = this.owners.findPetVisitSummaries(from, to, to, Integer.MAX_VALUE,
+				PageRequest.of(0, 3));
+		assertThat(first.hasNext()).isTrue();
+		assertThat(first.getContent()).hasSize(3)
+			.extracting(PetVisitSummary::visitDate)
+			.isSortedAccordingTo(Comparator.reverseOrder());
+
+		PetVisitSummary last = first.getContent().get(2);
+		Slice<PetVisitSummary> next = this.owners.findPetVisitSummaries(from, to, last.visitDate(), last.visitId(),
+				PageRequest.of(0, 3));
+		assertThat(next.hasNext()).isFalse();
+		assertThat(next.getContent()).hasSize(1);
+		assertThat(next.getContent().get(0).petName()).isEqualTo("Samantha");
+		assertThat(next.getContent().get(0).petTypeName()).isEqualTo("cat");
+	}
+
+	@Test
+	void shouldFindLatestVisitsOfEachPet() {
+		List<PetVisit> latest = this.visits.findLatest(List.of(7, 8, 9), 1);
+		assertThat(latest).extracting(PetVisit::petId).containsExactly(7, 8);
+		assertThat(latest).extracting(PetVisit::description).containsExactly("spayed", "neutered");
+	}
+
+	@Test
+	void shouldPageVisitHistoryNewestFirst() {
+		Slice<PetVisit> first = this.visits.findHistory(7, LocalDate.of(9999, 12, 31), Integer.MAX_VALUE,
+				PageRequest.of(0, 1));
+		assertThat(first.hasNext()).isTrue();
+		assertThat(first.getContent()).extracting(PetVisit::date).containsExactly(LocalDate.of(2013, 1, 4));
+
+		PetVisit last = first.getContent().get(0);
+		Slice<PetVisit> next = this.visits.findHistory(7, last.date(), last.id(), PageRequest.of(0, 1));
+		assertThat(next.hasNext()).isFalse();
+		assertThat(next.getContent()).extracting(PetVisit::date).containsExactly(LocalDate.of(2013, 1, 1));
+	}
+
+	@Test
+	@Transactional
+	void shouldKeepReportAggregatesInStepWithWrites() {
+		this.reportAggregates.rebuild();
+		Map<String, Long> before = this.reportAggregates.current();
+
+		Owner owner = new Owner();
+		owner.setFirstName("Sam");
+		owner.setLastName("Schultz");
+		owner.setAddress("4, Evans Street");
+		owner.setCity("Wollongong");
+		owner.setTelephone("4444444444");
+		this.owners.save(owner);
+		this.reportAggregates.ownerAdded();
+
+		Donate donate = new Donate();
+		donate.setDonatorName("Sam Schultz");
+		donate.setDate(LocalDate.now());
+		donate.setAmount(new BigDecimal("250.00"));
+		donate.setMessage("test");
+		this.donates.save(donate);
+		this.reportAggregates.donateAdded(donate);
+
+		Map<String, Long> after = this.reportAggregates.current();
+		assertThat(after.get(ReportAggregateService.NUMBER_OF_OWNERS))
+			.isEqualTo(before.get(ReportAggregateService.NUMBER_OF_OWNERS) + 1);
+		assertThat(after.get(ReportAggregateService.SUM_OF_DONATES))
+			.isEqualTo(before.get(ReportAggregateService.SUM_OF_DONATES) + 25000);
+		assertThat(after).isEqualTo(this.reportAggregates.recompute());
+	}
+
+	@Test
+	@Transactional
+	void shouldKeepDonationBucketsInStepWithWrites() {
+		LocalDate day = LocalDate.of(2023, 5, 17);
+		Donate small = newDonate(day, "100");
+		Donate big = newDonate(day, "300");
+		Donate nextMonth = newDonate(day.plusMonths(1), "50");
+		for (Donate donate : List.of(small, big, nextMonth)) {
+			this.donates.save(donate);
+			this.donationRollups.donateAdded(donate);
+		}
+		assertThat(this.donationRollups.daily(day, day)).containsExactly(rollup(day, 2, "400.00", "300.00", "100.00"));
+
+		this.donates.delete(big);
+		this.donationRollups.donateRemoved(big);
+		assertThat(this.donationRollups.daily(day, day)).containsExactly(rollup(day, 1, "100.00", "100.00", "100.00"));
+
+		List<DonationRollup> monthly = this.donationRollups.monthly(LocalDate.of(2023, 4, 1),
+				LocalDate.of(2023, 6, 30));
+		assertThat(monthly).containsExactly(DonationRollup.empty(LocalDate.of(2023, 4, 1)),
+				rollup(LocalDate.of(2023, 5, 1), 1, "100.00", "100.00", "100.00"),
+				rollup(LocalDate.of(2023, 6, 1), 1, "50.00", "50.00", "50.00"));
+		assertThat(this.donationRollups.yearly(day, day.plusMonths(1)))
+			.containsExactly(rollup(LocalDate.of(2023, 1, 1), 2, "150.00", "100.00", "50.00"));
+
+		this.donates.delete(small);
+		this.donationRollups.donateRemoved(small);
+		assertThat(this.donationRollups.daily(day, day)).isEmpty();
+	}
+
+	@Test
+	@Transactional
+	void shouldFindDonatesByAmountAndDateRange() {
+		LocalDate day = LocalDate.of(2023, 5, 17);
+		this.donates.save(newDonate(day, "12.49"));
+		this.donates.save(newDonate(day, "12.50"));
+		this.donates.save(newDonate(day.plusDays(1), "80.00"));
+		this.donates.save(newDonate(day.plusYears(1), "20.00"));
+
+		Slice<DonateRow> found = this.donates.findByAmountAndDate(new BigDecimal("12.50"), new BigDecimal("80"), day,
+				day.plusDays(1), PageRequest.of(0, 10));
+		assertThat(found.getContent()).extracting(DonateRow::amount)
+			.containsExactly(new BigDecimal("12.50"), new BigDecimal("80.00"));
+		assertThat(this.donates.findMaxAmount()).isGreaterThanOrEqualTo(new BigDecimal("80.00"));
+	}
+
+	private static DonationRollup rollup(LocalDate period, long count, String sum, String max, String min) {
+		return new DonationRollup(period, count, new BigDecimal(sum), new BigDecimal(max), new BigDecimal(min));
+	}
+
+	private Donate newDonate(LocalDate date, String amount) {
+		Donate donate = new Donate();
+		donate.setDonatorName("Sam Schultz");
+		donate.setDate(date);
+		donate.setAmount(new BigDecimal(amount));
+		donate.setMessage("test");
+		return donate;
+	}
+
 }
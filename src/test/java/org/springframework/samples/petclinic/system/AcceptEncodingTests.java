@@ -0,0 +1,41 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link AcceptEncoding}
+ */
+class AcceptEncodingTests {
+
+	@Test
+	void testAcceptsGzip() {
+		assertThat(AcceptEncoding.acceptsGzip("gzip, deflate, br")).isTrue();
+		assertThat(AcceptEncoding.acceptsGzip("deflate, GZIP;q=0.5")).isTrue();
+		assertThat(AcceptEncoding.acceptsGzip("x-gzip")).isTrue();
+		assertThat(AcceptEncoding.acceptsGzip("*")).isTrue();
+		assertThat(AcceptEncoding.acceptsGzip("gzip;q=0, *")).isFalse();
+		assertThat(AcceptEncoding.acceptsGzip("gzip; q=0.000")).isFalse();
+		assertThat(AcceptEncoding.acceptsGzip("*;q=0")).isFalse();
+		assertThat(AcceptEncoding.acceptsGzip("identity")).isFalse();
+		assertThat(AcceptEncoding.acceptsGzip(null)).isFalse();
+	}
+
+}
@@ -0,0 +1,105 @@
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Tests for {@link ReadWriteRoutingDataSource} over three in-memory H2 databases, a
+ * primary and two replicas, each of which knows its own name.
+ */
+class ReadWriteRoutingDataSourceTests {
+
+	private DataSource primary;
+
+	private DataSource replica1;
+
+	private DataSource replica2;
+
+	@BeforeEach
+	void setup() {
+		this.primary = database("primary");
+		this.replica1 = database("replica1");
+		this.replica2 = database("replica2");
+	}
+
+	@AfterEach
+	void shutdown() {
+		Stream.of(this.primary, this.replica1, this.replica2)
+			.forEach(database -> new JdbcTemplate(database).execute("SHUTDOWN"));
+	}
+
+	@Test
+	void writesGoToThePrimary() {
+		ReadWriteRoutingDataSource routing = routing(this.replica1, this.replica2);
+		assertThat(read(routing, false)).isEqualTo("primary");
+		assertThat(new JdbcTemplate(new LazyConnectionDataSourceProxy(routing)).queryForObject("SELECT name FROM node",
+				String.class))
+			.isEqualTo("primary");
+	}
+
+	@Test
+	void readsAreSpreadOverTheReplicas() {
+		ReadWriteRoutingDataSource routing = routing(this.replica1, this.replica2);
+		assertThat(List.of(read(routing, true), read(routing, true), read(routing, true))).containsExactly("replica1",
+				"replica2", "replica1");
+	}
+
+	@Test
+	void laggingReplicaGetsNoReadsUntilItCatchesUp() {
+		ReadWriteRoutingDataSource routing = routing(this.replica1, this.replica2);
+		new JdbcTemplate(this.replica2).update("UPDATE node SET lag = 60");
+		routing.checkReplicas();
+		assertThat(routing.healthyReplicas()).isEqualTo(1);
+		assertThat(List.of(read(routing, true), read(routing, true))).containsOnly("replica1");
+
+		new JdbcTemplate(this.replica2).update("UPDATE node SET lag = 0");
+		routing.checkReplicas();
+		assertThat(List.of(read(routing, true), read(routing, true))).contains("replica2");
+	}
+
+	@Test
+	void readsFallBackToThePrimaryWhenNoReplicaIsReachable() {
+		JdbcDataSource missing = new JdbcDataSource();
+		missing.setURL("jdbc:h2:mem:missing;IFEXISTS=TRUE");
+		ReadWriteRoutingDataSource routing = routing(missing);
+		assertThat(read(routing, true)).isEqualTo("primary");
+		assertThat(routing.healthyReplicas()).isZero();
+	}
+
+	private ReadWriteRoutingDataSource routing(DataSource... replicas) {
+		return new ReadWriteRoutingDataSource(this.primary, List.of(replicas), "SELECT lag FROM node",
+				Duration.ofSeconds(5), Duration.ofMinutes(1));
+	}
+
+	private String read(ReadWriteRoutingDataSource routing, boolean readOnly) {
+		DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+		TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		transaction.setReadOnly(readOnly);
+		return transaction
+			.execute(status -> new JdbcTemplate(dataSource).queryForObject("SELECT name FROM node", String.class));
+	}
+
+	private static DataSource database(String name) {
+		JdbcDataSource database = new JdbcDataSource();
+		database.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+		JdbcTemplate jdbc = new JdbcTemplate(database);
+		jdbc.execute("CREATE TABLE node (name VARCHAR(30), lag INTEGER)");
+		jdbc.update("INSERT INTO node VALUES (?, 0)", name);
+		return database;
+	}
+
+}
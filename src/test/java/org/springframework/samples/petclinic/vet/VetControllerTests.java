@@ -16,22 +16,48 @@
 
 package org.springframework.samples.petclinic.vet;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
 import org.assertj.core.util.Lists;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.DisabledInNativeImage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.model.Cursor;
+import org.springframework.samples.petclinic.system.ResourceStreamWriter;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -40,6 +66,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  */
 
 @WebMvcTest(VetController.class)
+@Import({ ResourceStreamWriter.class, VetResourceCache.class, VetDirectory.class })
 @DisabledInNativeImage
 class VetControllerTests {
 
@@ -71,7 +98,7 @@ class VetControllerTests {
 
 	@BeforeEach
 	void setup() {
-		given(this.vets.findAll()).willReturn(Lists.newArrayList(james(), helen()));
+		given(this.vets.streamAfter(eq(0), any(Pageable.class))).willAnswer(invocation -> Stream.of(james(), helen()));
 		given(this.vets.findAll(any(Pageable.class)))
 			.willReturn(new PageImpl<Vet>(Lists.newArrayList(james(), helen())));
 
@@ -87,12 +114,108 @@ class VetControllerTests {
 
 	}
 
+	@Test
+	void testShowVetListByKeyset() throws Exception {
+		given(this.vets.findAfter(eq(""), eq(0), any(Pageable.class)))
+			.willReturn(new SliceImpl<>(Lists.newArrayList(james(), helen()), PageRequest.of(0, 2), true));
+		mockMvc.perform(get("/vets.html"))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("nextCursor", new Cursor("Leary", 2).encode()))
+			.andExpect(model().attribute("previousCursor", nullValue()))
+			.andExpect(model().attributeDoesNotExist("totalItems"))
+			.andExpect(view().name("vets/vetList"));
+		verify(this.vets, never()).count();
+	}
+
+	@Test
+	void testShowPreviousVetListByKeyset() throws Exception {
+		given(this.vets.findBefore(eq("Ortega"), eq(4), any(Pageable.class)))
+			.willReturn(new SliceImpl<>(Lists.newArrayList(helen(), james()), PageRequest.of(0, 2), false));
+		given(this.vets.count()).willReturn(6L);
+		mockMvc.perform(get("/vets.html").param("before", new Cursor("Ortega", 4).encode()).param("count", "true"))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("listVets",
+					contains(hasProperty("lastName", is("Carter")), hasProperty("lastName", is("Leary")))))
+			.andExpect(model().attribute("previousCursor", nullValue()))
+			.andExpect(model().attribute("nextCursor", new Cursor("Leary", 2).encode()))
+			.andExpect(model().attribute("totalItems", 6L));
+	}
+
 	@Test
 	void testShowResourcesVetList() throws Exception {
 		ResultActions actions = mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_JSON))
 			.andExpect(status().isOk());
 		actions.andExpect(content().contentType(MediaType.APPLICATION_JSON))
-			.andExpect(jsonPath("$.vetList[0].id").value(1));
+			.andExpect(jsonPath("$.vetList[0].id").value(1))
+			.andExpect(jsonPath("$.vetList[1].specialties[0].name").value("radiology"));
+	}
+
+	@Test
+	void testShowVetsBySpecialty() throws Exception {
+		Specialty radiology = helen().getSpecialties().get(0);
+		given(this.vets.findSpecialties()).willReturn(List.of(radiology));
+		given(this.vets.findAllWithSpecialties()).willReturn(List.of(james(), helen()));
+		mockMvc.perform(get("/vets").param("specialty", "radiology").accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.vetList.length()").value(1))
+			.andExpect(jsonPath("$.vetList[0].lastName").value("Leary"))
+			.andExpect(jsonPath("$.specialtyCounts.radiology").value(1))
+			.andExpect(jsonPath("$.totalItems").value(1));
+		verify(this.vets, never()).streamAfter(anyInt(), any(Pageable.class));
+	}
+
+	@Test
+	void testShowResourcesVetListAsXml() throws Exception {
+		given(this.vets.streamAfter(1, PageRequest.of(0, 1))).willReturn(Stream.of(helen()));
+		mockMvc.perform(get("/vets").param("after", "1").param("limit", "1").accept(MediaType.APPLICATION_XML))
+			.andExpect(status().isOk())
+			.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_XML))
+			.andExpect(xpath("count(/vets/vetList)").number(1.0))
+			.andExpect(xpath("/vets/vetList/lastName").string("Leary"))
+			.andExpect(xpath("/vets/vetList/specialties/name").string("radiology"));
+	}
+
+	@Test
+	void testShowResourcesVetListNotModified() throws Exception {
+		String etag = mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.ETAG, startsWith("\"")))
+			.andReturn()
+			.getResponse()
+			.getHeader(HttpHeaders.ETAG);
+		mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, etag))
+			.andExpect(status().isNotModified())
+			.andExpect(header().string(HttpHeaders.ETAG, etag))
+			.andExpect(content().string(""));
+	}
+
+	@Test
+	void testShowResourcesVetListGzipped() throws Exception {
+		byte[] body = mockMvc
+			.perform(get("/vets").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+			.andExpect(header().string(HttpHeaders.ETAG, endsWith("-gzip\"")))
+			.andReturn()
+			.getResponse()
+			.getContentAsByteArray();
+		assertThat(gunzip(body)).contains("\"lastName\":\"Leary\"");
+	}
+
+	@Test
+	void testShowResourcesVetListNotGzippedWhenRefused() throws Exception {
+		mockMvc
+			.perform(get("/vets").accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, deflate"))
+			.andExpect(status().isOk())
+			.andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+			.andExpect(content().string(containsString("\"lastName\":\"Leary\"")));
+	}
+
+	private static String gunzip(byte[] body) throws IOException {
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
 	}
 
 }
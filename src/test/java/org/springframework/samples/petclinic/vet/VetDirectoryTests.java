@@ -0,0 +1,92 @@
+package org.springframework.samples.petclinic.vet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link VetDirectory}.
+ */
+class VetDirectoryTests {
+
+	private final VetRepository vets = mock(VetRepository.class);
+
+	private final VetDirectory directory = new VetDirectory(this.vets, Duration.ofMinutes(10));
+
+	@BeforeEach
+	void setup() {
+		Specialty dentistry = specialty(3, "dentistry");
+		Specialty radiology = specialty(1, "radiology");
+		Specialty surgery = specialty(2, "surgery");
+		given(this.vets.findSpecialties()).willReturn(List.of(dentistry, radiology, surgery));
+		given(this.vets.findAllWithSpecialties())
+			.willReturn(List.of(vet(1, "Carter"), vet(3, "Douglas", surgery, dentistry), vet(2, "Leary", radiology),
+					vet(4, "Ortega", surgery), vet(5, "Stevens", radiology, surgery)));
+	}
+
+	@Test
+	void findsVetsWithAllGivenSpecialties() {
+		VetDirectoryPage page = this.directory.find(List.of("radiology", "surgery"), 1, 20);
+		assertThat(page.vetList()).extracting(Vet::getLastName).containsExactly("Stevens");
+		assertThat(page.specialtyCounts()).containsExactly(entry("dentistry", 0), entry("radiology", 1),
+				entry("surgery", 1));
+	}
+
+	@Test
+	void countsAndPagesAllVetsWithoutFilter() {
+		VetDirectoryPage page = this.directory.find(List.of(), 2, 2);
+		assertThat(page.vetList()).extracting(Vet::getLastName).containsExactly("Leary", "Ortega");
+		assertThat(page.totalItems()).isEqualTo(5);
+		assertThat(page.totalPages()).isEqualTo(3);
+		assertThat(page.specialtyCounts()).containsExactly(entry("dentistry", 1), entry("radiology", 2),
+				entry("surgery", 3));
+	}
+
+	@Test
+	void pageBeyondTheLastIsEmpty() {
+		VetDirectoryPage page = this.directory.find(List.of(), Integer.MAX_VALUE, 20);
+		assertThat(page.vetList()).isEmpty();
+		assertThat(page.totalPages()).isEqualTo(1);
+	}
+
+	@Test
+	void unknownSpecialtyMatchesNoVet() {
+		VetDirectoryPage page = this.directory.find(List.of("surgery", "cardiology"), 1, 20);
+		assertThat(page.vetList()).isEmpty();
+		assertThat(page.totalItems()).isZero();
+	}
+
+	@Test
+	void loadsTheSnapshotOnce() {
+		this.directory.find(List.of("surgery"), 1, 20);
+		this.directory.find(List.of("radiology"), 1, 20);
+		verify(this.vets, times(1)).findAllWithSpecialties();
+	}
+
+	private static Specialty specialty(int id, String name) {
+		Specialty specialty = new Specialty();
+		specialty.setId(id);
+		specialty.setName(name);
+		return specialty;
+	}
+
+	private static Vet vet(int id, String lastName, Specialty... specialties) {
+		Vet vet = new Vet();
+		vet.setId(id);
+		vet.setLastName(lastName);
+		for (Specialty specialty : specialties) {
+			vet.addSpecialty(specialty);
+		}
+		return vet;
+	}
+
+}
@@ -0,0 +1,82 @@
+package org.springframework.samples.petclinic.vet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Locks the number of SQL statements the vet list pages run, whatever the page size: the
+ * specialties of all vets on a page are loaded by one query, not one query per vet.
+ */
+// the second-level cache would hide the statements of the fetch plans
+@SpringBootTest(properties = { "spring.profiles.active=default", "database=h2",
+		"spring.jpa.properties.hibernate.generate_statistics=true", "petclinic.cache.hibernate.enabled=false" })
+@AutoConfigureMockMvc
+class VetFetchPlanTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private VetRepository vets;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setup() {
+		this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		// cached vet pages would not run any statement
+		this.cacheManager.getCache("vets").clear();
+	}
+
+	@Test
+	void vetListPageLoadsSpecialtiesOfAllVetsTogether() throws Exception {
+		// the vets of the page, their count and the specialties of all of them
+		assertThat(statements(get("/vets.html").param("page", "1"))).isEqualTo(3);
+	}
+
+	@Test
+	void vetListByKeysetLoadsSpecialtiesOfAllVetsTogether() throws Exception {
+		assertThat(statements(get("/vets.html"))).isEqualTo(2);
+	}
+
+	@Test
+	void statementsDoNotGrowWithThePageSize() {
+		for (int size = 1; size <= 6; size++) {
+			this.statistics.clear();
+			Page<Vet> page = this.vets.findAll(PageRequest.of(0, size));
+			page.forEach(Vet::getSpecialties);
+			assertThat(page.getNumberOfElements()).isEqualTo(size);
+			// the page, its count and the specialties
+			assertThat(this.statistics.getPrepareStatementCount()).as("page size %d", size).isEqualTo(3);
+		}
+	}
+
+	private long statements(RequestBuilder request) throws Exception {
+		this.statistics.clear();
+		this.mockMvc.perform(request).andExpect(status().isOk());
+		return this.statistics.getPrepareStatementCount();
+	}
+
+}
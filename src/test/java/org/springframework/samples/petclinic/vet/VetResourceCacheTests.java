@@ -0,0 +1,70 @@
+package org.springframework.samples.petclinic.vet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.Pageable;
+import org.springframework.samples.petclinic.system.ResourceStreamWriter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests for {@link VetResourceCache}.
+ */
+class VetResourceCacheTests {
+
+	private final VetRepository vets = mock(VetRepository.class);
+
+	private VetResourceCache resources;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setup() {
+		ResourceStreamWriter writer = new ResourceStreamWriter(new ObjectMapper(), mock(ObjectProvider.class));
+		ObjectProvider<CacheManager> cacheManager = mock(ObjectProvider.class);
+		given(cacheManager.getIfAvailable(any())).willReturn(new ConcurrentMapCacheManager("vets"));
+		this.resources = new VetResourceCache(this.vets, writer, cacheManager, mock(ObjectProvider.class));
+		given(this.vets.streamAfter(eq(0), any(Pageable.class))).willAnswer(invocation -> Stream.of(vet("Carter")));
+	}
+
+	@Test
+	void rendersEachDocumentOnce() {
+		VetResourceCache.RenderedVets json = this.resources.json(0, null);
+		assertThat(this.resources.json(0, null)).isSameAs(json);
+		assertThat(new String(json.body(), StandardCharsets.UTF_8)).startsWith("{\"vetList\":[{")
+			.contains("\"lastName\":\"Carter\"");
+		assertThat(json.etag(false)).isNotEqualTo(json.etag(true));
+		this.resources.xml(0, null);
+		verify(this.vets, times(2)).streamAfter(eq(0), any(Pageable.class));
+	}
+
+	@Test
+	void rendersAgainAfterTheVetsChanged() {
+		VetResourceCache.RenderedVets json = this.resources.json(0, null);
+		this.resources.vetsChanged();
+		assertThat(this.resources.json(0, null)).isNotSameAs(json)
+			.extracting(rendered -> rendered.etag(false))
+			.isEqualTo(json.etag(false));
+	}
+
+	private static Vet vet(String lastName) {
+		Vet vet = new Vet();
+		vet.setId(1);
+		vet.setLastName(lastName);
+		return vet;
+	}
+
+}
@@ -0,0 +1,127 @@
+package org.springframework.samples.petclinic.vet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * Tests for {@link VetScheduler}.
+ */
+class VetSchedulerTests {
+
+	private static final LocalDate MONDAY = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+	private final VetScheduleRepository schedules = mock(VetScheduleRepository.class);
+
+	private final VetScheduler scheduler = new VetScheduler(this.schedules, Duration.ofMinutes(30));
+
+	@BeforeEach
+	void setup() {
+		Vet carter = vet(1, "Carter");
+		Vet leary = vet(2, "Leary");
+		given(this.schedules.findWorkingHours())
+			.willReturn(List.of(hours(carter, DayOfWeek.MONDAY, LocalTime.of(9, 0), LocalTime.of(10, 0)),
+					hours(carter, DayOfWeek.MONDAY, LocalTime.of(14, 0), LocalTime.of(14, 45)),
+					hours(leary, DayOfWeek.TUESDAY, LocalTime.of(9, 0), LocalTime.of(17, 0))));
+		given(this.schedules.findBookings(LocalDate.now()))
+			.willReturn(List.of(new Booking(1, MONDAY, LocalTime.of(9, 30), LocalTime.of(10, 0))));
+	}
+
+	@Test
+	void offersFreeSlotsOnTheGrid() {
+		assertThat(this.scheduler.freeSlots(MONDAY)).extracting(Slot::key)
+			.containsExactly("1@" + MONDAY.atTime(9, 0), "1@" + MONDAY.atTime(14, 0));
+		assertThat(this.scheduler.freeSlots(MONDAY.plusDays(2))).isEmpty();
+	}
+
+	@Test
+	void findsOnlySlotsOnTheGrid() {
+		assertThat(this.scheduler.findSlot("1@" + MONDAY.atTime(14, 0))).isNotNull();
+		assertThat(this.scheduler.findSlot("1@" + MONDAY.atTime(9, 15))).isNull();
+		assertThat(this.scheduler.findSlot("1@" + MONDAY.atTime(14, 30))).isNull();
+		assertThat(this.scheduler.findSlot("2@" + MONDAY.atTime(9, 0))).isNull();
+		assertThat(this.scheduler.findSlot("1@" + MONDAY.minusWeeks(1).atTime(9, 0))).isNull();
+	}
+
+	@Test
+	void onlyOneOfParallelReservationsGetsTheSlot() throws Exception {
+		Slot slot = this.scheduler.findSlot("1@" + MONDAY.atTime(9, 0));
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int i = 0; i < 32; i++) {
+				results.add(executor.submit(() -> this.scheduler.book(slot, () -> {
+				})));
+			}
+			int reserved = 0;
+			for (Future<Boolean> result : results) {
+				reserved += result.get(10, TimeUnit.SECONDS) ? 1 : 0;
+			}
+			assertThat(reserved).isEqualTo(1);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertThat(this.scheduler.freeSlots(MONDAY)).extracting(Slot::key).containsExactly("1@" + MONDAY.atTime(14, 0));
+	}
+
+	@Test
+	void releasesTheSlotWhenTheVisitIsNotSaved() {
+		Slot slot = this.scheduler.findSlot("1@" + MONDAY.atTime(9, 0));
+		assertThatIllegalStateException().isThrownBy(() -> this.scheduler.book(slot, () -> {
+			throw new IllegalStateException("database down");
+		}));
+		assertThat(this.scheduler.book(slot, () -> {
+		})).isTrue();
+	}
+
+	@Test
+	void keepsASlotBookedByAnotherInstance() {
+		Slot slot = this.scheduler.findSlot("1@" + MONDAY.atTime(9, 0));
+		assertThat(this.scheduler.book(slot, () -> {
+			throw new DataIntegrityViolationException("visits_vet_slot");
+		})).isFalse();
+		assertThat(this.scheduler.freeSlots(MONDAY)).doesNotContain(slot);
+	}
+
+	@Test
+	void rejectsAnEmptySlotLength() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new VetScheduler(this.schedules, Duration.ZERO));
+	}
+
+	private static Vet vet(int id, String lastName) {
+		Vet vet = new Vet();
+		vet.setId(id);
+		vet.setFirstName("Dr.");
+		vet.setLastName(lastName);
+		return vet;
+	}
+
+	private static WorkingHours hours(Vet vet, DayOfWeek day, LocalTime start, LocalTime end) {
+		WorkingHours hours = new WorkingHours();
+		hours.setVet(vet);
+		hours.setDayOfWeek(day);
+		hours.setStartTime(start);
+		hours.setEndTime(end);
+		return hours;
+	}
+
+}